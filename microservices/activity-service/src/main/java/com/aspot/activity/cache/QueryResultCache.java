@@ -0,0 +1,118 @@
+package com.aspot.activity.cache;
+
+import com.aspot.activity.model.Activity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory LRU of text search result pages, so common queries such as "museum" skip the
+ * multi_match query.
+ * <p>
+ * Entries are keyed by the index version, the normalized query, page and size. Saving or deleting
+ * an activity, and swapping in a rebuilt index, bumps the version, which makes all earlier entries
+ * unreachable at once; they age out of the LRU. A page loaded while a write lands is stored under
+ * the version it started with, so it is never served after that write. Bulk indexing of provider
+ * results does not bump it, since it runs on every search miss; the version is also per instance,
+ * so the TTL bounds how long those writes, writes made through other instances, and documents not
+ * yet refreshed into search stay hidden.
+ */
+@Component
+public class QueryResultCache {
+    
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final int maxPageSize;
+    private final AtomicLong version = new AtomicLong();
+    private final Map<Key, Entry> entries;
+    
+    private final Counter hits;
+    private final Counter misses;
+    
+    public QueryResultCache(MeterRegistry meterRegistry,
+                            @Value("${activity.query-cache.enabled:true}") boolean enabled,
+                            @Value("${activity.query-cache.max-entries:2000}") int maxEntries,
+                            @Value("${activity.query-cache.ttl-ms:60000}") long ttlMillis,
+                            @Value("${activity.query-cache.max-page-size:100}") int maxPageSize) {
+        this.enabled = enabled;
+        this.ttlMillis = ttlMillis;
+        this.maxPageSize = maxPageSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        
+        this.hits = meterRegistry.counter("activity.query.cache", "outcome", "hit");
+        this.misses = meterRegistry.counter("activity.query.cache", "outcome", "miss");
+        meterRegistry.gauge("activity.query.cache.size", this, QueryResultCache::size);
+    }
+    
+    /**
+     * The cached page for the query, or the page the loader finds for the normalized query, cached
+     * for the current index version. The loader runs the normalized query so cached and fresh
+     * results always agree.
+     */
+    public Page<Activity> get(String query, int page, int size, Function<String, Page<Activity>> loader) {
+        String normalized = normalize(query);
+        if (!enabled || size > maxPageSize) {
+            return loader.apply(normalized);
+        }
+        
+        Key key = new Key(version.get(), normalized, page, size);
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && now - entry.loadedAt() < ttlMillis) {
+                hits.increment();
+                return entry.page();
+            }
+        }
+        
+        misses.increment();
+        Page<Activity> result = loader.apply(normalized);
+        synchronized (entries) {
+            entries.put(key, new Entry(result, now));
+        }
+        return result;
+    }
+    
+    /**
+     * Bump the index version after activities were written or deleted
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+    }
+    
+    /**
+     * Query text trimmed, lower-cased and with runs of whitespace collapsed. Text fields match
+     * regardless; tags are stored lower-case.
+     */
+    static String normalize(String query) {
+        return query == null ? "" : WHITESPACE.matcher(query.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+    
+    private int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+    
+    private record Key(long version, String query, int page, int size) {
+    }
+    
+    private record Entry(Page<Activity> page, long loadedAt) {
+    }
+}
\ No newline at end of file
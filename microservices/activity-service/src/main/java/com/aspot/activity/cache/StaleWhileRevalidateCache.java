@@ -0,0 +1,189 @@
+package com.aspot.activity.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache decorator with soft-TTL semantics for {@code @Cacheable(sync = true)} methods.
+ * <p>
+ * Values are stored with their write time. Up to the soft TTL they are served as is. Past it,
+ * the stale value is still served at once and a single background refresh per key reloads it.
+ * Once the delegate's own TTL (the hard TTL) has evicted the entry, callers block on the
+ * loader, with concurrent callers for the same key sharing one load.
+ */
+@Slf4j
+public class StaleWhileRevalidateCache implements Cache {
+    
+    private final Cache delegate;
+    private final long softTtlMillis;
+    private final Executor refreshExecutor;
+    
+    private final Set<Object> refreshing = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<Object, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+    
+    private final Timer servedAge;
+    private final Counter servedFresh;
+    private final Counter servedStale;
+    private final Counter refreshSucceeded;
+    private final Counter refreshFailed;
+    
+    public StaleWhileRevalidateCache(Cache delegate, Duration softTtl, Executor refreshExecutor, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.softTtlMillis = softTtl.toMillis();
+        this.refreshExecutor = refreshExecutor;
+        
+        String name = delegate.getName();
+        this.servedAge = Timer.builder("cache.served.age").tag("cache", name)
+                .description("Age of cache entries when served")
+                .register(meterRegistry);
+        this.servedFresh = meterRegistry.counter("cache.served", "cache", name, "state", "fresh");
+        this.servedStale = meterRegistry.counter("cache.served", "cache", name, "state", "stale");
+        this.refreshSucceeded = meterRegistry.counter("cache.refresh", "cache", name, "outcome", "success");
+        this.refreshFailed = meterRegistry.counter("cache.refresh", "cache", name, "outcome", "failure");
+    }
+    
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+    
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+    
+    @Override
+    public ValueWrapper get(Object key) {
+        Entry entry = lookup(key);
+        return entry != null ? new SimpleValueWrapper(entry.value) : null;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        Entry entry = lookup(key);
+        if (entry == null || entry.value == null) {
+            return null;
+        }
+        if (type != null && !type.isInstance(entry.value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + entry.value);
+        }
+        return (T) entry.value;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Entry entry = lookup(key);
+        if (entry != null) {
+            if (System.currentTimeMillis() - entry.writtenAt > softTtlMillis) {
+                refreshInBackground(key, valueLoader);
+            }
+            return (T) entry.value;
+        }
+        return (T) loadBlocking(key, valueLoader);
+    }
+    
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, new Entry(value, System.currentTimeMillis()));
+    }
+    
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = delegate.putIfAbsent(key, new Entry(value, System.currentTimeMillis()));
+        return existing != null && existing.get() instanceof Entry entry ? new SimpleValueWrapper(entry.value) : existing;
+    }
+    
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+    
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+    
+    private Entry lookup(Object key) {
+        ValueWrapper wrapper = delegate.get(key);
+        if (wrapper == null) {
+            return null;
+        }
+        
+        // Values written before this decorator was in place count as already stale
+        Entry entry = wrapper.get() instanceof Entry stored ? stored : new Entry(wrapper.get(), 0L);
+        long age = Math.max(System.currentTimeMillis() - entry.writtenAt, 0L);
+        servedAge.record(age, TimeUnit.MILLISECONDS);
+        (age > softTtlMillis ? servedStale : servedFresh).increment();
+        return entry;
+    }
+    
+    private void refreshInBackground(Object key, Callable<?> valueLoader) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    put(key, valueLoader.call());
+                    refreshSucceeded.increment();
+                } catch (Exception e) {
+                    refreshFailed.increment();
+                    log.warn("Background refresh of {} entry {} failed, keeping stale value: {}", getName(), key, e.getMessage());
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (Exception e) {
+            refreshing.remove(key);
+            refreshFailed.increment();
+            log.warn("Could not schedule refresh of {} entry {}: {}", getName(), key, e.getMessage());
+        }
+    }
+    
+    private Object loadBlocking(Object key, Callable<?> valueLoader) {
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = loading.putIfAbsent(key, load);
+        if (inFlight != null) {
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                throw new ValueRetrievalException(key, valueLoader, e.getCause());
+            }
+        }
+        
+        try {
+            Object value = valueLoader.call();
+            put(key, value);
+            load.complete(value);
+            return value;
+        } catch (Exception e) {
+            load.completeExceptionally(e);
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } finally {
+            loading.remove(key, load);
+        }
+    }
+    
+    /**
+     * Cached value together with the time it was written
+     */
+    private record Entry(Object value, long writtenAt) implements Serializable {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.aspot.activity.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Wraps the caches that have a soft TTL configured in a {@link StaleWhileRevalidateCache}
+ * and passes every other cache through unchanged
+ */
+public class StaleWhileRevalidateCacheManager implements CacheManager {
+    
+    private final CacheManager delegate;
+    private final Map<String, Duration> softTtls;
+    private final Executor refreshExecutor;
+    private final MeterRegistry meterRegistry;
+    
+    private final ConcurrentMap<String, Cache> decoratedCaches = new ConcurrentHashMap<>();
+    
+    public StaleWhileRevalidateCacheManager(CacheManager delegate, Map<String, Duration> softTtls,
+                                            Executor refreshExecutor, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.softTtls = Map.copyOf(softTtls);
+        this.refreshExecutor = refreshExecutor;
+        this.meterRegistry = meterRegistry;
+    }
+    
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = delegate.getCache(name);
+        Duration softTtl = softTtls.get(name);
+        if (cache == null || softTtl == null) {
+            return cache;
+        }
+        return decoratedCaches.computeIfAbsent(name,
+                n -> new StaleWhileRevalidateCache(cache, softTtl, refreshExecutor, meterRegistry));
+    }
+    
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+}
\ No newline at end of file
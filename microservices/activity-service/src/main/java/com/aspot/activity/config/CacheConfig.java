@@ -0,0 +1,62 @@
+package com.aspot.activity.config;
+
+import com.aspot.activity.cache.StaleWhileRevalidateCacheManager;
+import com.aspot.activity.service.external.PlacesQuotaGovernor;
+import com.aspot.activity.service.external.QuotaPriority;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+@Configuration
+public class CacheConfig {
+    
+    /**
+     * Redis caches whose TTL acts as the hard TTL. The Places-backed activity caches also get a
+     * soft TTL, after which stale entries are served while one background refresh runs.
+     */
+    @Bean
+    public CacheManager cacheManager(
+            RedisConnectionFactory connectionFactory,
+            MeterRegistry meterRegistry,
+            @Qualifier("cacheRefreshExecutor") ExecutorService cacheRefreshExecutor,
+            PlacesQuotaGovernor quotaGovernor,
+            @Value("${spring.cache.redis.time-to-live:3600000}") long hardTtlMillis,
+            @Value("${activity.cache.soft-ttl.activities:900000}") long activitiesSoftTtlMillis,
+            @Value("${activity.cache.soft-ttl.popular-activities:900000}") long popularActivitiesSoftTtlMillis) {
+        
+        RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig(getClass().getClassLoader())
+                .entryTtl(Duration.ofMillis(hardTtlMillis));
+        
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(config)
+                .build();
+        redisCacheManager.afterPropertiesSet();
+        
+        return new StaleWhileRevalidateCacheManager(redisCacheManager,
+                Map.of("activities", Duration.ofMillis(activitiesSoftTtlMillis),
+                       "yelp-activities", Duration.ofMillis(activitiesSoftTtlMillis),
+                       "popular-activities", Duration.ofMillis(popularActivitiesSoftTtlMillis)),
+                backgroundPriority(cacheRefreshExecutor, quotaGovernor), meterRegistry);
+    }
+    
+    /**
+     * Background refreshes serve already-cached data, so their Places calls use warm-up quota
+     */
+    private Executor backgroundPriority(ExecutorService executor, PlacesQuotaGovernor quotaGovernor) {
+        return task -> executor.execute(() -> quotaGovernor.callWithPriority(QuotaPriority.WARMUP, () -> {
+            task.run();
+            return null;
+        }));
+    }
+}
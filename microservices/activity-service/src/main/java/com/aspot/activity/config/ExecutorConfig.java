@@ -0,0 +1,43 @@
+package com.aspot.activity.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class ExecutorConfig {
+    
+    /**
+     * Bounded pool for concurrent upstream Places calls. Submissions beyond the
+     * queue capacity are rejected so callers can degrade instead of piling up.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService placesExecutor(
+            @Value("${activity.places.executor.threads:8}") int threads,
+            @Value("${activity.places.executor.queue-capacity:64}") int queueCapacity) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("places-"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+    
+    /**
+     * Background refreshes of stale cache entries. When every thread is busy further refreshes
+     * are rejected and the stale value keeps being served until the next request retries.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService cacheRefreshExecutor(
+            @Value("${activity.cache.refresh.threads:4}") int threads,
+            @Value("${activity.cache.refresh.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("cache-refresh-"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
\ No newline at end of file
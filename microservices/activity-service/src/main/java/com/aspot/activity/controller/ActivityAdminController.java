@@ -0,0 +1,72 @@
+package com.aspot.activity.controller;
+
+import com.aspot.activity.model.ReindexStatus;
+import com.aspot.activity.service.ActivityReindexer;
+import com.aspot.activity.synthetic.SyntheticDatasetLoader;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/activities/admin")
+@RequiredArgsConstructor
+@Slf4j
+public class ActivityAdminController {
+    
+    private final ActivityReindexer activityReindexer;
+    private final SyntheticDatasetLoader syntheticDatasetLoader;
+    
+    @Value("${activity.reindex.shards:3}")
+    private int defaultShards;
+    
+    /**
+     * Start copying the activity index into a new destination-routed index and swap the alias once done
+     */
+    @PostMapping("/reindex")
+    public ResponseEntity<ReindexStatus> startReindex(@RequestParam(required = false) Integer shards) {
+        int targetShards = shards != null ? shards : defaultShards;
+        log.info("Starting activity reindex with {} shards", targetShards);
+        
+        if (targetShards < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        ReindexStatus status = activityReindexer.start(targetShards);
+        if (status == null) {
+            log.warn("Rejected activity reindex, one is already running");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(activityReindexer.getStatus());
+        }
+        return ResponseEntity.accepted().body(status);
+    }
+    
+    /**
+     * Progress of the running or latest reindex
+     */
+    @GetMapping("/reindex")
+    public ResponseEntity<ReindexStatus> getReindexStatus() {
+        return ResponseEntity.ok(activityReindexer.getStatus());
+    }
+    
+    /**
+     * Bulk-load the synthetic capacity-test corpus in the background. Only available when the loader is enabled.
+     */
+    @PostMapping("/synthetic/load")
+    public ResponseEntity<Void> loadSyntheticActivities(@RequestParam(required = false) Integer destinations) {
+        log.info("Loading synthetic activities for {} destinations", destinations != null ? destinations : "the configured");
+        
+        if (!syntheticDatasetLoader.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (destinations != null && destinations < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!syntheticDatasetLoader.start(destinations)) {
+            log.warn("Rejected synthetic activity load, one is already running");
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.accepted().build();
+    }
+}
\ No newline at end of file
@@ -1,14 +1,25 @@
 package com.aspot.activity.controller;
 
 import com.aspot.activity.model.Activity;
+import com.aspot.activity.model.ActivityScheduledEvent;
+import com.aspot.activity.model.Suggestion;
 import com.aspot.activity.model.UserPreferences;
+import com.aspot.activity.service.ActivityDetailsHydrator;
+import com.aspot.activity.service.ActivityExporter;
 import com.aspot.activity.service.ActivityService;
+import com.aspot.activity.service.DestinationCanonicalizer;
+import com.aspot.activity.service.DestinationTrafficTracker;
 import com.aspot.activity.service.RecommendationService;
+import com.aspot.activity.service.TrendingService;
+import com.aspot.activity.service.external.PlacesQuotaExceededException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Optional;
@@ -21,19 +32,56 @@ public class ActivityController {
     
     private final ActivityService activityService;
     private final RecommendationService recommendationService;
+    private final DestinationTrafficTracker trafficTracker;
+    private final TrendingService trendingService;
+    private final ActivityDetailsHydrator detailsHydrator;
+    private final DestinationCanonicalizer destinationCanonicalizer;
+    private final ActivityExporter activityExporter;
+    
+    @Value("${activity.batch.max-ids:200}")
+    private int maxBatchSize;
+    
+    @Value("${activity.leaderboard.max-results:500}")
+    private int maxPopularResults;
     
     /**
-     * Get activity by ID
+     * Get activity by ID. Passing its destination also finds activities written in the last second.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Activity> getActivity(@PathVariable String id) {
+    public ResponseEntity<Activity> getActivity(@PathVariable String id,
+                                                @RequestParam(required = false) String destination) {
         log.info("Getting activity with id: {}", id);
         
-        Optional<Activity> activity = activityService.getActivityById(id);
+        Optional<Activity> activity = destination != null
+                ? activityService.getActivitiesByIds(List.of(id), destinationCanonicalizer.canonicalize(destination)).stream().findFirst()
+                : activityService.getActivityById(id);
         return activity.map(ResponseEntity::ok)
                       .orElse(ResponseEntity.notFound().build());
     }
     
+    /**
+     * Get several activities by ID in one call. Unknown ids are left out; the rest keep the request order.
+     * Passing the destination they belong to also finds activities written in the last second.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<Activity>> getActivities(@RequestBody List<String> ids,
+                                                        @RequestParam(required = false) String destination) {
+        log.info("Getting {} activities by id", ids.size());
+        
+        if (ids.size() > maxBatchSize) {
+            log.warn("Rejected batch of {} activity ids, limit is {}", ids.size(), maxBatchSize);
+            return ResponseEntity.badRequest().body(List.of());
+        }
+        
+        try {
+            String canonical = destination != null ? destinationCanonicalizer.canonicalize(destination) : null;
+            return ResponseEntity.ok(activityService.getActivitiesByIds(ids, canonical));
+        } catch (Exception e) {
+            log.error("Error getting activities by id: {}", e.getMessage(), e);
+            return ResponseEntity.status(500).body(List.of());
+        }
+    }
+    
     /**
      * Search activities by destination and optional category
      */
@@ -44,11 +92,19 @@ public class ActivityController {
             @RequestParam(defaultValue = "20") int limit) {
         
         log.info("Searching activities for destination: {}, category: {}, limit: {}", destination, category, limit);
+        destination = destinationCanonicalizer.canonicalize(destination);
+        if (destination == null) {
+            return ResponseEntity.badRequest().body(List.of());
+        }
+        trafficTracker.record(destination);
         
         try {
             List<Activity> activities = activityService.searchActivities(destination, category, limit);
             log.info("Successfully found {} activities", activities.size());
             return ResponseEntity.ok(activities);
+        } catch (PlacesQuotaExceededException e) {
+            log.warn("Google Places quota exhausted while searching activities: {}", e.getMessage());
+            return ResponseEntity.status(503).body(List.of());
         } catch (Exception e) {
             log.error("Error searching activities: {}", e.getMessage(), e);
             return ResponseEntity.status(500).body(List.of());
@@ -86,26 +142,104 @@ public class ActivityController {
         return ResponseEntity.ok(activities);
     }
     
+    /**
+     * Autocomplete destinations and activity names by prefix, for search-as-you-type
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<Suggestion>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        
+        log.debug("Suggesting activities for prefix: {}, limit: {}", q, limit);
+        
+        return ResponseEntity.ok(activityService.suggest(q, limit));
+    }
+    
+    /**
+     * Stream every activity for a destination as newline-delimited JSON, for bulk exports and offline bundles
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportActivities(@RequestParam String destination) {
+        log.info("Exporting activities for destination: {}", destination);
+        
+        String canonicalDestination = destinationCanonicalizer.canonicalize(destination);
+        if (canonicalDestination == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        StreamingResponseBody body = outputStream -> activityExporter.export(canonicalDestination, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+    
     /**
      * Get popular activities for a destination
      */
     @GetMapping("/popular")
     public ResponseEntity<List<Activity>> getPopularActivities(
             @RequestParam String destination,
+            @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int limit) {
         
-        log.info("Getting popular activities for destination: {}, limit: {}", destination, limit);
+        log.info("Getting popular activities for destination: {}, page: {}, limit: {}", destination, page, limit);
+        if (page < 0 || limit < 1 || (long) (page + 1) * limit > maxPopularResults) {
+            log.warn("Rejected popular activities page {} of {}, at most {} results are served", page, limit, maxPopularResults);
+            return ResponseEntity.badRequest().body(List.of());
+        }
+        destination = destinationCanonicalizer.canonicalize(destination);
+        if (destination == null) {
+            return ResponseEntity.badRequest().body(List.of());
+        }
         
         try {
-            List<Activity> activities = activityService.getPopularActivities(destination, limit);
+            List<Activity> activities = activityService.getPopularActivities(destination, page, limit);
             log.info("Successfully found {} popular activities", activities.size());
             return ResponseEntity.ok(activities);
+        } catch (PlacesQuotaExceededException e) {
+            log.warn("Google Places quota exhausted while getting popular activities: {}", e.getMessage());
+            return ResponseEntity.status(503).body(List.of());
         } catch (Exception e) {
             log.error("Error getting popular activities: {}", e.getMessage(), e);
             return ResponseEntity.status(500).body(List.of());
         }
     }
     
+    /**
+     * Get the activities users have been scheduling most in a destination, recent scheduling weighted highest
+     */
+    @GetMapping("/trending")
+    public ResponseEntity<List<Activity>> getTrendingActivities(
+            @RequestParam String destination,
+            @RequestParam(defaultValue = "10") int limit) {
+        
+        log.info("Getting trending activities for destination: {}, limit: {}", destination, limit);
+        String canonicalDestination = destinationCanonicalizer.canonicalize(destination);
+        if (canonicalDestination == null) {
+            return ResponseEntity.badRequest().body(List.of());
+        }
+        
+        try {
+            return ResponseEntity.ok(trendingService.getTrendingActivities(canonicalDestination, limit));
+        } catch (Exception e) {
+            log.error("Error getting trending activities: {}", e.getMessage(), e);
+            return ResponseEntity.status(500).body(List.of());
+        }
+    }
+    
+    /**
+     * Record activities scheduled into an itinerary, reported by Itinerary Service
+     */
+    @PostMapping("/events/scheduled")
+    public ResponseEntity<Void> activitiesScheduled(@RequestBody ActivityScheduledEvent event) {
+        log.debug("Recording {} scheduled activities for {}",
+                event.getActivityIds() != null ? event.getActivityIds().size() : 0, event.getDestination());
+        
+        trendingService.recordScheduled(destinationCanonicalizer.canonicalize(event.getDestination()), event.getActivityIds());
+        detailsHydrator.requestIds(event.getActivityIds());
+        return ResponseEntity.accepted().build();
+    }
+    
     /**
      * Get personalized recommendations
      */
@@ -116,11 +250,21 @@ public class ActivityController {
             @RequestBody UserPreferences preferences) {
         
         log.info("Getting recommendations for destination: {}, limit: {}, preferences: {}", destination, limit, preferences);
+        destination = destinationCanonicalizer.canonicalize(destination);
+        if (destination == null) {
+            return ResponseEntity.badRequest().body(List.of());
+        }
+        trafficTracker.record(destination);
         
         try {
             List<Activity> recommendations = recommendationService.generateRecommendations(destination, preferences, limit);
             log.info("Successfully generated {} recommendations", recommendations.size());
+            // Details are fetched in the background and show up on later requests
+            detailsHydrator.request(recommendations);
             return ResponseEntity.ok(recommendations);
+        } catch (PlacesQuotaExceededException e) {
+            log.warn("Google Places quota exhausted while generating recommendations: {}", e.getMessage());
+            return ResponseEntity.status(503).body(List.of());
         } catch (Exception e) {
             log.error("Error generating recommendations: {}", e.getMessage(), e);
             return ResponseEntity.status(500).body(List.of());
@@ -157,7 +301,9 @@ public class ActivityController {
     public ResponseEntity<Void> deleteActivity(@PathVariable String id) {
         log.info("Deleting activity with id: {}", id);
         
-        activityService.deleteActivity(id);
+        if (!activityService.deleteActivity(id)) {
+            return ResponseEntity.notFound().build();
+        }
         return ResponseEntity.noContent().build();
     }
     
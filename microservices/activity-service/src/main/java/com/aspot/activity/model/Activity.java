@@ -4,10 +4,12 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import org.springframework.data.annotation.AccessType;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.elasticsearch.annotations.Document;
 import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.annotations.Routing;
 
 import java.io.Serializable;
 import java.util.List;
@@ -16,6 +18,7 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(indexName = "activities")
+@Routing("destinationKey")
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class Activity implements Serializable {
     
@@ -33,6 +36,11 @@ public class Activity implements Serializable {
     @Field(type = FieldType.Keyword)
     private String destination;
     
+    // Always derived from destination; read through the getter so documents are routed by it
+    @Field(type = FieldType.Keyword)
+    @AccessType(AccessType.Type.PROPERTY)
+    private String destinationKey;
+    
     @Field(type = FieldType.Double)
     private Double rating;
     
@@ -62,4 +70,8 @@ public class Activity implements Serializable {
     
     @Field(type = FieldType.Text)
     private String phoneNumber;
+    
+    public String getDestinationKey() {
+        return DestinationKeys.of(destination);
+    }
 }
\ No newline at end of file
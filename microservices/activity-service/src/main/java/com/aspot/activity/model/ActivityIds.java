@@ -0,0 +1,42 @@
+package com.aspot.activity.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Deterministic activity ids, so fetching the same place again overwrites its document
+ * instead of indexing a duplicate
+ */
+public final class ActivityIds {
+    
+    public static final String GOOGLE_PREFIX = "gp_";
+    public static final String YELP_PREFIX = "yelp_";
+    
+    private ActivityIds() {
+    }
+    
+    /**
+     * Id for a Google Places result, derived from its place_id
+     */
+    public static String fromGooglePlace(String placeId) {
+        return GOOGLE_PREFIX + placeId;
+    }
+    
+    /**
+     * Id for a Yelp Fusion business, derived from its business id
+     */
+    public static String fromYelpBusiness(String businessId) {
+        return YELP_PREFIX + businessId;
+    }
+    
+    /**
+     * Name-based UUID over the given parts, for sources without a stable upstream id
+     */
+    public static String stableHash(Object... parts) {
+        StringBuilder key = new StringBuilder();
+        for (Object part : parts) {
+            key.append(part).append('|');
+        }
+        return UUID.nameUUIDFromBytes(key.toString().getBytes(StandardCharsets.UTF_8)).toString();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.aspot.activity.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Activities a user scheduled into an itinerary, reported by itinerary-service
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityScheduledEvent {
+    private String destination;
+    private List<String> activityIds;
+}
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.aspot.activity.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Destination-wide recommendation candidates, grouped by the Google Places type they were fetched for
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CandidatePool implements Serializable {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private String destination;
+    private Map<String, List<Activity>> activitiesByType = new LinkedHashMap<>();
+    private long fetchedAt;
+    private boolean complete;
+    
+    public List<Activity> getActivities(String googleType) {
+        return activitiesByType.getOrDefault(googleType, List.of());
+    }
+}
\ No newline at end of file
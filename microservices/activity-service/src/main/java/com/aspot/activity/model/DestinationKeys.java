@@ -0,0 +1,32 @@
+package com.aspot.activity.model;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalized destination names, used to route a destination's activities to one shard and to
+ * look them up again with an exact term
+ */
+public final class DestinationKeys {
+    
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N},]+");
+    private static final Pattern SPACE_BEFORE_COMMA = Pattern.compile(" ,");
+    
+    private DestinationKeys() {
+    }
+    
+    /**
+     * Destination folded to lower case without accents, with punctuation other than commas and
+     * repeated whitespace collapsed to single spaces, or null for null
+     */
+    public static String of(String destination) {
+        if (destination == null) {
+            return null;
+        }
+        String folded = COMBINING_MARKS.matcher(Normalizer.normalize(destination, Normalizer.Form.NFD)).replaceAll("");
+        folded = SEPARATORS.matcher(folded.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+        return SPACE_BEFORE_COMMA.matcher(folded).replaceAll(",");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.aspot.activity.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Progress of the latest activity reindex, as reported by the admin endpoint
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReindexStatus {
+    
+    public enum State {
+        IDLE,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+    
+    private State state;
+    private List<String> sourceIndices;
+    private String targetIndex;
+    private int shards;
+    private long copied;
+    private long skipped;
+    private Long startedAt;
+    private Long finishedAt;
+    private String error;
+}
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.aspot.activity.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One autocomplete suggestion: a destination, or an activity with its destination
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Suggestion {
+    
+    public enum Type {
+        DESTINATION,
+        ACTIVITY
+    }
+    
+    private String text;
+    private Type type;
+    private String activityId;
+    private String destination;
+}
\ No newline at end of file
@@ -11,7 +11,7 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface ActivityRepository extends ElasticsearchRepository<Activity, String> {
+public interface ActivityRepository extends ElasticsearchRepository<Activity, String>, ActivityRepositoryCustom {
     
     List<Activity> findByDestinationIgnoreCase(String destination);
     
@@ -0,0 +1,65 @@
+package com.aspot.activity.repository;
+
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.model.ActivityCategory;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Lookups that derived query methods cannot express: routed searches, ids on any shard and
+ * point-in-time paging
+ */
+public interface ActivityRepositoryCustom {
+    
+    /**
+     * Activities for a destination, optionally in one category, searching only the destination's shard
+     */
+    List<Activity> findRoutedByDestination(String destination, ActivityCategory category);
+    
+    /**
+     * Popular activities for a destination, searching only the destination's shard
+     */
+    List<Activity> findRoutedPopularByDestination(String destination);
+    
+    /**
+     * Activities by id on whichever shard holds them. A real-time multi-get finds documents on the
+     * shard their id hashes to, which covers single-shard indices and documents indexed before
+     * routing; the rest are found with an ids search, which only sees them once the index refreshed.
+     */
+    List<Activity> findAllByIdOnAnyShard(Collection<String> ids);
+    
+    /**
+     * Activities by id, read in real time from the shard the destination routes to. Ids not found
+     * there are looked up with {@link #findAllByIdOnAnyShard}.
+     */
+    List<Activity> findAllByIdInDestination(Collection<String> ids, String destination);
+    
+    /**
+     * Delete every copy of an activity on every shard, after a refresh so that documents written
+     * since the last one are deleted too
+     *
+     * @return the copies that were deleted, empty if there were none
+     */
+    List<Activity> deleteAllCopies(String id);
+    
+    /**
+     * Delete documents that share an id with one of the given activities but are routed by another
+     * destination, left behind when an activity moved destination or a place was fetched for two.
+     * Only documents visible to search are found, so callers only run it once a lookup found such a copy.
+     *
+     * @return the number of documents deleted
+     */
+    long deleteStaleCopies(Collection<Activity> written);
+    
+    /**
+     * Pass every activity for a destination to the consumer, one page at a time, walking a
+     * point-in-time view of the index with search_after. Pages stay consistent while documents
+     * are written and only the current page is held in memory.
+     *
+     * @return the number of activities passed to the consumer
+     */
+    long forEachPageByDestination(String destination, int pageSize, Duration keepAlive, Consumer<List<Activity>> pageConsumer);
+}
\ No newline at end of file
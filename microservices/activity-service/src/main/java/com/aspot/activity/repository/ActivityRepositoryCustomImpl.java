@@ -0,0 +1,227 @@
+package com.aspot.activity.repository;
+
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.model.ActivityCategory;
+import com.aspot.activity.model.DestinationKeys;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.MultiGetItem;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.query.ByQueryResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+@RequiredArgsConstructor
+@Slf4j
+public class ActivityRepositoryCustomImpl implements ActivityRepositoryCustom {
+    
+    // Same cap derived queries use for unpaged results
+    private static final int MAX_RESULTS = 10000;
+    
+    // Copies of one id a delete expects at most; stale copies are deleted as they appear
+    private static final int MAX_COPIES = 100;
+    
+    private final ElasticsearchOperations elasticsearchOperations;
+    
+    @Override
+    public List<Activity> findRoutedByDestination(String destination, ActivityCategory category) {
+        String destinationKey = DestinationKeys.of(destination);
+        BoolQuery.Builder bool = new BoolQuery.Builder()
+                .filter(destinationFilter(destination, destinationKey));
+        if (category != null) {
+            bool.filter(filter -> filter.term(term -> term.field("category").value(category.name())));
+        }
+        return search(destinationKey, bool.build());
+    }
+    
+    @Override
+    public List<Activity> findRoutedPopularByDestination(String destination) {
+        String destinationKey = DestinationKeys.of(destination);
+        return search(destinationKey, new BoolQuery.Builder()
+                .filter(destinationFilter(destination, destinationKey))
+                .filter(filter -> filter.term(term -> term.field("isPopular").value(true)))
+                .build());
+    }
+    
+    @Override
+    public List<Activity> findAllByIdOnAnyShard(Collection<String> ids) {
+        Set<String> uniqueIds = new LinkedHashSet<>(ids);
+        if (uniqueIds.isEmpty()) {
+            return List.of();
+        }
+        List<Activity> found = multiGet(NativeQuery.builder().withIds(uniqueIds).build());
+        List<String> missing = missing(uniqueIds, found);
+        if (missing.isEmpty()) {
+            return found;
+        }
+        
+        List<Activity> activities = new ArrayList<>(found);
+        activities.addAll(searchIds(missing, missing.size()));
+        return activities;
+    }
+    
+    @Override
+    public List<Activity> findAllByIdInDestination(Collection<String> ids, String destination) {
+        String destinationKey = DestinationKeys.of(destination);
+        Set<String> uniqueIds = new LinkedHashSet<>(ids);
+        if (destinationKey == null || destinationKey.isEmpty() || uniqueIds.isEmpty()) {
+            return findAllByIdOnAnyShard(uniqueIds);
+        }
+        List<Activity> found = multiGet(NativeQuery.builder()
+                .withIdsWithRouting(uniqueIds.stream()
+                        .map(id -> new org.springframework.data.elasticsearch.core.query.Query.IdWithRouting(id, destinationKey))
+                        .toList())
+                .build());
+        List<String> missing = missing(uniqueIds, found);
+        if (missing.isEmpty()) {
+            return found;
+        }
+        
+        List<Activity> activities = new ArrayList<>(found);
+        activities.addAll(findAllByIdOnAnyShard(missing));
+        return activities;
+    }
+    
+    @Override
+    public List<Activity> deleteAllCopies(String id) {
+        elasticsearchOperations.indexOps(Activity.class).refresh();
+        List<Activity> copies = searchIds(List.of(id), MAX_COPIES);
+        if (copies.isEmpty()) {
+            return List.of();
+        }
+        ByQueryResponse response = elasticsearchOperations.delete(NativeQuery.builder()
+                .withQuery(q -> q.ids(idsQuery -> idsQuery.values(id)))
+                .build(), Activity.class);
+        return response.getDeleted() > 0 ? copies : List.of();
+    }
+    
+    @Override
+    public long deleteStaleCopies(Collection<Activity> written) {
+        Map<String, List<String>> idsByDestinationKey = new HashMap<>();
+        for (Activity activity : written) {
+            String destinationKey = activity.getDestinationKey();
+            if (activity.getId() != null && destinationKey != null) {
+                idsByDestinationKey.computeIfAbsent(destinationKey, key -> new ArrayList<>()).add(activity.getId());
+            }
+        }
+        if (idsByDestinationKey.isEmpty()) {
+            return 0;
+        }
+        
+        // Documents indexed before the key existed have none, so they never match the term and are deleted too
+        BoolQuery.Builder bool = new BoolQuery.Builder().minimumShouldMatch("1");
+        idsByDestinationKey.forEach((destinationKey, ids) -> bool.should(should -> should.bool(copies -> copies
+                .filter(filter -> filter.ids(idsQuery -> idsQuery.values(ids)))
+                .mustNot(mustNot -> mustNot.term(term -> term.field("destinationKey").value(destinationKey))))));
+        BoolQuery staleCopies = bool.build();
+        return elasticsearchOperations.delete(NativeQuery.builder()
+                .withQuery(q -> q.bool(staleCopies))
+                .build(), Activity.class).getDeleted();
+    }
+    
+    @Override
+    public long forEachPageByDestination(String destination, int pageSize, Duration keepAlive,
+                                         Consumer<List<Activity>> pageConsumer) {
+        Query filter = Query.of(q -> q.bool(bool -> bool.filter(destinationFilter(destination, DestinationKeys.of(destination)))));
+        String pointInTimeId = elasticsearchOperations.openPointInTime(
+                elasticsearchOperations.getIndexCoordinatesFor(Activity.class), keepAlive);
+        long count = 0;
+        try {
+            List<Object> searchAfter = null;
+            while (true) {
+                // _shard_doc is the cheapest total order on a point in time
+                NativeQueryBuilder builder = NativeQuery.builder()
+                        .withQuery(filter)
+                        .withPointInTime(new org.springframework.data.elasticsearch.core.query.Query.PointInTime(pointInTimeId, keepAlive))
+                        .withSort(sort -> sort.field(field -> field.field("_shard_doc")))
+                        .withTrackTotalHits(false)
+                        .withMaxResults(pageSize);
+                if (searchAfter != null) {
+                    builder.withSearchAfter(searchAfter);
+                }
+                
+                SearchHits<Activity> hits = elasticsearchOperations.search(builder.build(), Activity.class);
+                List<SearchHit<Activity>> page = hits.getSearchHits();
+                if (page.isEmpty()) {
+                    break;
+                }
+                pageConsumer.accept(page.stream().map(SearchHit::getContent).toList());
+                count += page.size();
+                if (page.size() < pageSize) {
+                    break;
+                }
+                
+                searchAfter = page.get(page.size() - 1).getSortValues();
+                if (hits.getPointInTimeId() != null) {
+                    pointInTimeId = hits.getPointInTimeId();
+                }
+            }
+        } finally {
+            try {
+                elasticsearchOperations.closePointInTime(pointInTimeId);
+            } catch (Exception e) {
+                // It expires after the keep-alive anyway
+                log.debug("Could not close point in time: {}", e.getMessage());
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Matches the destination key, or the destination itself for documents indexed before the key existed
+     */
+    private static Query destinationFilter(String destination, String destinationKey) {
+        return Query.of(q -> q.bool(bool -> bool
+                .should(should -> should.term(term -> term.field("destinationKey").value(destinationKey)))
+                .should(should -> should.term(term -> term.field("destination").value(destination).caseInsensitive(true)))
+                .minimumShouldMatch("1")));
+    }
+    
+    private List<Activity> multiGet(NativeQuery query) {
+        return elasticsearchOperations.multiGet(query, Activity.class).stream()
+                .filter(MultiGetItem::hasItem)
+                .map(MultiGetItem::getItem)
+                .toList();
+    }
+    
+    private List<Activity> searchIds(Collection<String> ids, int maxResults) {
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(q -> q.ids(idsQuery -> idsQuery.values(new ArrayList<>(ids))))
+                .withMaxResults(maxResults)
+                .build();
+        return elasticsearchOperations.search(query, Activity.class).stream()
+                .map(SearchHit::getContent)
+                .toList();
+    }
+    
+    private static List<String> missing(Set<String> ids, List<Activity> found) {
+        Set<String> missing = new LinkedHashSet<>(ids);
+        found.forEach(activity -> missing.remove(activity.getId()));
+        return new ArrayList<>(missing);
+    }
+    
+    private List<Activity> search(String route, BoolQuery bool) {
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(Query.of(q -> q.bool(bool)))
+                .withRoute(route)
+                .withMaxResults(MAX_RESULTS)
+                .build();
+        return elasticsearchOperations.search(query, Activity.class).stream()
+                .map(SearchHit::getContent)
+                .toList();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,145 @@
+package com.aspot.activity.service;
+
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.service.external.ActivityProvider;
+import com.aspot.activity.service.external.PlacesQuotaGovernor;
+import com.aspot.activity.service.external.QuotaPriority;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Queries every enabled activity provider in parallel and merges their results into one list.
+ * <p>
+ * Each provider has its own deadline; one that fails or runs past it is left out, so a slow
+ * provider never delays the merged result by more than its deadline. The merged list takes
+ * providers' results in turn by rank, in provider order, drops duplicates across providers
+ * and keeps the first maxResults.
+ */
+@Service
+@Slf4j
+public class ActivityAggregator {
+    
+    private final List<ActivityProvider> providers;
+    private final PlacesQuotaGovernor quotaGovernor;
+    private final ExecutorService placesExecutor;
+    
+    public ActivityAggregator(List<ActivityProvider> providers,
+                              PlacesQuotaGovernor quotaGovernor,
+                              ExecutorService placesExecutor) {
+        this.providers = providers;
+        this.quotaGovernor = quotaGovernor;
+        this.placesExecutor = placesExecutor;
+        log.info("Activity providers: {}", providers.stream()
+                .map(p -> p.getName() + (p.isEnabled() ? "" : " (disabled)")).toList());
+    }
+    
+    /**
+     * Merged activities from all providers, waiting at most the slowest provider's deadline
+     */
+    public List<Activity> searchActivities(String destination, String category, int maxResults) {
+        try {
+            return searchActivitiesAsync(destination, category, maxResults, false).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Start a search on every enabled provider. The future fails only if every provider failed,
+     * with the first provider's failure.
+     *
+     * @param refresh bypass provider caches and store the fresh results in them
+     */
+    public CompletableFuture<List<Activity>> searchActivitiesAsync(String destination, String category,
+                                                                   int maxResults, boolean refresh) {
+        // Calls run on executor threads, so carry the caller's quota priority over
+        QuotaPriority priority = quotaGovernor.currentPriority();
+        
+        List<ActivityProvider> enabled = providers.stream().filter(ActivityProvider::isEnabled).toList();
+        List<CompletableFuture<List<Activity>>> results = new ArrayList<>(enabled.size());
+        for (ActivityProvider provider : enabled) {
+            results.add(submit(provider, priority, destination, category, maxResults, refresh));
+        }
+        
+        return CompletableFuture.allOf(results.stream()
+                        .map(future -> future.exceptionally(e -> null))
+                        .toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> merge(enabled, results, destination, category, maxResults));
+    }
+    
+    private CompletableFuture<List<Activity>> submit(ActivityProvider provider, QuotaPriority priority,
+                                                     String destination, String category, int maxResults,
+                                                     boolean refresh) {
+        try {
+            return CompletableFuture
+                    .supplyAsync(() -> quotaGovernor.callWithPriority(priority, () -> refresh
+                            ? provider.refreshActivities(destination, category, maxResults)
+                            : provider.searchActivities(destination, category, maxResults)), placesExecutor)
+                    .orTimeout(provider.getTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+    
+    private List<Activity> merge(List<ActivityProvider> enabled, List<CompletableFuture<List<Activity>>> results,
+                                 String destination, String category, int maxResults) {
+        List<List<Activity>> lists = new ArrayList<>(results.size());
+        Throwable firstFailure = null;
+        for (int i = 0; i < results.size(); i++) {
+            ActivityProvider provider = enabled.get(i);
+            try {
+                lists.add(results.get(i).join());
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof TimeoutException) {
+                    log.warn("Provider {} missed its {}ms deadline for {} / {}", provider.getName(),
+                            provider.getTimeoutMs(), destination, category);
+                } else {
+                    log.warn("Provider {} failed for {} / {}: {}", provider.getName(), destination, category,
+                            cause.getMessage());
+                }
+                if (firstFailure == null) {
+                    firstFailure = cause;
+                }
+            }
+        }
+        
+        if (lists.isEmpty()) {
+            throw new CompletionException(firstFailure != null
+                    ? firstFailure : new IllegalStateException("No activity providers enabled"));
+        }
+        if (lists.size() == 1) {
+            return lists.get(0);
+        }
+        
+        // Take each provider's results in turn by rank; the score keeps that order through deduplication
+        ActivityDeduplicator deduplicator = new ActivityDeduplicator();
+        int longest = lists.stream().mapToInt(List::size).max().orElse(0);
+        int position = 0;
+        for (int rank = 0; rank < longest; rank++) {
+            for (List<Activity> list : lists) {
+                if (rank < list.size()) {
+                    deduplicator.add(list.get(rank), -position++);
+                }
+            }
+        }
+        
+        TopKSelector<Activity> merged = new TopKSelector<>(maxResults);
+        deduplicator.forEachUnique(merged::offer);
+        log.debug("Merged {} activities from {} providers, removed {} duplicates",
+                merged.size(), lists.size(), deduplicator.getRemovedCount());
+        return merged.toSortedList();
+    }
+}
\ No newline at end of file
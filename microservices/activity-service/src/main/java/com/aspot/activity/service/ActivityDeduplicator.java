@@ -0,0 +1,275 @@
+package com.aspot.activity.service;
+
+import com.aspot.activity.model.Activity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Incremental duplicate filter for recommendation candidates.
+ * <p>
+ * Keeps the result of comparing every candidate against every kept activity (same name,
+ * one name containing the other, or within 100m with a shared leading word, keeping the
+ * higher-rated one) but only compares a candidate against kept activities found through a
+ * name index, a six-character name fragment index or a 100m spatial grid.
+ */
+public class ActivityDeduplicator {
+    
+    // Containment only counts for names longer than five characters
+    private static final int GRAM_LENGTH = 6;
+    private static final long HASH_MULTIPLIER = 65599;
+    
+    private static final double EARTH_RADIUS_KM = 6371;
+    private static final double PROXIMITY_KM = 0.1;
+    
+    // Slightly larger than PROXIMITY_KM so rounding never pushes a close pair two cells apart
+    private static final double CELL_SIZE_KM = 0.11;
+    private static final int CELL_BITS = 21;
+    private static final long CELL_OFFSET = 1L << (CELL_BITS - 1);
+    
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<String, List<Entry>> byName = new HashMap<>();
+    private final Map<Long, List<Entry>> byNameGram = new HashMap<>();
+    private final Map<Long, List<Entry>> byNameHash = new HashMap<>();
+    private final Map<Long, List<Entry>> byCell = new HashMap<>();
+    
+    private int removedCount;
+    
+    /**
+     * Offer a candidate with its recommendation score. It is dropped if it duplicates a kept
+     * activity with an equal or higher rating, and replaces that activity if it is rated higher.
+     */
+    public void add(Activity activity, double score) {
+        Entry candidate = new Entry(activity, score);
+        Entry existing = findFirstSimilar(candidate);
+        
+        if (existing != null) {
+            removedCount++;
+            if (activity.getRating() != null && existing.activity.getRating() != null &&
+                activity.getRating() > existing.activity.getRating()) {
+                existing.kept = false;
+                keep(candidate);
+            }
+            return;
+        }
+        
+        keep(candidate);
+    }
+    
+    /**
+     * Kept activities, in the order they were kept
+     */
+    public List<Activity> getUniqueActivities() {
+        List<Activity> uniqueActivities = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            if (entry.kept) {
+                uniqueActivities.add(entry.activity);
+            }
+        }
+        return uniqueActivities;
+    }
+    
+    /**
+     * Visit kept activities and their scores, in the order they were kept
+     */
+    public void forEachUnique(ObjDoubleConsumer<Activity> consumer) {
+        for (Entry entry : entries) {
+            if (entry.kept) {
+                consumer.accept(entry.activity, entry.score);
+            }
+        }
+    }
+    
+    public int getRemovedCount() {
+        return removedCount;
+    }
+    
+    private void keep(Entry entry) {
+        entry.position = entries.size();
+        entries.add(entry);
+        
+        byName.computeIfAbsent(entry.name, k -> new ArrayList<>(1)).add(entry);
+        
+        if (entry.name.length() >= GRAM_LENGTH) {
+            index(byNameHash, hash(entry.name, 0, entry.name.length()), entry);
+            for (int i = 0; i + GRAM_LENGTH <= entry.name.length(); i++) {
+                index(byNameGram, hash(entry.name, i, i + GRAM_LENGTH), entry);
+            }
+        }
+        
+        if (entry.hasLocation) {
+            index(byCell, cellKey(entry.cellX, entry.cellY, entry.cellZ), entry);
+        }
+    }
+    
+    /**
+     * Find the earliest kept activity similar to the candidate, or null if there is none
+     */
+    private Entry findFirstSimilar(Entry candidate) {
+        Entry first = firstSimilar(byName.get(candidate.name), candidate, null);
+        
+        if (candidate.name.length() >= GRAM_LENGTH) {
+            // Kept names containing the candidate contain every one of its fragments,
+            // so the rarest fragment gives the shortest list to check
+            first = firstSimilar(rarestGramBucket(candidate.name), candidate, first);
+            
+            // Kept names contained in the candidate hash like one of its substrings
+            String name = candidate.name;
+            for (int start = 0; start + GRAM_LENGTH <= name.length(); start++) {
+                long hash = 0;
+                for (int end = start; end < name.length(); end++) {
+                    hash = hash * HASH_MULTIPLIER + name.charAt(end);
+                    if (end - start + 1 >= GRAM_LENGTH) {
+                        first = firstSimilar(byNameHash.get(hash), candidate, first);
+                    }
+                }
+            }
+        }
+        
+        if (candidate.hasLocation) {
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dz = -1; dz <= 1; dz++) {
+                        long key = cellKey(candidate.cellX + dx, candidate.cellY + dy, candidate.cellZ + dz);
+                        first = firstSimilar(byCell.get(key), candidate, first);
+                    }
+                }
+            }
+        }
+        
+        return first;
+    }
+    
+    private Entry firstSimilar(List<Entry> bucket, Entry candidate, Entry first) {
+        if (bucket == null) {
+            return first;
+        }
+        for (Entry entry : bucket) {
+            if (entry.kept && (first == null || entry.position < first.position) && isSimilar(candidate, entry)) {
+                first = entry;
+            }
+        }
+        return first;
+    }
+    
+    /**
+     * Check if two activities are similar (likely duplicates)
+     */
+    private boolean isSimilar(Entry e1, Entry e2) {
+        String name1 = e1.name;
+        String name2 = e2.name;
+        
+        if (name1.equals(name2)) {
+            return true;
+        }
+        
+        // Check if names are very similar (simple approach)
+        if (name1.length() > 5 && name2.length() > 5) {
+            String shorter = name1.length() < name2.length() ? name1 : name2;
+            String longer = name1.length() >= name2.length() ? name1 : name2;
+            
+            if (longer.contains(shorter)) {
+                return true;
+            }
+        }
+        
+        // If within 100 meters and similar names, likely duplicate
+        if (e1.hasLocation && e2.hasLocation) {
+            double distance = calculateDistance(e1.latitude, e1.longitude, e2.latitude, e2.longitude);
+            return distance < PROXIMITY_KM && (name1.contains(e2.firstWord) || name2.contains(e1.firstWord));
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Calculate distance between two coordinates in kilometers
+     */
+    private static double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        
+        return EARTH_RADIUS_KM * c;
+    }
+    
+    private static void index(Map<Long, List<Entry>> index, long key, Entry entry) {
+        List<Entry> bucket = index.computeIfAbsent(key, k -> new ArrayList<>(1));
+        // A fragment repeated within one name only needs one posting
+        if (bucket.isEmpty() || bucket.get(bucket.size() - 1) != entry) {
+            bucket.add(entry);
+        }
+    }
+    
+    private List<Entry> rarestGramBucket(String name) {
+        List<Entry> rarest = null;
+        for (int i = 0; i + GRAM_LENGTH <= name.length(); i++) {
+            List<Entry> bucket = byNameGram.get(hash(name, i, i + GRAM_LENGTH));
+            if (bucket == null) {
+                return null;
+            }
+            if (rarest == null || bucket.size() < rarest.size()) {
+                rarest = bucket;
+            }
+        }
+        return rarest;
+    }
+    
+    private static long hash(String name, int start, int end) {
+        long hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = hash * HASH_MULTIPLIER + name.charAt(i);
+        }
+        return hash;
+    }
+    
+    private static long cellKey(long x, long y, long z) {
+        long mask = (1L << CELL_BITS) - 1;
+        return (((x + CELL_OFFSET) & mask) << (2 * CELL_BITS))
+                | (((y + CELL_OFFSET) & mask) << CELL_BITS)
+                | ((z + CELL_OFFSET) & mask);
+    }
+    
+    private static final class Entry {
+        final Activity activity;
+        final double score;
+        final String name;
+        final String firstWord;
+        final boolean hasLocation;
+        double latitude;
+        double longitude;
+        long cellX;
+        long cellY;
+        long cellZ;
+        int position;
+        boolean kept = true;
+        
+        Entry(Activity activity, double score) {
+            this.activity = activity;
+            this.score = score;
+            this.name = activity.getName().toLowerCase().trim();
+            this.firstWord = name.split(" ")[0];
+            this.hasLocation = activity.getLocation() != null &&
+                    activity.getLocation().getLatitude() != null && activity.getLocation().getLongitude() != null;
+            
+            if (hasLocation) {
+                latitude = activity.getLocation().getLatitude();
+                longitude = activity.getLocation().getLongitude();
+                
+                // Grid on the sphere's 3D coordinates: chord length never exceeds arc length,
+                // so any pair closer than PROXIMITY_KM sits in neighbouring cells, even near the poles
+                double lat = Math.toRadians(latitude);
+                double lon = Math.toRadians(longitude);
+                cellX = (long) Math.floor(EARTH_RADIUS_KM * Math.cos(lat) * Math.cos(lon) / CELL_SIZE_KM);
+                cellY = (long) Math.floor(EARTH_RADIUS_KM * Math.cos(lat) * Math.sin(lon) / CELL_SIZE_KM);
+                cellZ = (long) Math.floor(EARTH_RADIUS_KM * Math.sin(lat) / CELL_SIZE_KM);
+            }
+        }
+    }
+}
\ No newline at end of file
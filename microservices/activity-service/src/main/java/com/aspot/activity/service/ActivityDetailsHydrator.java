@@ -0,0 +1,380 @@
+package com.aspot.activity.service;
+
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.model.ActivityIds;
+import com.aspot.activity.repository.ActivityRepository;
+import com.aspot.activity.service.external.GooglePlacesService;
+import com.aspot.activity.service.external.PlaceDetails;
+import com.aspot.activity.service.external.PlacesQuotaExceededException;
+import com.aspot.activity.service.external.PlacesQuotaGovernor;
+import com.aspot.activity.service.external.QuotaPriority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fills in image, website and phone number for Google Places activities that users actually see.
+ * <p>
+ * Nearby search does not return these fields and a Place Details call per place would make list
+ * endpoints slow and expensive, so only activities returned as recommendations or scheduled into
+ * itineraries are queued. A single background thread takes the queue in batches, calls Place
+ * Details under hydration quota and writes the filled-in activities back through the indexer.
+ * Recommendations are queued as they were returned, since candidate pools are not indexed; only
+ * scheduled activities, known by id alone, are loaded from the index. Ids the index does not have
+ * yet, because they are still queued for indexing or waiting for a refresh, are looked up again on
+ * later flushes. Queued ids are deduplicated, and places tried recently are not queued again
+ * whether or not Google had details for them.
+ */
+@Component
+@Slf4j
+public class ActivityDetailsHydrator {
+    
+    private final ActivityRepository activityRepository;
+    private final GooglePlacesService googlePlacesService;
+    private final PlacesQuotaGovernor quotaGovernor;
+    private final ActivityIndexer activityIndexer;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxPending;
+    private final boolean resolvePhotos;
+    private final int photoMaxWidth;
+    private final long quotaBackoffMs;
+    private final int lookupAttempts;
+    
+    // Queued activities by id, null for those only known by id
+    private final Map<String, Activity> pending = new LinkedHashMap<>();
+    // Ids the index did not have yet, with the number of lookups so far
+    private final Map<String, Integer> notYetIndexed = new LinkedHashMap<>();
+    private final Map<String, Boolean> recentlyTried;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("activity-hydration-"));
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private volatile long pausedUntil;
+    
+    private final Counter hydrated;
+    private final Counter notFound;
+    private final Counter failed;
+    private final Counter dropped;
+    
+    public ActivityDetailsHydrator(ActivityRepository activityRepository,
+                                   GooglePlacesService googlePlacesService,
+                                   PlacesQuotaGovernor quotaGovernor,
+                                   ActivityIndexer activityIndexer,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${activity.hydration.enabled:true}") boolean enabled,
+                                   @Value("${activity.hydration.batch-size:50}") int batchSize,
+                                   @Value("${activity.hydration.max-pending:5000}") int maxPending,
+                                   @Value("${activity.hydration.recently-tried-size:50000}") int recentlyTriedSize,
+                                   @Value("${activity.hydration.resolve-photos:true}") boolean resolvePhotos,
+                                   @Value("${activity.hydration.photo-max-width:800}") int photoMaxWidth,
+                                   @Value("${activity.hydration.quota-backoff-ms:60000}") long quotaBackoffMs,
+                                   @Value("${activity.hydration.lookup-attempts:3}") int lookupAttempts) {
+        this.activityRepository = activityRepository;
+        this.googlePlacesService = googlePlacesService;
+        this.quotaGovernor = quotaGovernor;
+        this.activityIndexer = activityIndexer;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+        this.resolvePhotos = resolvePhotos;
+        this.photoMaxWidth = photoMaxWidth;
+        this.quotaBackoffMs = quotaBackoffMs;
+        this.lookupAttempts = lookupAttempts;
+        this.recentlyTried = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > recentlyTriedSize;
+            }
+        };
+        
+        this.hydrated = meterRegistry.counter("activity.hydration.places", "outcome", "hydrated");
+        this.notFound = meterRegistry.counter("activity.hydration.places", "outcome", "not_found");
+        this.failed = meterRegistry.counter("activity.hydration.places", "outcome", "failed");
+        this.dropped = meterRegistry.counter("activity.hydration.places", "outcome", "dropped");
+        meterRegistry.gauge("activity.hydration.pending", this, ActivityDetailsHydrator::pendingCount);
+    }
+    
+    /**
+     * Queue the Google Places activities among these that have no details yet. Copies are hydrated
+     * and indexed as they are, without reloading them from the index.
+     */
+    public void request(Collection<Activity> activities) {
+        if (!enabled || activities == null) {
+            return;
+        }
+        
+        int queued;
+        synchronized (pending) {
+            for (Activity activity : activities) {
+                if (lacksDetails(activity) && mayQueue(activity.getId())) {
+                    // Callers keep serving their own instances while this one is filled in
+                    pending.put(activity.getId(), copyOf(activity));
+                }
+            }
+            queued = pending.size();
+        }
+        
+        if (queued >= batchSize) {
+            scheduleDrain();
+        }
+    }
+    
+    /**
+     * Queue Google Places activities by id; they are loaded from the index, and whether they still
+     * need details is checked, when the batch runs
+     */
+    public void requestIds(Collection<String> ids) {
+        if (!enabled || ids == null) {
+            return;
+        }
+        
+        int queued;
+        synchronized (pending) {
+            for (String id : ids) {
+                if (id != null && id.startsWith(ActivityIds.GOOGLE_PREFIX) && !pending.containsKey(id) && mayQueue(id)) {
+                    pending.put(id, null);
+                }
+            }
+            queued = pending.size();
+        }
+        
+        if (queued >= batchSize) {
+            scheduleDrain();
+        }
+    }
+    
+    /**
+     * Hydrate whatever is waiting, so partial batches are not held back, and look up ids the index did not have yet again
+     */
+    @Scheduled(fixedDelayString = "${activity.hydration.flush-interval-ms:5000}")
+    public void flush() {
+        synchronized (pending) {
+            for (String id : notYetIndexed.keySet()) {
+                pending.putIfAbsent(id, null);
+            }
+        }
+        if (pendingCount() > 0) {
+            scheduleDrain();
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        worker.shutdownNow();
+        worker.awaitTermination(10, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * Google Places activities get their details from hydration; other sources fill them when fetched
+     */
+    static boolean lacksDetails(Activity activity) {
+        return activity.getId() != null && activity.getId().startsWith(ActivityIds.GOOGLE_PREFIX)
+                && activity.getImageUrl() == null && activity.getWebsiteUrl() == null && activity.getPhoneNumber() == null;
+    }
+    
+    /**
+     * Whether an id not tried recently fits in the queue, counting it as dropped when it does not
+     */
+    private boolean mayQueue(String id) {
+        if (recentlyTried.containsKey(id)) {
+            return false;
+        }
+        if (!pending.containsKey(id) && pending.size() >= maxPending) {
+            dropped.increment();
+            return false;
+        }
+        return true;
+    }
+    
+    private int pendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+    
+    private void scheduleDrain() {
+        if (System.currentTimeMillis() < pausedUntil) {
+            return;
+        }
+        if (drainScheduled.compareAndSet(false, true)) {
+            try {
+                worker.execute(this::drain);
+            } catch (Exception e) {
+                drainScheduled.set(false);
+                log.warn("Could not schedule activity hydration: {}", e.getMessage());
+            }
+        }
+    }
+    
+    private void drain() {
+        try {
+            Map<String, Activity> batch;
+            while (!(batch = takeBatch()).isEmpty()) {
+                if (!hydrateBatch(batch)) {
+                    break;
+                }
+            }
+        } finally {
+            drainScheduled.set(false);
+        }
+    }
+    
+    private Map<String, Activity> takeBatch() {
+        synchronized (pending) {
+            Map<String, Activity> batch = new LinkedHashMap<>();
+            Iterator<Map.Entry<String, Activity>> entries = pending.entrySet().iterator();
+            while (entries.hasNext() && batch.size() < batchSize) {
+                Map.Entry<String, Activity> entry = entries.next();
+                entries.remove();
+                batch.put(entry.getKey(), entry.getValue());
+            }
+            return batch;
+        }
+    }
+    
+    /**
+     * Hydrate one batch and write it back
+     *
+     * @return false if the hydration quota ran out, leaving the rest of the queue for later
+     */
+    private boolean hydrateBatch(Map<String, Activity> batch) {
+        List<Activity> activities = load(batch);
+        
+        List<Activity> updated = new ArrayList<>();
+        boolean quotaLeft = true;
+        for (Activity activity : activities) {
+            if (!quotaLeft) {
+                forget(activity);
+                continue;
+            }
+            synchronized (pending) {
+                recentlyTried.put(activity.getId(), Boolean.TRUE);
+                notYetIndexed.remove(activity.getId());
+            }
+            if (!lacksDetails(activity)) {
+                continue;
+            }
+            try {
+                if (quotaGovernor.callWithPriority(QuotaPriority.HYDRATION, () -> hydrate(activity))) {
+                    updated.add(activity);
+                    hydrated.increment();
+                } else {
+                    notFound.increment();
+                }
+            } catch (PlacesQuotaExceededException e) {
+                // Try these again once quota frees up
+                quotaLeft = false;
+                pausedUntil = System.currentTimeMillis() + quotaBackoffMs;
+                forget(activity);
+            } catch (Exception e) {
+                failed.increment();
+                log.debug("Could not hydrate activity {}: {}", activity.getId(), e.getMessage());
+            }
+        }
+        
+        if (!updated.isEmpty()) {
+            activityIndexer.index(updated);
+        }
+        log.debug("Hydrated {} of {} queued activities", updated.size(), batch.size());
+        return quotaLeft;
+    }
+    
+    /**
+     * The batch's activities, loading those queued by id. Ids the index does not have yet are kept
+     * for a later flush, up to the configured number of lookups.
+     */
+    private List<Activity> load(Map<String, Activity> batch) {
+        List<Activity> activities = new ArrayList<>(batch.size());
+        List<String> ids = new ArrayList<>();
+        batch.forEach((id, activity) -> {
+            if (activity != null) {
+                activities.add(activity);
+            } else {
+                ids.add(id);
+            }
+        });
+        if (ids.isEmpty()) {
+            return activities;
+        }
+        
+        List<Activity> loaded;
+        try {
+            loaded = activityRepository.findAllByIdOnAnyShard(ids);
+        } catch (Exception e) {
+            failed.increment(ids.size());
+            log.warn("Could not load {} activities for hydration: {}", ids.size(), e.getMessage());
+            return activities;
+        }
+        activities.addAll(loaded);
+        
+        Set<String> missing = new LinkedHashSet<>(ids);
+        loaded.forEach(activity -> missing.remove(activity.getId()));
+        synchronized (pending) {
+            loaded.forEach(activity -> notYetIndexed.remove(activity.getId()));
+            for (String id : missing) {
+                int attempts = notYetIndexed.getOrDefault(id, 0) + 1;
+                if (attempts < lookupAttempts && notYetIndexed.size() < maxPending) {
+                    notYetIndexed.put(id, attempts);
+                } else {
+                    notYetIndexed.remove(id);
+                    notFound.increment();
+                }
+            }
+        }
+        return activities;
+    }
+    
+    /**
+     * Fill in the activity's details, returning whether Google had any
+     */
+    private boolean hydrate(Activity activity) {
+        String placeId = activity.getId().substring(ActivityIds.GOOGLE_PREFIX.length());
+        PlaceDetails details = googlePlacesService.fetchPlaceDetails(placeId);
+        if (details == null || !details.isFound()) {
+            return false;
+        }
+        
+        activity.setWebsiteUrl(details.website());
+        activity.setPhoneNumber(details.phoneNumber());
+        if (resolvePhotos && details.photoReference() != null) {
+            try {
+                activity.setImageUrl(googlePlacesService.resolvePhotoUrl(details.photoReference(), photoMaxWidth));
+            } catch (PlacesQuotaExceededException e) {
+                // Keep the contact details; the photo is left for a later pass
+                log.debug("No quota left to resolve the photo of {}", activity.getId());
+            }
+        }
+        return activity.getWebsiteUrl() != null || activity.getPhoneNumber() != null || activity.getImageUrl() != null;
+    }
+    
+    private void forget(Activity activity) {
+        synchronized (pending) {
+            recentlyTried.remove(activity.getId());
+            pending.putIfAbsent(activity.getId(), activity);
+        }
+    }
+    
+    private static Activity copyOf(Activity activity) {
+        return new Activity(activity.getId(), activity.getName(), activity.getDescription(), activity.getDestination(),
+                activity.getDestinationKey(), activity.getRating(), activity.getReviewCount(), activity.getPriceRange(),
+                activity.getCategory(), activity.getLocation(), activity.getTags(), activity.getIsPopular(),
+                activity.getImageUrl(), activity.getWebsiteUrl(), activity.getPhoneNumber());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,72 @@
+package com.aspot.activity.service;
+
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.repository.ActivityRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Whole-destination activity dumps as newline-delimited JSON, one activity per line.
+ * <p>
+ * Activities are read page by page from a point-in-time view of the index and each page is
+ * written and flushed to the client before the next one is fetched, so memory stays at one page
+ * however large the destination is. A client that stops reading stops the export.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ActivityExporter {
+    
+    private static final int NEWLINE = '\n';
+    
+    private final ActivityRepository activityRepository;
+    private final ObjectMapper objectMapper;
+    
+    @Value("${activity.export.page-size:1000}")
+    private int pageSize;
+    
+    @Value("${activity.export.keep-alive-ms:60000}")
+    private long keepAliveMs;
+    
+    /**
+     * Write every activity for a destination to the stream
+     *
+     * @return the number of activities written
+     */
+    public long export(String destination, OutputStream outputStream) throws IOException {
+        long started = System.currentTimeMillis();
+        OutputStream out = new BufferedOutputStream(outputStream, 64 * 1024);
+        try {
+            long exported = activityRepository.forEachPageByDestination(destination, pageSize,
+                    Duration.ofMillis(keepAliveMs), page -> writePage(page, out));
+            out.flush();
+            log.info("Exported {} activities for {} in {}ms", exported, destination, System.currentTimeMillis() - started);
+            return exported;
+        } catch (UncheckedIOException e) {
+            log.info("Export for {} stopped, client went away: {}", destination, e.getCause().getMessage());
+            throw e.getCause();
+        }
+    }
+    
+    private void writePage(List<Activity> page, OutputStream out) {
+        try {
+            for (Activity activity : page) {
+                out.write(objectMapper.writeValueAsBytes(activity));
+                out.write(NEWLINE);
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
\ No newline at end of file
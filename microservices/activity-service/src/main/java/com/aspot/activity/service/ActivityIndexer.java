@@ -0,0 +1,262 @@
+package com.aspot.activity.service;
+
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.repository.ActivityRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Asynchronous bulk indexing of activities into Elasticsearch.
+ * <p>
+ * Callers enqueue activities and return immediately. A single writer thread drains the queue
+ * in batches, either once a full batch is waiting or on the flush interval, and collapses
+ * repeated ids within a batch. Activity ids are deterministic, so re-indexing the same places
+ * overwrites their documents instead of adding new ones.
+ */
+@Component
+@Slf4j
+public class ActivityIndexer {
+    
+    private final ActivityRepository activityRepository;
+    private final SuggestionService suggestionService;
+    private final PopularityLeaderboard popularityLeaderboard;
+    private final ActivityReindexer activityReindexer;
+    private final DestinationCanonicalizer destinationCanonicalizer;
+    private final BlockingQueue<Activity> queue;
+    private final int batchSize;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("activity-indexer-"));
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    
+    private final Counter indexedDocuments;
+    private final Counter failedDocuments;
+    private final Counter droppedDocuments;
+    private final Counter succeededBatches;
+    private final Counter failedBatches;
+    
+    public ActivityIndexer(ActivityRepository activityRepository,
+                           SuggestionService suggestionService,
+                           PopularityLeaderboard popularityLeaderboard,
+                           ActivityReindexer activityReindexer,
+                           DestinationCanonicalizer destinationCanonicalizer,
+                           MeterRegistry meterRegistry,
+                           @Value("${activity.indexing.batch-size:500}") int batchSize,
+                           @Value("${activity.indexing.queue-capacity:10000}") int queueCapacity) {
+        this.activityRepository = activityRepository;
+        this.suggestionService = suggestionService;
+        this.popularityLeaderboard = popularityLeaderboard;
+        this.activityReindexer = activityReindexer;
+        this.destinationCanonicalizer = destinationCanonicalizer;
+        this.batchSize = batchSize;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        
+        this.indexedDocuments = meterRegistry.counter("activity.indexing.documents", "outcome", "indexed");
+        this.failedDocuments = meterRegistry.counter("activity.indexing.documents", "outcome", "failed");
+        this.droppedDocuments = meterRegistry.counter("activity.indexing.documents", "outcome", "dropped");
+        this.succeededBatches = meterRegistry.counter("activity.indexing.batches", "outcome", "success");
+        this.failedBatches = meterRegistry.counter("activity.indexing.batches", "outcome", "failure");
+        meterRegistry.gauge("activity.indexing.queue.size", queue, BlockingQueue::size);
+    }
+    
+    /**
+     * Queue activities for indexing. Activities that do not fit in the queue are dropped and counted.
+     */
+    public void index(Collection<Activity> activities) {
+        int dropped = 0;
+        for (Activity activity : activities) {
+            if (!queue.offer(activity)) {
+                dropped++;
+            }
+        }
+        
+        if (dropped > 0) {
+            droppedDocuments.increment(dropped);
+            log.warn("Indexing queue full, dropped {} of {} activities", dropped, activities.size());
+        }
+        
+        if (queue.size() >= batchSize) {
+            scheduleDrain();
+        }
+    }
+    
+    /**
+     * Write whatever is waiting, so partial batches never sit longer than the flush interval
+     */
+    @Scheduled(fixedDelayString = "${activity.indexing.flush-interval-ms:2000}")
+    public void flush() {
+        if (!queue.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(10, TimeUnit.SECONDS);
+        drain();
+    }
+    
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            try {
+                writer.execute(this::drainAndReschedule);
+            } catch (Exception e) {
+                drainScheduled.set(false);
+                log.warn("Could not schedule activity indexing: {}", e.getMessage());
+            }
+        }
+    }
+    
+    private void drainAndReschedule() {
+        try {
+            drain();
+        } finally {
+            drainScheduled.set(false);
+        }
+        if (queue.size() >= batchSize) {
+            scheduleDrain();
+        }
+    }
+    
+    private void drain() {
+        List<Activity> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+    
+    private void writeBatch(List<Activity> batch) {
+        // Later copies of the same activity win; activities without an id get one from Elasticsearch
+        Map<String, Activity> byId = new LinkedHashMap<>();
+        List<Activity> documents = new ArrayList<>(batch.size());
+        for (Activity activity : batch) {
+            if (activity.getId() == null) {
+                documents.add(activity);
+            } else {
+                byId.put(activity.getId(), activity);
+            }
+        }
+        documents.addAll(byId.values());
+        List<Activity> moved = carryOverDetails(documents);
+        
+        try {
+            activityRepository.saveAll(documents);
+            deleteStaleCopies(moved);
+            onIndexed(documents);
+            indexedDocuments.increment(documents.size());
+            succeededBatches.increment();
+            log.debug("Indexed batch of {} activities", documents.size());
+        } catch (BulkFailureException e) {
+            Map<String, BulkFailureException.FailureDetails> failures = e.getFailedDocuments();
+            onIndexed(documents.stream()
+                    .filter(activity -> !failures.containsKey(activity.getId()))
+                    .toList());
+            indexedDocuments.increment(documents.size() - failures.size());
+            failedDocuments.increment(failures.size());
+            failedBatches.increment();
+            log.warn("Indexed batch of {} activities with {} failures, first: {}",
+                    documents.size(), failures.size(), failures.entrySet().stream().limit(3).toList());
+        } catch (Exception e) {
+            failedDocuments.increment(documents.size());
+            failedBatches.increment();
+            log.warn("Failed to index batch of {} activities: {}", documents.size(), e.getMessage());
+        }
+    }
+    
+    /**
+     * Keep details added by hydration when a provider re-fetches the same place without them
+     *
+     * @return the documents whose id was found indexed under another destination
+     */
+    private List<Activity> carryOverDetails(List<Activity> documents) {
+        // Read in real time from each destination's shard, so details hydrated moments ago are not lost
+        Map<String, List<String>> idsByDestination = new HashMap<>();
+        for (Activity document : documents) {
+            if (document.getId() != null && ActivityDetailsHydrator.lacksDetails(document)) {
+                idsByDestination.computeIfAbsent(document.getDestination(), destination -> new ArrayList<>()).add(document.getId());
+            }
+        }
+        if (idsByDestination.isEmpty()) {
+            return List.of();
+        }
+        
+        List<Activity> moved = new ArrayList<>();
+        try {
+            Map<String, Activity> existing = new HashMap<>();
+            for (Map.Entry<String, List<String>> entry : idsByDestination.entrySet()) {
+                for (Activity activity : activityRepository.findAllByIdInDestination(entry.getValue(), entry.getKey())) {
+                    existing.put(activity.getId(), activity);
+                }
+            }
+            for (Activity document : documents) {
+                Activity indexed = existing.get(document.getId());
+                if (indexed == null) {
+                    continue;
+                }
+                if (!Objects.equals(indexed.getDestinationKey(), document.getDestinationKey())) {
+                    moved.add(document);
+                }
+                if (ActivityDetailsHydrator.lacksDetails(document)) {
+                    document.setImageUrl(indexed.getImageUrl());
+                    document.setWebsiteUrl(indexed.getWebsiteUrl());
+                    document.setPhoneNumber(indexed.getPhoneNumber());
+                }
+            }
+        } catch (Exception e) {
+            log.debug("Could not look up hydrated details for {} destinations: {}", idsByDestination.size(), e.getMessage());
+        }
+        return moved;
+    }
+    
+    /**
+     * Delete the copies of moved documents left under their old destination, so each id keeps one
+     * document. Only paid for batches where the details lookup found such a copy.
+     */
+    private void deleteStaleCopies(List<Activity> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        try {
+            long deleted = activityRepository.deleteStaleCopies(documents);
+            if (deleted > 0) {
+                log.info("Deleted {} copies of indexed activities under other destinations", deleted);
+            }
+        } catch (Exception e) {
+            log.warn("Could not delete stale copies of {} activities: {}", documents.size(), e.getMessage());
+        }
+    }
+    
+    /**
+     * Keep a running reindex, the in-memory suggestions and the popularity leaderboards in step with the index,
+     * and register destinations that now have activities.
+     * Cached query pages are left alone: provider results are flushed here on every search miss, and their TTL
+     * already bounds how long a page can miss them.
+     */
+    private void onIndexed(List<Activity> documents) {
+        activityReindexer.mirrorIndexed(documents);
+        suggestionService.addActivities(documents);
+        popularityLeaderboard.recordIndexed(documents);
+        destinationCanonicalizer.registerIndexed(documents);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,256 @@
+package com.aspot.activity.service;
+
+import com.aspot.activity.cache.QueryResultCache;
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.model.ReindexStatus;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.SearchHitsIterator;
+import org.springframework.data.elasticsearch.core.index.AliasAction;
+import org.springframework.data.elasticsearch.core.index.AliasActionParameters;
+import org.springframework.data.elasticsearch.core.index.AliasActions;
+import org.springframework.data.elasticsearch.core.index.Settings;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.data.elasticsearch.core.query.Query;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Zero-downtime copy of the activity index into a new, destination-routed index behind the
+ * {@code activities} alias.
+ * <p>
+ * The copy goes to a new timestamped index with the configured shard count. Every document is
+ * routed by its destination key, so destination lookups only search one shard. While the copy
+ * runs, writes and deletes through the alias are mirrored into the new index. Copied documents
+ * are only created, never overwritten, so a newer mirrored write always wins. Once the copy is
+ * done the alias moves to the new index in one atomic request. An index that still carries the
+ * {@code activities} name itself, from before the alias existed, is removed in that same request.
+ * Destinations are canonicalized on the way, so documents stored under other spellings of a
+ * destination end up with the rest of it. Copies of one id that writes from before routing left
+ * on other shards of the same destination now share a shard, so only the first one copied is kept.
+ */
+@Component
+@Slf4j
+public class ActivityReindexer {
+    
+    public static final String ALIAS = "activities";
+    
+    private static final DateTimeFormatter INDEX_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final DestinationCanonicalizer destinationCanonicalizer;
+    private final QueryResultCache queryResultCache;
+    private final int batchSize;
+    private final boolean deleteOldIndices;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("activity-reindex-"));
+    
+    private final AtomicLong copied = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final Set<String> deletedIds = ConcurrentHashMap.newKeySet();
+    private volatile String mirrorIndex;
+    private volatile ReindexStatus status = new ReindexStatus(ReindexStatus.State.IDLE, List.of(), null, 0, 0, 0, null, null, null);
+    
+    public ActivityReindexer(ElasticsearchOperations elasticsearchOperations,
+                             DestinationCanonicalizer destinationCanonicalizer,
+                             QueryResultCache queryResultCache,
+                             @Value("${activity.reindex.batch-size:1000}") int batchSize,
+                             @Value("${activity.reindex.delete-old-indices:true}") boolean deleteOldIndices) {
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.destinationCanonicalizer = destinationCanonicalizer;
+        this.queryResultCache = queryResultCache;
+        this.batchSize = batchSize;
+        this.deleteOldIndices = deleteOldIndices;
+    }
+    
+    /**
+     * Start a reindex into a new index with the given number of shards
+     *
+     * @return the status of the started reindex, or null if one is already running
+     */
+    public synchronized ReindexStatus start(int shards) {
+        if (status.getState() == ReindexStatus.State.RUNNING) {
+            return null;
+        }
+        
+        String targetIndex = ALIAS + "-" + LocalDateTime.now().format(INDEX_SUFFIX);
+        copied.set(0);
+        skipped.set(0);
+        status = new ReindexStatus(ReindexStatus.State.RUNNING, List.of(), targetIndex, shards, 0, 0,
+                System.currentTimeMillis(), null, null);
+        worker.execute(() -> run(targetIndex, shards));
+        return getStatus();
+    }
+    
+    public ReindexStatus getStatus() {
+        ReindexStatus current = status;
+        return new ReindexStatus(current.getState(), current.getSourceIndices(), current.getTargetIndex(),
+                current.getShards(), copied.get(), skipped.get(), current.getStartedAt(), current.getFinishedAt(),
+                current.getError());
+    }
+    
+    /**
+     * Copy documents just written through the alias into the index being built
+     */
+    public void mirrorIndexed(Collection<Activity> activities) {
+        String target = mirrorIndex;
+        if (target == null || activities.isEmpty()) {
+            return;
+        }
+        try {
+            elasticsearchOperations.save(activities, IndexCoordinates.of(target));
+        } catch (Exception e) {
+            log.warn("Failed to mirror {} activities into {}: {}", activities.size(), target, e.getMessage());
+        }
+    }
+    
+    /**
+     * Delete a document just deleted through the alias from the index being built, and keep the copy from restoring it
+     */
+    public void mirrorDeleted(Activity activity) {
+        String target = mirrorIndex;
+        if (target == null) {
+            return;
+        }
+        deletedIds.add(activity.getId());
+        try {
+            elasticsearchOperations.delete(activity, IndexCoordinates.of(target));
+        } catch (Exception e) {
+            log.warn("Failed to mirror delete of activity {} into {}: {}", activity.getId(), target, e.getMessage());
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        worker.shutdownNow();
+        worker.awaitTermination(10, TimeUnit.SECONDS);
+    }
+    
+    private void run(String targetIndex, int shards) {
+        IndexOperations aliasOps = elasticsearchOperations.indexOps(IndexCoordinates.of(ALIAS));
+        IndexOperations targetOps = elasticsearchOperations.indexOps(IndexCoordinates.of(targetIndex));
+        try {
+            // Resolves to the indices behind the alias, or to "activities" itself while it is still a plain index
+            List<String> sourceIndices = List.copyOf(aliasOps.getAliasesForIndex(ALIAS).keySet());
+            boolean plainIndex = sourceIndices.contains(ALIAS);
+            status.setSourceIndices(sourceIndices);
+            
+            Settings settings = targetOps.createSettings(Activity.class);
+            settings.put("index.number_of_shards", shards);
+            targetOps.create(settings, targetOps.createMapping(Activity.class));
+            log.info("Reindexing activities from {} into {} with {} shards", sourceIndices, targetIndex, shards);
+            
+            // Mirror first, then make every earlier write visible to the scroll
+            deletedIds.clear();
+            mirrorIndex = targetIndex;
+            aliasOps.refresh();
+            copy(targetIndex);
+            
+            AliasActions actions = new AliasActions(new AliasAction.Add(
+                    AliasActionParameters.builder().withIndices(targetIndex).withAliases(ALIAS).build()));
+            if (plainIndex) {
+                actions.add(new AliasAction.RemoveIndex(AliasActionParameters.builder().withIndices(ALIAS).build()));
+            } else {
+                actions.add(new AliasAction.Remove(AliasActionParameters.builder()
+                        .withIndices(sourceIndices.toArray(String[]::new)).withAliases(ALIAS).build()));
+            }
+            aliasOps.alias(actions);
+            mirrorIndex = null;
+            queryResultCache.invalidate();
+            
+            if (deleteOldIndices && !plainIndex) {
+                for (String oldIndex : sourceIndices) {
+                    elasticsearchOperations.indexOps(IndexCoordinates.of(oldIndex)).delete();
+                }
+            }
+            
+            finish(ReindexStatus.State.COMPLETED, null);
+            log.info("Reindexed {} activities into {}, skipped {} already written while copying; alias {} now points to it",
+                    copied.get(), targetIndex, skipped.get(), ALIAS);
+        } catch (Exception e) {
+            mirrorIndex = null;
+            finish(ReindexStatus.State.FAILED, e.getMessage());
+            log.error("Reindex into {} failed, {} still serves from the old index: {}", targetIndex, ALIAS, e.getMessage(), e);
+            try {
+                if (targetOps.exists()) {
+                    targetOps.delete();
+                }
+            } catch (Exception cleanup) {
+                log.warn("Could not delete partial index {}: {}", targetIndex, cleanup.getMessage());
+            }
+        } finally {
+            deletedIds.clear();
+        }
+    }
+    
+    private void copy(String targetIndex) {
+        IndexCoordinates target = IndexCoordinates.of(targetIndex);
+        List<IndexQuery> batch = new ArrayList<>(batchSize);
+        try (SearchHitsIterator<Activity> hits = elasticsearchOperations.searchForStream(Query.findAll(), Activity.class,
+                IndexCoordinates.of(ALIAS))) {
+            while (hits.hasNext()) {
+                Activity activity = hits.next().getContent();
+                if (deletedIds.contains(activity.getId())) {
+                    continue;
+                }
+                // Documents indexed under other spellings of a destination join its canonical one
+                if (activity.getDestination() != null) {
+                    activity.setDestination(destinationCanonicalizer.canonicalize(activity.getDestination()));
+                }
+                batch.add(new IndexQueryBuilder()
+                        .withId(activity.getId())
+                        .withObject(activity)
+                        .withRouting(activity.getDestinationKey())
+                        .withOpType(IndexQuery.OpType.CREATE)
+                        .build());
+                if (batch.size() >= batchSize) {
+                    writeBatch(batch, target);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch, target);
+        }
+    }
+    
+    private void writeBatch(List<IndexQuery> batch, IndexCoordinates target) {
+        try {
+            elasticsearchOperations.bulkIndex(batch, target);
+            copied.addAndGet(batch.size());
+        } catch (BulkFailureException e) {
+            // A conflict means a mirrored write got there first and is newer than this copy
+            long conflicts = e.getFailedDocuments().values().stream()
+                    .filter(failure -> failure.status() != null && failure.status() == 409)
+                    .count();
+            if (conflicts < e.getFailedDocuments().size()) {
+                throw e;
+            }
+            copied.addAndGet(batch.size() - conflicts);
+            skipped.addAndGet(conflicts);
+        }
+    }
+    
+    private void finish(ReindexStatus.State state, String error) {
+        ReindexStatus current = status;
+        status = new ReindexStatus(state, current.getSourceIndices(), current.getTargetIndex(), current.getShards(),
+                copied.get(), skipped.get(), current.getStartedAt(), System.currentTimeMillis(), error);
+    }
+}
\ No newline at end of file
@@ -1,9 +1,13 @@
 package com.aspot.activity.service;
 
+import com.aspot.activity.cache.QueryResultCache;
 import com.aspot.activity.model.Activity;
 import com.aspot.activity.model.ActivityCategory;
+import com.aspot.activity.model.DestinationKeys;
+import com.aspot.activity.model.Suggestion;
 import com.aspot.activity.repository.ActivityRepository;
-import com.aspot.activity.service.external.GooglePlacesService;
+import com.aspot.activity.service.external.PlacesQuotaExceededException;
+import com.aspot.activity.snapshot.ActivitySnapshotService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.Cacheable;
@@ -12,8 +16,14 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -21,13 +31,58 @@ import java.util.Optional;
 public class ActivityService {
     
     private final ActivityRepository activityRepository;
-    private final GooglePlacesService googlePlacesService;
+    private final ActivityAggregator activityAggregator;
+    private final ActivityIndexer activityIndexer;
+    private final SuggestionService suggestionService;
+    private final PopularityLeaderboard popularityLeaderboard;
+    private final ActivitySnapshotService activitySnapshotService;
+    private final ActivityReindexer activityReindexer;
+    private final DestinationCanonicalizer destinationCanonicalizer;
+    private final QueryResultCache queryResultCache;
     
     /**
      * Get activity by ID
      */
     public Optional<Activity> getActivityById(String id) {
-        return activityRepository.findById(id);
+        return activityRepository.findAllByIdOnAnyShard(List.of(id)).stream().findFirst();
+    }
+    
+    /**
+     * Get activities for a list of ids with a single lookup, in the order requested.
+     * Repeated ids are looked up once and ids that are not indexed are left out.
+     */
+    public List<Activity> getActivitiesByIds(List<String> ids) {
+        return getActivitiesByIds(ids, null);
+    }
+    
+    /**
+     * Get activities for a list of ids in the order requested. With a destination they are read in
+     * real time from its shard, so activities written since the last refresh are found too.
+     */
+    public List<Activity> getActivitiesByIds(List<String> ids, String destination) {
+        Set<String> uniqueIds = new LinkedHashSet<>(ids);
+        uniqueIds.remove(null);
+        if (uniqueIds.isEmpty()) {
+            return List.of();
+        }
+        
+        Map<String, Activity> found = new HashMap<>();
+        List<Activity> indexed = destination != null
+                ? activityRepository.findAllByIdInDestination(uniqueIds, destination)
+                : activityRepository.findAllByIdOnAnyShard(uniqueIds);
+        for (Activity activity : indexed) {
+            found.put(activity.getId(), activity);
+        }
+        
+        List<Activity> activities = new ArrayList<>(found.size());
+        for (String id : uniqueIds) {
+            Activity activity = found.get(id);
+            if (activity != null) {
+                activities.add(activity);
+            }
+        }
+        log.info("Resolved {} of {} requested activity ids", activities.size(), uniqueIds.size());
+        return activities;
     }
     
     /**
@@ -37,18 +92,18 @@ public class ActivityService {
     public List<Activity> searchActivities(String destination, String category, int limit) {
         log.info("Searching activities for destination: {}, category: {}", destination, category);
         
+        List<Activity> cachedActivities = List.of();
         try {
-            // First check if we have cached activities in Elasticsearch
-            List<Activity> cachedActivities;
+            // First check if we have cached activities in Elasticsearch, on the destination's shard only
             if (category != null && !category.isEmpty()) {
                 try {
                     ActivityCategory activityCategory = ActivityCategory.valueOf(category.toUpperCase());
-                    cachedActivities = activityRepository.findByDestinationIgnoreCaseAndCategory(destination, activityCategory);
+                    cachedActivities = activityRepository.findRoutedByDestination(destination, activityCategory);
                 } catch (IllegalArgumentException e) {
-                    cachedActivities = activityRepository.findByDestinationIgnoreCase(destination);
+                    cachedActivities = activityRepository.findRoutedByDestination(destination, null);
                 }
             } else {
-                cachedActivities = activityRepository.findByDestinationIgnoreCase(destination);
+                cachedActivities = activityRepository.findRoutedByDestination(destination, null);
             }
             
             // If we have enough cached activities, return them
@@ -57,20 +112,32 @@ public class ActivityService {
                 return cachedActivities.subList(0, Math.min(limit, cachedActivities.size()));
             }
         } catch (Exception e) {
+            // Answer from the local snapshot of the index while Elasticsearch is unreachable
+            cachedActivities = activitySnapshotService.findActivities(destination, category, limit);
+            if (cachedActivities.size() >= limit) {
+                log.warn("Elasticsearch query failed, serving {} snapshot activities for {}: {}",
+                        cachedActivities.size(), destination, e.getMessage());
+                return cachedActivities;
+            }
             log.warn("Elasticsearch query failed, falling back to external APIs: {}", e.getMessage());
         }
         
         // Otherwise, fetch from external APIs and cache them
-        List<Activity> freshActivities = googlePlacesService.searchActivities(destination, category, limit);
+        List<Activity> freshActivities;
+        try {
+            freshActivities = activityAggregator.searchActivities(destination, category, limit);
+        } catch (PlacesQuotaExceededException e) {
+            if (cachedActivities.isEmpty()) {
+                throw e;
+            }
+            log.warn("Google Places quota exhausted, serving {} cached activities for {}", cachedActivities.size(), destination);
+            return cachedActivities;
+        }
         
-        // Try to save to Elasticsearch for future queries (but don't fail if it doesn't work)
+        // Queue for bulk indexing into Elasticsearch for future queries
         if (!freshActivities.isEmpty()) {
-            try {
-                activityRepository.saveAll(freshActivities);
-                log.info("Cached {} new activities for {}", freshActivities.size(), destination);
-            } catch (Exception e) {
-                log.warn("Failed to cache activities in Elasticsearch: {}", e.getMessage());
-            }
+            activityIndexer.index(freshActivities);
+            log.info("Queued {} activities for indexing for {}", freshActivities.size(), destination);
         }
         
         return freshActivities;
@@ -92,6 +159,13 @@ public class ActivityService {
         return activities.getContent();
     }
     
+    /**
+     * Autocomplete destinations and activity names from the in-memory suggestion index
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        return suggestionService.suggest(prefix, limit);
+    }
+    
     /**
      * Search activities by text query
      */
@@ -99,40 +173,57 @@ public class ActivityService {
         log.info("Searching activities with query: {}", query);
         
         Pageable pageable = PageRequest.of(page, size);
-        return activityRepository.searchByQuery(query, pageable);
+        return queryResultCache.get(query, page, size, normalized -> activityRepository.searchByQuery(normalized, pageable));
     }
     
     /**
      * Get popular activities for a destination
      */
-    @Cacheable(value = "popular-activities", key = "#destination")
-    public List<Activity> getPopularActivities(String destination, int limit) {
-        log.info("Getting popular activities for: {}", destination);
+    @Cacheable(value = "popular-activities", key = "#destination + '_' + #page + '_' + #limit", sync = true)
+    public List<Activity> getPopularActivities(String destination, int page, int limit) {
+        log.info("Getting popular activities for: {}, page: {}", destination, page);
+        
+        // Once seeded, the leaderboard answers with one ZREVRANGE and one multi-get
+        List<String> leaderIds = popularityLeaderboard.getTopActivityIds(destination, page, limit);
+        if (leaderIds != null && !leaderIds.isEmpty()) {
+            try {
+                // Activities moved to another destination can still be on this one's leaderboard
+                String destinationKey = DestinationKeys.of(destination);
+                List<Activity> leaders = getActivitiesByIds(leaderIds, destination).stream()
+                        .filter(activity -> destinationKey.equals(activity.getDestinationKey()))
+                        .toList();
+                if (!leaders.isEmpty()) {
+                    return leaders;
+                }
+            } catch (Exception e) {
+                log.warn("Elasticsearch lookup failed for popular activities leaderboard: {}", e.getMessage());
+            }
+        }
         
         List<Activity> popularActivities;
         try {
-            popularActivities = activityRepository.findByIsPopularTrueAndDestinationIgnoreCase(destination);
+            popularActivities = activityRepository.findRoutedPopularByDestination(destination);
+            if (!popularActivities.isEmpty()) {
+                popularityLeaderboard.seed(destination, popularActivities);
+            }
         } catch (Exception e) {
-            log.warn("Elasticsearch query failed for popular activities, using external APIs: {}", e.getMessage());
-            popularActivities = List.of();
+            log.warn("Elasticsearch query failed for popular activities, using the snapshot or external APIs: {}", e.getMessage());
+            popularActivities = activitySnapshotService.findPopularActivities(destination, (page + 1) * limit);
         }
         
         if (popularActivities.isEmpty()) {
             // Fetch popular activities from external APIs
-            popularActivities = googlePlacesService.searchActivities(destination, "popular", limit);
+            popularActivities = activityAggregator.searchActivities(destination, "popular", (page + 1) * limit);
             
-            // Mark them as popular and try to save
+            // Mark them as popular and queue them for indexing, which also fills the leaderboard
             popularActivities.forEach(activity -> activity.setIsPopular(true));
             if (!popularActivities.isEmpty()) {
-                try {
-                    activityRepository.saveAll(popularActivities);
-                } catch (Exception e) {
-                    log.warn("Failed to cache popular activities: {}", e.getMessage());
-                }
+                activityIndexer.index(popularActivities);
             }
         }
         
-        return popularActivities.subList(0, Math.min(limit, popularActivities.size()));
+        int from = Math.min(page * limit, popularActivities.size());
+        return popularActivities.subList(from, Math.min(from + limit, popularActivities.size()));
     }
     
     /**
@@ -140,14 +231,51 @@ public class ActivityService {
      */
     public Activity saveActivity(Activity activity) {
         log.info("Saving activity: {}", activity.getName());
-        return activityRepository.save(activity);
+        if (activity.getDestination() != null) {
+            activity.setDestination(destinationCanonicalizer.canonicalize(activity.getDestination()));
+        }
+        List<Activity> staleCopies = findCopiesUnderOtherDestinations(activity);
+        Activity saved = activityRepository.save(activity);
+        if (!staleCopies.isEmpty()) {
+            long deleted = activityRepository.deleteStaleCopies(List.of(saved));
+            log.info("Deleted {} copies of activity {} under other destinations", deleted, saved.getId());
+        }
+        queryResultCache.invalidate();
+        activityReindexer.mirrorIndexed(List.of(saved));
+        suggestionService.addActivities(List.of(saved));
+        popularityLeaderboard.recordIndexed(List.of(saved));
+        destinationCanonicalizer.registerIndexed(List.of(saved));
+        return saved;
     }
     
     /**
-     * Delete an activity
+     * Delete every copy of an activity
+     *
+     * @return false if there was no activity with this id
      */
-    public void deleteActivity(String id) {
+    public boolean deleteActivity(String id) {
         log.info("Deleting activity with id: {}", id);
-        activityRepository.deleteById(id);
+        List<Activity> deleted = activityRepository.deleteAllCopies(id);
+        if (deleted.isEmpty()) {
+            return false;
+        }
+        queryResultCache.invalidate();
+        deleted.forEach(activityReindexer::mirrorDeleted);
+        suggestionService.removeActivity(id);
+        deleted.forEach(popularityLeaderboard::remove);
+        return true;
+    }
+    
+    /**
+     * Copies of an activity indexed under another destination, which an update moving it would leave
+     * behind. An update in place is found with one real-time get on the destination's shard.
+     */
+    private List<Activity> findCopiesUnderOtherDestinations(Activity activity) {
+        if (activity.getId() == null || activity.getDestination() == null) {
+            return List.of();
+        }
+        return activityRepository.findAllByIdInDestination(List.of(activity.getId()), activity.getDestination()).stream()
+                .filter(indexed -> !Objects.equals(indexed.getDestinationKey(), activity.getDestinationKey()))
+                .toList();
     }
 }
\ No newline at end of file
@@ -0,0 +1,176 @@
+package com.aspot.activity.service;
+
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.model.CandidatePool;
+import com.aspot.activity.service.external.GooglePlacesService;
+import com.aspot.activity.service.external.PlacesQuotaGovernor;
+import com.aspot.activity.service.external.QuotaPriority;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * First stage of recommendations: the candidate activities for a destination, independent of
+ * any user's preferences. Pools are cached per destination and refreshed in the background
+ * while the destination keeps being requested.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CandidatePoolService {
+    
+    private static final String CACHE_NAME = "candidate-pools";
+    
+    // One category per Google Places type that interests can resolve to
+    private static final List<String> POOL_CATEGORIES =
+            List.of("sights", "food", "outdoor", "nightlife", "shopping", "culture", "popular");
+    
+    private final GooglePlacesService googlePlacesService;
+    private final ActivityAggregator activityAggregator;
+    private final PlacesQuotaGovernor quotaGovernor;
+    private final CacheManager cacheManager;
+    
+    private final Map<String, Long> lastRequested = new ConcurrentHashMap<>();
+    
+    @Value("${activity.candidate-pool.results-per-category:10}")
+    private int resultsPerCategory;
+    
+    @Value("${activity.candidate-pool.active-window-ms:21600000}")
+    private long activeWindowMs;
+    
+    @Value("${activity.candidate-pool.max-active-destinations:200}")
+    private int maxActiveDestinations;
+    
+    @Value("${activity.recommendations.fetch.deadline-ms:5000}")
+    private long deadlineMs;
+    
+    /**
+     * Get the candidate pool for a destination, building it on a cache miss
+     */
+    public CandidatePool getCandidatePool(String destination) {
+        lastRequested.put(destination, System.currentTimeMillis());
+        
+        CandidatePool pool = readCachedPool(destination);
+        if (pool != null) {
+            return pool;
+        }
+        
+        pool = buildCandidatePool(destination, false);
+        writeCachedPool(pool);
+        return pool;
+    }
+    
+    /**
+     * Rebuild the pool for a destination from fresh Places results, refreshing the per-category caches too
+     */
+    public CandidatePool warmCandidatePool(String destination) {
+        CandidatePool pool = buildCandidatePool(destination, true);
+        writeCachedPool(pool);
+        return pool;
+    }
+    
+    /**
+     * Rebuild pools for destinations requested within the active window, so they never go cold
+     */
+    @Scheduled(fixedDelayString = "${activity.candidate-pool.refresh-interval-ms:1800000}",
+               initialDelayString = "${activity.candidate-pool.refresh-interval-ms:1800000}")
+    public void refreshActivePools() {
+        long cutoff = System.currentTimeMillis() - activeWindowMs;
+        lastRequested.values().removeIf(requestedAt -> requestedAt < cutoff);
+        
+        List<String> destinations = lastRequested.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(maxActiveDestinations)
+                .map(Map.Entry::getKey)
+                .toList();
+        
+        log.info("Refreshing candidate pools for {} active destinations", destinations.size());
+        for (String destination : destinations) {
+            try {
+                // Cached category results would only rebuild the pool from what it already holds
+                writeCachedPool(quotaGovernor.callWithPriority(QuotaPriority.WARMUP, () -> buildCandidatePool(destination, true)));
+            } catch (Exception e) {
+                log.warn("Failed to refresh candidate pool for {}: {}", destination, e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Query every activity provider for every pool category in parallel on the bounded places executor.
+     * Each provider call has its own timeout and the whole fan-out shares one deadline; categories
+     * no provider answered in time are left out and the pool is marked incomplete.
+     */
+    private CandidatePool buildCandidatePool(String destination, boolean bypassCache) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+        
+        Map<String, CompletableFuture<List<Activity>>> futures = new LinkedHashMap<>();
+        for (String category : POOL_CATEGORIES) {
+            futures.put(category, activityAggregator.searchActivitiesAsync(destination, category, resultsPerCategory, bypassCache));
+        }
+        
+        Map<String, List<Activity>> activitiesByType = new LinkedHashMap<>();
+        for (Map.Entry<String, CompletableFuture<List<Activity>>> entry : futures.entrySet()) {
+            String category = entry.getKey();
+            CompletableFuture<List<Activity>> future = entry.getValue();
+            try {
+                long remaining = Math.max(deadline - System.nanoTime(), 0L);
+                activitiesByType.put(googlePlacesService.mapCategoryToGoogleType(category),
+                        future.get(remaining, TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                log.warn("Deadline reached before activities for category {} arrived", category);
+            } catch (ExecutionException e) {
+                log.warn("No provider returned activities for category {}: {}", category, e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.values().forEach(f -> f.cancel(true));
+                break;
+            }
+        }
+        
+        boolean complete = activitiesByType.size() == POOL_CATEGORIES.size();
+        log.info("Built {} candidate pool for {} with {} categories",
+                complete ? "complete" : "partial", destination, activitiesByType.size());
+        return new CandidatePool(destination, activitiesByType, System.currentTimeMillis(), complete);
+    }
+    
+    private CandidatePool readCachedPool(String destination) {
+        try {
+            Cache cache = cacheManager.getCache(CACHE_NAME);
+            return cache != null ? cache.get(destination, CandidatePool.class) : null;
+        } catch (Exception e) {
+            log.warn("Failed to read candidate pool for {} from cache: {}", destination, e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Only complete pools are cached; a partial one is served once and rebuilt on the next request
+     */
+    private void writeCachedPool(CandidatePool pool) {
+        if (!pool.isComplete()) {
+            return;
+        }
+        try {
+            Cache cache = cacheManager.getCache(CACHE_NAME);
+            if (cache != null) {
+                cache.put(pool.getDestination(), pool);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to cache candidate pool for {}: {}", pool.getDestination(), e.getMessage());
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,201 @@
+package com.aspot.activity.service;
+
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.model.DestinationKeys;
+import com.aspot.activity.service.external.GooglePlacesService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One canonical name for every spelling of a destination, so "Paris", "paris " and "Paris, France"
+ * share cache entries, index documents, routing and leaderboards instead of each missing separately.
+ * <p>
+ * A destination is folded (case, accents, punctuation, whitespace) and resolved, in order, through
+ * the configured alias table, a shared Redis registry and, when enabled, geocoding with Google
+ * Places, which names every spelling of a place by the same formatted address. Only names that
+ * resolve are registered: geocoded addresses, and destinations once activities are indexed under
+ * them. Anything else passes through trimmed and is only remembered locally, so mistyped or made-up
+ * destinations never reach the registry. The first instance to register a folded name wins, so
+ * every instance agrees. Without Redis, aliases still apply and other destinations pass through
+ * trimmed; their folded keys still match in the index.
+ */
+@Component
+@Slf4j
+public class DestinationCanonicalizer {
+    
+    private static final String REGISTRY_KEY = "destinations:canonical";
+    
+    private final StringRedisTemplate redisTemplate;
+    private final GooglePlacesService googlePlacesService;
+    private final boolean geocode;
+    private final Map<String, String> aliases = new HashMap<>();
+    private final Map<String, String> resolved;
+    private final Map<String, String> unregistered;
+    
+    private final Counter aliasHits;
+    private final Counter registryHits;
+    private final Counter geocoded;
+    private final Counter registered;
+    
+    public DestinationCanonicalizer(StringRedisTemplate redisTemplate,
+                                    GooglePlacesService googlePlacesService,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${activity.destinations.aliases:}") String aliasTable,
+                                    @Value("${activity.destinations.geocode:false}") boolean geocode,
+                                    @Value("${activity.destinations.cache-size:10000}") int cacheSize) {
+        this.redisTemplate = redisTemplate;
+        this.googlePlacesService = googlePlacesService;
+        this.geocode = geocode;
+        this.resolved = lru(cacheSize);
+        this.unregistered = lru(cacheSize);
+        
+        // "alias=Canonical Name" pairs separated by semicolons; canonical names are aliases of themselves
+        for (String entry : aliasTable.split(";")) {
+            int separator = entry.indexOf('=');
+            if (separator > 0) {
+                String canonical = entry.substring(separator + 1).trim();
+                aliases.put(DestinationKeys.of(entry.substring(0, separator)), canonical);
+                aliases.put(DestinationKeys.of(canonical), canonical);
+            }
+        }
+        
+        this.aliasHits = meterRegistry.counter("activity.destinations.resolved", "source", "alias");
+        this.registryHits = meterRegistry.counter("activity.destinations.resolved", "source", "registry");
+        this.geocoded = meterRegistry.counter("activity.destinations.resolved", "source", "geocode");
+        this.registered = meterRegistry.counter("activity.destinations.resolved", "source", "registered");
+    }
+    
+    /**
+     * The canonical name for a destination, or null for a blank one
+     */
+    public String canonicalize(String destination) {
+        if (destination == null || destination.isBlank()) {
+            return null;
+        }
+        String key = DestinationKeys.of(destination);
+        
+        String alias = aliases.get(key);
+        if (alias != null) {
+            aliasHits.increment();
+            return alias;
+        }
+        
+        synchronized (resolved) {
+            String cached = resolved.get(key);
+            if (cached == null) {
+                cached = unregistered.get(key);
+            }
+            if (cached != null) {
+                return cached;
+            }
+        }
+        
+        String spelling = spelling(destination);
+        String canonical;
+        try {
+            canonical = resolve(key, spelling);
+        } catch (Exception e) {
+            // Not remembered, so the destination is resolved properly once Redis or Places is back
+            log.debug("Could not resolve destination '{}', using it as is: {}", spelling, e.getMessage());
+            return spelling;
+        }
+        synchronized (resolved) {
+            if (canonical != null) {
+                resolved.put(key, canonical);
+            } else {
+                unregistered.put(key, spelling);
+            }
+        }
+        return canonical != null ? canonical : spelling;
+    }
+    
+    /**
+     * Register the destinations of activities just indexed under names that are not registered yet,
+     * so every instance uses the same spelling for them from now on
+     */
+    public void registerIndexed(Collection<Activity> activities) {
+        for (Activity activity : activities) {
+            String destination = activity.getDestination();
+            String key = DestinationKeys.of(destination);
+            if (key == null || key.isEmpty() || aliases.containsKey(key)) {
+                continue;
+            }
+            synchronized (resolved) {
+                if (resolved.containsKey(key)) {
+                    continue;
+                }
+            }
+            try {
+                String canonical = register(key, spelling(destination));
+                synchronized (resolved) {
+                    resolved.put(key, canonical);
+                    unregistered.remove(key);
+                }
+            } catch (Exception e) {
+                log.debug("Could not register destination '{}': {}", destination, e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * The folded key of a destination's canonical name, as stored in destinationKey
+     */
+    public String canonicalKey(String destination) {
+        return DestinationKeys.of(canonicalize(destination));
+    }
+    
+    /**
+     * The registered or geocoded name for a destination, or null if it does not resolve yet
+     */
+    private String resolve(String key, String spelling) {
+        String registeredName = redisTemplate.<String, String>opsForHash().get(REGISTRY_KEY, key);
+        if (registeredName != null) {
+            registryHits.increment();
+            return registeredName;
+        }
+        if (!geocode) {
+            return null;
+        }
+        
+        String address = googlePlacesService.findDestinationAddress(spelling);
+        if (address == null || address.isBlank()) {
+            return null;
+        }
+        // Different spellings of an aliased place geocode to the same address, which may itself be aliased
+        geocoded.increment();
+        return register(key, aliases.getOrDefault(DestinationKeys.of(address), address));
+    }
+    
+    private String register(String key, String canonical) {
+        // Another instance may have registered this destination in the meantime; its name wins
+        if (Boolean.TRUE.equals(redisTemplate.opsForHash().putIfAbsent(REGISTRY_KEY, key, canonical))) {
+            registered.increment();
+            log.info("Registered canonical destination '{}' for '{}'", canonical, key);
+            return canonical;
+        }
+        String winner = redisTemplate.<String, String>opsForHash().get(REGISTRY_KEY, key);
+        return winner != null ? winner : canonical;
+    }
+    
+    private static String spelling(String destination) {
+        return destination.trim().replaceAll("\\s+", " ");
+    }
+    
+    private static Map<String, String> lru(int capacity) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+}
\ No newline at end of file
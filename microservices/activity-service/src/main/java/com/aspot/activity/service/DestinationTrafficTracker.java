@@ -0,0 +1,80 @@
+package com.aspot.activity.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts destinations requested through search and recommendations, so warm-up can learn
+ * which ones are worth keeping hot. Counts are halved on every decay so old traffic fades.
+ * At most max-destinations distinct destinations are tracked; a new one takes the place of
+ * the least requested, so destinations that only become busy after the limit is reached
+ * are still learned.
+ */
+@Component
+public class DestinationTrafficTracker {
+    
+    private final Map<String, AtomicLong> requestCounts = new ConcurrentHashMap<>();
+    
+    @Value("${activity.warmup.max-tracked-destinations:1000}")
+    private int maxTrackedDestinations;
+    
+    public void record(String destination) {
+        if (destination == null || destination.isBlank()) {
+            return;
+        }
+        String key = destination.trim();
+        AtomicLong count = requestCounts.get(key);
+        if (count == null) {
+            synchronized (requestCounts) {
+                count = requestCounts.get(key);
+                if (count == null) {
+                    if (requestCounts.size() >= maxTrackedDestinations) {
+                        evictQuietestDestination();
+                    }
+                    count = new AtomicLong();
+                    requestCounts.put(key, count);
+                }
+            }
+        }
+        count.incrementAndGet();
+    }
+    
+    /**
+     * Most requested destinations, busiest first
+     */
+    public List<String> topDestinations(int limit) {
+        return requestCounts.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().get(), a.getValue().get()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+    
+    /**
+     * Halve every count and forget destinations that drop to zero
+     */
+    public void decay() {
+        requestCounts.values().forEach(count -> count.updateAndGet(c -> c / 2));
+        requestCounts.values().removeIf(count -> count.get() == 0);
+    }
+    
+    private void evictQuietestDestination() {
+        String quietest = null;
+        long lowest = Long.MAX_VALUE;
+        for (Map.Entry<String, AtomicLong> entry : requestCounts.entrySet()) {
+            long count = entry.getValue().get();
+            if (count < lowest) {
+                lowest = count;
+                quietest = entry.getKey();
+            }
+        }
+        if (quietest != null) {
+            requestCounts.remove(quietest);
+        }
+    }
+}
\ No newline at end of file
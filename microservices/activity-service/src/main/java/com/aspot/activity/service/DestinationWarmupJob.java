@@ -0,0 +1,87 @@
+package com.aspot.activity.service;
+
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.model.CandidatePool;
+import com.aspot.activity.service.external.PlacesQuotaGovernor;
+import com.aspot.activity.service.external.QuotaPriority;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps activity data for top destinations warm, so their first users don't wait on Google Places
+ * or an empty index. Destinations come from configuration and, optionally, from recent traffic.
+ * Each run fetches every pool category under warm-up quota, refreshes the caches and candidate
+ * pool, and bulk-indexes the results.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DestinationWarmupJob {
+    
+    private final CandidatePoolService candidatePoolService;
+    private final ActivityIndexer activityIndexer;
+    private final DestinationTrafficTracker trafficTracker;
+    private final PlacesQuotaGovernor quotaGovernor;
+    private final DestinationCanonicalizer destinationCanonicalizer;
+    
+    @Value("${activity.warmup.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${activity.warmup.destinations:}")
+    private List<String> configuredDestinations;
+    
+    @Value("${activity.warmup.learn-from-traffic:true}")
+    private boolean learnFromTraffic;
+    
+    @Value("${activity.warmup.learned-destinations:20}")
+    private int learnedDestinations;
+    
+    @Scheduled(fixedDelayString = "${activity.warmup.refresh-interval-ms:3600000}",
+               initialDelayString = "${activity.warmup.initial-delay-ms:60000}")
+    public void warmDestinations() {
+        if (!enabled) {
+            return;
+        }
+        
+        Set<String> destinations = new LinkedHashSet<>();
+        configuredDestinations.stream()
+                .map(String::trim)
+                .filter(destination -> !destination.isEmpty())
+                .map(destinationCanonicalizer::canonicalize)
+                .forEach(destinations::add);
+        if (learnFromTraffic) {
+            destinations.addAll(trafficTracker.topDestinations(learnedDestinations));
+            trafficTracker.decay();
+        }
+        
+        log.info("Warming activity data for {} destinations", destinations.size());
+        for (String destination : destinations) {
+            warmDestination(destination);
+        }
+    }
+    
+    private void warmDestination(String destination) {
+        try {
+            CandidatePool pool = quotaGovernor.callWithPriority(QuotaPriority.WARMUP,
+                    () -> candidatePoolService.warmCandidatePool(destination));
+            
+            List<Activity> activities = new ArrayList<>();
+            pool.getActivitiesByType().values().forEach(activities::addAll);
+            if (!activities.isEmpty()) {
+                activityIndexer.index(activities);
+            }
+            log.info("Warmed {} activities across {} categories for {}",
+                    activities.size(), pool.getActivitiesByType().size(), destination);
+        } catch (Exception e) {
+            log.warn("Failed to warm activity data for {}: {}", destination, e.getMessage());
+        }
+    }
+}
\ No newline at end of file
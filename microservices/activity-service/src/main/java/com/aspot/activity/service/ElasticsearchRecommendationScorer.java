@@ -0,0 +1,124 @@
+package com.aspot.activity.service;
+
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.json.JsonData;
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.model.DestinationKeys;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Scores a destination's indexed activities on its shard with a script_score query, so only the
+ * best candidates are returned instead of every activity being ranked in the JVM.
+ * <p>
+ * The script is a line-for-line port of PreferenceMatcher.score and takes its parameters from
+ * PreferenceMatcher.toScriptParams; keep the two in step. Elasticsearch keeps scores as floats,
+ * so they match the JVM scores to about seven significant digits.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ElasticsearchRecommendationScorer {
+    
+    // index.max_result_window; deeper pages need search_after
+    static final int MAX_RESULTS = 10000;
+    
+    static final String SCORE_SCRIPT = """
+            double score = 0.0;
+            if (doc['rating'].size() != 0) {
+              score += (doc['rating'].value / 5.0) * 30.0;
+            }
+            if (doc['reviewCount'].size() != 0) {
+              score += Math.min(doc['reviewCount'].value / 100.0, 1.0) * 10.0;
+            }
+            double interest = 0.5;
+            if (params.hasInterests) {
+              interest = 0.0;
+              if (doc['category'].size() != 0 && params.categories.contains(doc['category'].value)) {
+                interest += 0.7;
+              }
+              for (String tag : doc['tags']) {
+                String lowerCaseTag = tag.toLowerCase();
+                for (String i : params.interests) {
+                  if (lowerCaseTag.contains(i) || i.contains(lowerCaseTag)) {
+                    interest += 0.1;
+                  }
+                }
+              }
+              interest = Math.min(interest, 1.0);
+            }
+            score += interest * 40.0;
+            double budget = 0.5;
+            if (doc['priceRange'].size() != 0 && params.hasBudget) {
+              String price = doc['priceRange'].value;
+              int band = 5;
+              if (price == 'Free') {
+                band = 0;
+              } else if (price.length() > 0 && price.length() < 5) {
+                band = price.length();
+                for (int c = 0; c < price.length(); c++) {
+                  if (price.charAt(c) != (char) '$') {
+                    band = 5;
+                    break;
+                  }
+                }
+              }
+              budget = params.budgetWeights[band];
+            }
+            score += budget * 15.0;
+            if (doc['isPopular'].size() != 0 && doc['isPopular'].value) {
+              score += 5.0;
+            }
+            return score;
+            """;
+    
+    private final ElasticsearchOperations elasticsearchOperations;
+    
+    /**
+     * Visit the highest scoring indexed activities for a destination, best first
+     *
+     * @return how many activities were visited
+     */
+    public int forEachTopScored(String destination, PreferenceMatcher matcher, int size,
+                                ObjDoubleConsumer<Activity> consumer) {
+        String destinationKey = DestinationKeys.of(destination);
+        Map<String, JsonData> params = new HashMap<>();
+        matcher.toScriptParams().forEach((name, value) -> params.put(name, JsonData.of(value)));
+        
+        Query query = Query.of(q -> q.scriptScore(scriptScore -> scriptScore
+                .query(inner -> inner.bool(bool -> bool
+                        // Documents indexed before destinationKey existed only match on destination
+                        .should(should -> should.term(term -> term.field("destinationKey").value(destinationKey)))
+                        .should(should -> should.term(term -> term.field("destination").value(destination).caseInsensitive(true)))
+                        .minimumShouldMatch("1")))
+                .script(script -> script.inline(inline -> inline
+                        .lang("painless")
+                        .source(SCORE_SCRIPT)
+                        .params(params)))));
+        
+        NativeQuery searchQuery = NativeQuery.builder()
+                .withQuery(query)
+                .withRoute(destinationKey)
+                .withMaxResults(Math.min(size, MAX_RESULTS))
+                .build();
+        
+        SearchHits<Activity> hits = elasticsearchOperations.search(searchQuery, Activity.class);
+        List<SearchHit<Activity>> results = hits.getSearchHits();
+        for (SearchHit<Activity> hit : results) {
+            consumer.accept(hit.getContent(), hit.getScore());
+        }
+        log.debug("Scored {} of {} indexed activities for {} in Elasticsearch",
+                results.size(), hits.getTotalHits(), destination);
+        return results.size();
+    }
+}
\ No newline at end of file
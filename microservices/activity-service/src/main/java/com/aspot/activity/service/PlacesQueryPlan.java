@@ -0,0 +1,56 @@
+package com.aspot.activity.service;
+
+import com.aspot.activity.model.Activity;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Minimal set of upstream Places queries covering a list of user interests
+ */
+@Getter
+@RequiredArgsConstructor
+public class PlacesQueryPlan {
+    
+    private final List<PlannedQuery> queries;
+    
+    /**
+     * Categories to send upstream, one per planned query
+     */
+    public List<String> getCategories() {
+        return queries.stream()
+                .map(PlannedQuery::getCategory)
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Attribute per-query results back to every interest the query covers
+     */
+    public Map<String, List<Activity>> attribute(Map<String, List<Activity>> resultsByCategory) {
+        Map<String, List<Activity>> resultsByInterest = new LinkedHashMap<>();
+        for (PlannedQuery query : queries) {
+            List<Activity> results = resultsByCategory.getOrDefault(query.getCategory(), List.of());
+            for (String interest : query.getInterests()) {
+                resultsByInterest.put(interest, results);
+            }
+        }
+        return resultsByInterest;
+    }
+    
+    @Getter
+    public static class PlannedQuery {
+        private final String googleType;
+        private final String category;
+        private final List<String> interests = new ArrayList<>();
+        
+        PlannedQuery(String googleType, String category) {
+            this.googleType = googleType;
+            this.category = category;
+        }
+    }
+}
\ No newline at end of file
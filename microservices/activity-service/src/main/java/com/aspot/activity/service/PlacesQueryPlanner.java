@@ -0,0 +1,41 @@
+package com.aspot.activity.service;
+
+import com.aspot.activity.service.external.GooglePlacesService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PlacesQueryPlanner {
+    
+    private final GooglePlacesService googlePlacesService;
+    
+    /**
+     * Resolve user interests to the distinct Google Places queries needed to cover them.
+     * Interests that map to the same Places type share one query, issued with the first
+     * such interest as its category.
+     */
+    public PlacesQueryPlan plan(List<String> interests) {
+        Map<String, PlacesQueryPlan.PlannedQuery> queriesByType = new LinkedHashMap<>();
+        
+        for (String interest : interests) {
+            if (interest == null || interest.isBlank()) {
+                continue;
+            }
+            String googleType = googlePlacesService.mapCategoryToGoogleType(interest);
+            queriesByType.computeIfAbsent(googleType, type -> new PlacesQueryPlan.PlannedQuery(type, interest))
+                    .getInterests().add(interest);
+        }
+        
+        PlacesQueryPlan plan = new PlacesQueryPlan(new ArrayList<>(queriesByType.values()));
+        log.debug("Planned {} Places queries for {} interests", plan.getQueries().size(), interests.size());
+        return plan;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,230 @@
+package com.aspot.activity.service;
+
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.model.DestinationKeys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-destination popularity leaderboards in Redis sorted sets, ranking the activities flagged popular.
+ * <p>
+ * An activity's score is its quality (rating weighted by review count) plus a fixed amount every
+ * time a user schedules it. Indexing updates the quality part in place: the last quality written
+ * is kept in a hash, and a script moves the score by the difference, so scheduling counts are
+ * never lost. Schedules are counted in a hash of their own as well, so activities that become
+ * popular later start with theirs. Reading a page is a single ZREVRANGE.
+ * <p>
+ * A leaderboard only holds what was indexed or scheduled since it was created, so it is not read
+ * until it has been seeded with the destination's popular activities from Elasticsearch.
+ * Failures are logged and otherwise ignored; callers fall back to Elasticsearch.
+ */
+@Component
+@Slf4j
+public class PopularityLeaderboard {
+    
+    // The destination key is the hash tag, so every key a script touches is in one Redis Cluster slot
+    private static final String KEY_PREFIX = "leaderboard:{";
+    private static final String SCORES_SUFFIX = "}:popular";
+    private static final String QUALITY_SUFFIX = "}:quality";
+    private static final String SCHEDULED_SUFFIX = "}:scheduled";
+    private static final String SEEDED_SUFFIX = "}:seeded";
+    
+    // KEYS are scores, qualities and schedule counts; ARGV holds the schedule weight, then id and
+    // quality pairs, where an empty quality takes the activity off the leaderboard
+    private static final String UPDATE_QUALITY_SOURCE = """
+            local weight = tonumber(ARGV[1])
+            for i = 2, #ARGV, 2 do
+              if ARGV[i + 1] == '' then
+                redis.call('ZREM', KEYS[1], ARGV[i])
+                redis.call('HDEL', KEYS[2], ARGV[i])
+              else
+                local previous = redis.call('HGET', KEYS[2], ARGV[i])
+                if previous and redis.call('ZSCORE', KEYS[1], ARGV[i]) then
+                  redis.call('ZINCRBY', KEYS[1], tonumber(ARGV[i + 1]) - tonumber(previous), ARGV[i])
+                else
+                  local scheduled = tonumber(redis.call('HGET', KEYS[3], ARGV[i]) or '0')
+                  redis.call('ZADD', KEYS[1], tonumber(ARGV[i + 1]) + weight * scheduled, ARGV[i])
+                end
+                redis.call('HSET', KEYS[2], ARGV[i], ARGV[i + 1])
+              end
+            end
+            """;
+    
+    private static final RedisScript<Long> UPDATE_QUALITY = new DefaultRedisScript<>(
+            UPDATE_QUALITY_SOURCE + "return (#ARGV - 1) / 2", Long.class);
+    
+    // Same as UPDATE_QUALITY over a fresh leaderboard, then marks it seeded; KEYS[4] is the marker
+    private static final RedisScript<Long> SEED = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[4]) == 1 then
+              return 0
+            end
+            redis.call('DEL', KEYS[1], KEYS[2])
+            """ + UPDATE_QUALITY_SOURCE + """
+            redis.call('SET', KEYS[4], '1')
+            return 1
+            """, Long.class);
+    
+    // ARGV holds the schedule weight, then the ids; only activities already on the leaderboard move
+    private static final RedisScript<Long> RECORD_SCHEDULED = new DefaultRedisScript<>("""
+            for i = 2, #ARGV do
+              redis.call('HINCRBY', KEYS[3], ARGV[i], 1)
+              if redis.call('ZSCORE', KEYS[1], ARGV[i]) then
+                redis.call('ZINCRBY', KEYS[1], tonumber(ARGV[1]), ARGV[i])
+              end
+            end
+            return #ARGV - 1
+            """, Long.class);
+    
+    private static final RedisScript<Long> REMOVE = new DefaultRedisScript<>("""
+            redis.call('ZREM', KEYS[1], ARGV[1])
+            redis.call('HDEL', KEYS[3], ARGV[1])
+            return redis.call('HDEL', KEYS[2], ARGV[1])
+            """, Long.class);
+    
+    private final StringRedisTemplate redisTemplate;
+    private final double scheduleWeight;
+    
+    public PopularityLeaderboard(StringRedisTemplate redisTemplate,
+                                 @Value("${activity.leaderboard.schedule-weight:1.0}") double scheduleWeight) {
+        this.redisTemplate = redisTemplate;
+        this.scheduleWeight = scheduleWeight;
+    }
+    
+    /**
+     * Set the quality part of each popular activity's score and take activities no longer flagged
+     * popular off, one script call per destination
+     */
+    public void recordIndexed(Collection<Activity> activities) {
+        argsByDestination(activities).forEach((destination, args) -> {
+            try {
+                redisTemplate.execute(UPDATE_QUALITY, keys(destination), args.toArray());
+            } catch (Exception e) {
+                log.warn("Failed to update popularity leaderboard for {}: {}", destination, e.getMessage());
+            }
+        });
+    }
+    
+    /**
+     * Fill a destination's leaderboard from its popular activities in Elasticsearch, replacing
+     * whatever it held, and start serving it. Does nothing if it was already seeded.
+     */
+    public void seed(String destination, Collection<Activity> popularActivities) {
+        String key = key(destination);
+        try {
+            if (Boolean.TRUE.equals(redisTemplate.hasKey(seededKey(key)))) {
+                return;
+            }
+        } catch (Exception e) {
+            log.warn("Failed to read popularity leaderboard for {}: {}", destination, e.getMessage());
+            return;
+        }
+        List<String> args = argsByDestination(popularActivities).getOrDefault(key, List.of(Double.toString(scheduleWeight)));
+        List<String> keys = new ArrayList<>(keys(key));
+        keys.add(seededKey(key));
+        try {
+            Long seeded = redisTemplate.execute(SEED, keys, args.toArray());
+            if (seeded != null && seeded == 1) {
+                log.info("Seeded popularity leaderboard for {} with {} activities", destination, (args.size() - 1) / 2);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to seed popularity leaderboard for {}: {}", destination, e.getMessage());
+        }
+    }
+    
+    public void recordScheduled(String destination, Collection<String> activityIds) {
+        if (activityIds.isEmpty()) {
+            return;
+        }
+        List<String> args = new ArrayList<>(activityIds.size() + 1);
+        args.add(Double.toString(scheduleWeight));
+        args.addAll(activityIds);
+        try {
+            redisTemplate.execute(RECORD_SCHEDULED, keys(key(destination)), args.toArray());
+        } catch (Exception e) {
+            log.warn("Failed to record scheduled activities on popularity leaderboard for {}: {}", destination, e.getMessage());
+        }
+    }
+    
+    public void remove(Activity activity) {
+        if (activity.getDestination() == null) {
+            return;
+        }
+        String destination = key(activity.getDestination());
+        try {
+            redisTemplate.execute(REMOVE, keys(destination), activity.getId());
+        } catch (Exception e) {
+            log.warn("Failed to remove activity {} from popularity leaderboard: {}", activity.getId(), e.getMessage());
+        }
+    }
+    
+    /**
+     * One page of activity ids, most popular first; empty when the destination's leaderboard has
+     * not been seeded or the page is past its end, and null when Redis could not be read
+     */
+    public List<String> getTopActivityIds(String destination, int page, int size) {
+        long start = (long) page * size;
+        String key = key(destination);
+        try {
+            if (!Boolean.TRUE.equals(redisTemplate.hasKey(seededKey(key)))) {
+                return List.of();
+            }
+            Set<String> ids = redisTemplate.opsForZSet().reverseRange(scoresKey(key), start, start + size - 1);
+            return ids != null ? new ArrayList<>(ids) : List.of();
+        } catch (Exception e) {
+            log.warn("Failed to read popularity leaderboard for {}: {}", destination, e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Script arguments per destination key: the schedule weight, then each activity's id and
+     * quality, or an empty quality for activities not flagged popular
+     */
+    private Map<String, List<String>> argsByDestination(Collection<Activity> activities) {
+        Map<String, List<String>> argsByDestination = new LinkedHashMap<>();
+        for (Activity activity : activities) {
+            if (activity.getId() == null || activity.getDestination() == null) {
+                continue;
+            }
+            List<String> args = argsByDestination.computeIfAbsent(key(activity.getDestination()),
+                    k -> new ArrayList<>(List.of(Double.toString(scheduleWeight))));
+            args.add(activity.getId());
+            args.add(Boolean.TRUE.equals(activity.getIsPopular()) ? Double.toString(quality(activity)) : "");
+        }
+        return argsByDestination;
+    }
+    
+    private static List<String> keys(String destinationKey) {
+        return List.of(scoresKey(destinationKey), KEY_PREFIX + destinationKey + QUALITY_SUFFIX,
+                KEY_PREFIX + destinationKey + SCHEDULED_SUFFIX);
+    }
+    
+    private static String scoresKey(String destinationKey) {
+        return KEY_PREFIX + destinationKey + SCORES_SUFFIX;
+    }
+    
+    private static String seededKey(String destinationKey) {
+        return KEY_PREFIX + destinationKey + SEEDED_SUFFIX;
+    }
+    
+    private static double quality(Activity activity) {
+        double rating = activity.getRating() != null ? activity.getRating() : 0;
+        int reviews = activity.getReviewCount() != null ? activity.getReviewCount() : 0;
+        return rating * Math.log1p(reviews);
+    }
+    
+    private static String key(String destination) {
+        return DestinationKeys.of(destination);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,176 @@
+package com.aspot.activity.service;
+
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.model.ActivityCategory;
+import com.aspot.activity.model.BudgetLevel;
+import com.aspot.activity.model.UserPreferences;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * User preferences compiled once per recommendation request, so candidates can be scored
+ * without re-normalizing interests or comparing strings for every tag and interest pair.
+ * Not thread-safe; build one per request.
+ */
+public final class PreferenceMatcher {
+    
+    // Price bands indexed by priceBand(); the last column covers missing or unknown ranges
+    private static final int PRICE_BANDS = 6;
+    private static final int OTHER_PRICE = 5;
+    
+    private static final double[][] BUDGET_WEIGHTS = new double[BudgetLevel.values().length][];
+    
+    static {
+        //                                                           Free $    $$   $$$  $$$$ other
+        BUDGET_WEIGHTS[BudgetLevel.BUDGET.ordinal()]    = new double[]{1.0, 0.6, 0.3, 0.2, 0.2, 0.2};
+        BUDGET_WEIGHTS[BudgetLevel.MID_RANGE.ordinal()] = new double[]{0.8, 1.0, 0.9, 0.7, 0.5, 0.5};
+        BUDGET_WEIGHTS[BudgetLevel.LUXURY.ordinal()]    = new double[]{0.4, 0.6, 0.8, 1.0, 1.0, 0.5};
+    }
+    
+    private final boolean hasInterests;
+    private final Set<ActivityCategory> matchingCategories = EnumSet.noneOf(ActivityCategory.class);
+    private final String[] lowerCaseInterests;
+    private final double[] budgetWeights;
+    
+    // Tags come from a small vocabulary, so each distinct tag is matched against the interests once
+    private final Map<String, Integer> tagMatchCounts = new HashMap<>();
+    
+    private PreferenceMatcher(List<String> interests, BudgetLevel budgetLevel) {
+        this.hasInterests = interests != null && !interests.isEmpty();
+        this.lowerCaseInterests = hasInterests
+                ? interests.stream().map(String::toLowerCase).toArray(String[]::new)
+                : new String[0];
+        
+        if (hasInterests) {
+            for (ActivityCategory category : ActivityCategory.values()) {
+                if (interests.contains(category.name().toLowerCase())) {
+                    matchingCategories.add(category);
+                }
+            }
+        }
+        
+        this.budgetWeights = budgetLevel != null ? BUDGET_WEIGHTS[budgetLevel.ordinal()] : null;
+    }
+    
+    public static PreferenceMatcher compile(UserPreferences preferences) {
+        return new PreferenceMatcher(preferences.getInterests(), preferences.getBudgetLevelEnum());
+    }
+    
+    /**
+     * Calculate recommendation score for an activity
+     */
+    public double score(Activity activity) {
+        double score = 0.0;
+        
+        // Base score from rating (0-5 scale, weight: 30%)
+        if (activity.getRating() != null) {
+            score += (activity.getRating() / 5.0) * 30.0;
+        }
+        
+        // Review count bonus (more reviews = more reliable, weight: 10%)
+        if (activity.getReviewCount() != null) {
+            double reviewScore = Math.min(activity.getReviewCount() / 100.0, 1.0); // Cap at 100 reviews
+            score += reviewScore * 10.0;
+        }
+        
+        // Interest matching (weight: 40%)
+        score += interestMatch(activity) * 40.0;
+        
+        // Budget compatibility (weight: 15%)
+        score += budgetMatch(activity) * 15.0;
+        
+        // Popularity bonus (weight: 5%)
+        if (activity.getIsPopular() != null && activity.getIsPopular()) {
+            score += 5.0;
+        }
+        
+        return score;
+    }
+    
+    /**
+     * Calculate how well an activity matches user interests
+     */
+    public double interestMatch(Activity activity) {
+        if (!hasInterests) {
+            return 0.5; // Neutral score if no preferences
+        }
+        
+        double matchScore = 0.0;
+        
+        // Check category match
+        if (activity.getCategory() != null && matchingCategories.contains(activity.getCategory())) {
+            matchScore += 0.7; // Strong match for category
+        }
+        
+        // Check tag matches, 0.1 for every tag and interest that contain one another
+        if (activity.getTags() != null) {
+            for (String tag : activity.getTags()) {
+                int matches = tagMatchCounts.computeIfAbsent(tag, this::countMatchingInterests);
+                for (int i = 0; i < matches; i++) {
+                    matchScore += 0.1;
+                }
+            }
+        }
+        
+        return Math.min(matchScore, 1.0); // Cap at 1.0
+    }
+    
+    /**
+     * Calculate budget compatibility score
+     */
+    public double budgetMatch(Activity activity) {
+        if (activity.getPriceRange() == null || budgetWeights == null) {
+            return 0.5; // Neutral if no price info
+        }
+        return budgetWeights[priceBand(activity.getPriceRange())];
+    }
+    
+    /**
+     * The compiled preferences as parameters for the Elasticsearch scoring script, which mirrors score()
+     */
+    public Map<String, Object> toScriptParams() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("hasInterests", hasInterests);
+        params.put("categories", matchingCategories.stream().map(ActivityCategory::name).toList());
+        params.put("interests", List.of(lowerCaseInterests));
+        params.put("hasBudget", budgetWeights != null);
+        params.put("budgetWeights", budgetWeights != null
+                ? Arrays.stream(budgetWeights).boxed().toList() : List.of());
+        return params;
+    }
+    
+    private int countMatchingInterests(String tag) {
+        String lowerCaseTag = tag.toLowerCase();
+        int matches = 0;
+        for (String interest : lowerCaseInterests) {
+            if (lowerCaseTag.contains(interest) || interest.contains(lowerCaseTag)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+    
+    /**
+     * Map "Free", "$" .. "$$$$" to bands 0-4 and anything else to OTHER_PRICE
+     */
+    private static int priceBand(String priceRange) {
+        if (priceRange.equals("Free")) {
+            return 0;
+        }
+        int length = priceRange.length();
+        if (length == 0 || length >= PRICE_BANDS - 1) {
+            return OTHER_PRICE;
+        }
+        for (int i = 0; i < length; i++) {
+            if (priceRange.charAt(i) != '$') {
+                return OTHER_PRICE;
+            }
+        }
+        return length;
+    }
+}
\ No newline at end of file
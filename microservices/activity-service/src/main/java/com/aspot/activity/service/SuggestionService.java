@@ -0,0 +1,160 @@
+package com.aspot.activity.service;
+
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.model.Suggestion;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHitsIterator;
+import org.springframework.data.elasticsearch.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Autocomplete for destinations and activity names, answered from memory without touching Elasticsearch.
+ * <p>
+ * The trie is rebuilt from the whole index on a schedule and kept current in between as
+ * activities are indexed, saved or deleted. Changes made while a rebuild scans the index are
+ * replayed onto the new trie before it replaces the old one.
+ */
+@Service
+@Slf4j
+public class SuggestionService {
+    
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final int entriesPerNode;
+    private final int maxActivities;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private SuggestionTrie trie;
+    private List<TrieChange> pendingChanges;
+    
+    public SuggestionService(ElasticsearchOperations elasticsearchOperations,
+                             @Value("${activity.suggest.entries-per-node:10}") int entriesPerNode,
+                             @Value("${activity.suggest.max-activities:500000}") int maxActivities) {
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.entriesPerNode = entriesPerNode;
+        this.maxActivities = maxActivities;
+        this.trie = new SuggestionTrie(entriesPerNode);
+    }
+    
+    public List<Suggestion> suggest(String prefix, int limit) {
+        // Nodes only keep entriesPerNode suggestions, and a negative limit means none
+        int size = Math.max(0, Math.min(limit, entriesPerNode));
+        lock.readLock().lock();
+        try {
+            return trie.suggest(prefix, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public void addActivities(Collection<Activity> activities) {
+        List<Activity> snapshot = new ArrayList<>(activities);
+        apply(target -> snapshot.forEach(activity -> add(target, activity)));
+    }
+    
+    public void removeActivity(String id) {
+        apply(target -> target.removeActivity(id));
+    }
+    
+    /**
+     * Rebuild the trie from every indexed activity
+     */
+    @Scheduled(fixedDelayString = "${activity.suggest.rebuild-interval-ms:3600000}",
+               initialDelayString = "${activity.suggest.initial-delay-ms:10000}")
+    public void rebuild() {
+        try (SearchHitsIterator<Activity> hits = elasticsearchOperations.searchForStream(Query.findAll(), Activity.class)) {
+            rebuild(new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return hits.hasNext();
+                }
+                
+                @Override
+                public Activity next() {
+                    return hits.next().getContent();
+                }
+            }, "Elasticsearch");
+        } catch (Exception e) {
+            log.warn("Failed to rebuild activity suggestions, keeping the current ones: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Replace the trie with one built from the given activities. If reading them fails the current trie is kept.
+     */
+    public void rebuild(Iterator<Activity> activities, String source) {
+        List<TrieChange> pending = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            pendingChanges = pending;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        
+        SuggestionTrie rebuilt = new SuggestionTrie(entriesPerNode);
+        long started = System.currentTimeMillis();
+        boolean built = false;
+        try {
+            while (activities.hasNext() && rebuilt.size() < maxActivities) {
+                add(rebuilt, activities.next());
+            }
+            built = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (built) {
+                    pending.forEach(change -> change.applyTo(rebuilt));
+                    trie = rebuilt;
+                }
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Rebuilt activity suggestions from {} entries from {} in {}ms",
+                rebuilt.size(), source, System.currentTimeMillis() - started);
+    }
+    
+    private void apply(TrieChange change) {
+        lock.writeLock().lock();
+        try {
+            change.applyTo(trie);
+            if (pendingChanges != null) {
+                // A rebuild is scanning the index; make sure its trie sees this change too
+                pendingChanges.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private static void add(SuggestionTrie target, Activity activity) {
+        if (activity.getId() == null || activity.getName() == null) {
+            return;
+        }
+        target.addActivity(activity.getId(), activity.getName(), activity.getDestination(), weight(activity));
+    }
+    
+    /**
+     * Well rated activities with many reviews come first
+     */
+    private static double weight(Activity activity) {
+        double rating = activity.getRating() != null ? activity.getRating() : 0;
+        int reviews = activity.getReviewCount() != null ? activity.getReviewCount() : 0;
+        return rating * Math.log1p(reviews) + (Boolean.TRUE.equals(activity.getIsPopular()) ? 1 : 0);
+    }
+    
+    @FunctionalInterface
+    private interface TrieChange {
+        void applyTo(SuggestionTrie target);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,245 @@
+package com.aspot.activity.service;
+
+import com.aspot.activity.model.Suggestion;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Prefix trie over folded suggestion text, where every node keeps its highest weighted entries.
+ * <p>
+ * A lookup walks one node per prefix character and reads that node's entries, so its cost does
+ * not depend on how many suggestions share the prefix. Each entry is reachable from the start
+ * of every word in its text, so "tower" finds "Eiffel Tower". Children are kept in sorted
+ * arrays rather than maps to keep the node count affordable. Not thread-safe.
+ */
+class SuggestionTrie {
+    
+    // Prefixes longer than this are matched against the entries of the deepest node
+    private static final int MAX_DEPTH = 24;
+    private static final int MAX_WORDS = 6;
+    
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+    
+    private final int entriesPerNode;
+    private final Node root = new Node();
+    private final Map<String, Entry> activities = new HashMap<>();
+    private final Map<String, Entry> destinations = new HashMap<>();
+    
+    SuggestionTrie(int entriesPerNode) {
+        this.entriesPerNode = entriesPerNode;
+    }
+    
+    /**
+     * Lower-case, strip accents and collapse anything that is not a letter or digit to single spaces
+     */
+    static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String stripped = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORS.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+    
+    int size() {
+        return activities.size() + destinations.size();
+    }
+    
+    /**
+     * Add an activity, replacing an earlier version with the same id, and count it towards its destination
+     */
+    void addActivity(String id, String name, String destination, double weight) {
+        String folded = fold(name);
+        Entry previous = activities.remove(id);
+        if (previous != null) {
+            previous.live = false;
+        }
+        if (folded.isEmpty()) {
+            return;
+        }
+        
+        Entry entry = new Entry(name, folded, Suggestion.Type.ACTIVITY, id, destination, weight);
+        activities.put(id, entry);
+        insert(entry);
+        
+        String foldedDestination = fold(destination);
+        if (previous == null && !foldedDestination.isEmpty()) {
+            // Destinations rank by how many activities they have
+            Entry destinationEntry = destinations.computeIfAbsent(foldedDestination, k ->
+                    new Entry(destination, k, Suggestion.Type.DESTINATION, null, destination, 0));
+            destinationEntry.weight++;
+            insert(destinationEntry);
+        }
+    }
+    
+    void removeActivity(String id) {
+        Entry entry = activities.remove(id);
+        if (entry != null) {
+            // Still referenced by nodes until the next rebuild, but never returned
+            entry.live = false;
+        }
+    }
+    
+    /**
+     * Highest weighted live suggestions with a word starting with the prefix
+     */
+    List<Suggestion> suggest(String prefix, int limit) {
+        String folded = fold(prefix);
+        List<Suggestion> suggestions = new ArrayList<>(Math.min(limit, entriesPerNode));
+        if (folded.isEmpty()) {
+            return suggestions;
+        }
+        
+        Node node = root;
+        int depth = Math.min(folded.length(), MAX_DEPTH);
+        for (int i = 0; i < depth && node != null; i++) {
+            node = node.child(folded.charAt(i));
+        }
+        if (node == null) {
+            return suggestions;
+        }
+        
+        boolean truncated = folded.length() > MAX_DEPTH;
+        for (Entry entry : node.entries) {
+            if (suggestions.size() >= limit) {
+                break;
+            }
+            if (entry.live && (!truncated || hasWordStartingWith(entry.folded, folded))) {
+                suggestions.add(new Suggestion(entry.text, entry.type, entry.activityId, entry.destination));
+            }
+        }
+        return suggestions;
+    }
+    
+    private void insert(Entry entry) {
+        String text = entry.folded;
+        int words = 0;
+        for (int start = 0; start < text.length() && words < MAX_WORDS; start++) {
+            if (start > 0 && text.charAt(start - 1) != ' ') {
+                continue;
+            }
+            words++;
+            Node node = root;
+            int end = Math.min(text.length(), start + MAX_DEPTH);
+            for (int i = start; i < end; i++) {
+                node = node.getOrAddChild(text.charAt(i));
+                node.offer(entry, entriesPerNode);
+            }
+        }
+    }
+    
+    private static boolean hasWordStartingWith(String text, String prefix) {
+        for (int start = text.indexOf(prefix); start >= 0; start = text.indexOf(prefix, start + 1)) {
+            if (start == 0 || text.charAt(start - 1) == ' ') {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static final class Entry {
+        final String text;
+        final String folded;
+        final Suggestion.Type type;
+        final String activityId;
+        final String destination;
+        double weight;
+        boolean live = true;
+        
+        Entry(String text, String folded, Suggestion.Type type, String activityId, String destination, double weight) {
+            this.text = text;
+            this.folded = folded;
+            this.type = type;
+            this.activityId = activityId;
+            this.destination = destination;
+            this.weight = weight;
+        }
+    }
+    
+    private static final class Node {
+        char[] keys = NO_KEYS;
+        Node[] children = NO_CHILDREN;
+        Entry[] entries = NO_ENTRIES;
+        
+        Node child(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i >= 0 ? children[i] : null;
+        }
+        
+        Node getOrAddChild(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            if (i >= 0) {
+                return children[i];
+            }
+            int at = -i - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, at);
+            System.arraycopy(children, 0, newChildren, 0, at);
+            newKeys[at] = c;
+            newChildren[at] = new Node();
+            System.arraycopy(keys, at, newKeys, at + 1, keys.length - at);
+            System.arraycopy(children, at, newChildren, at + 1, children.length - at);
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[at];
+        }
+        
+        /**
+         * Keep the entry if it is among the node's top entries, which stay sorted by weight, highest first
+         */
+        void offer(Entry entry, int capacity) {
+            int at = -1;
+            for (int i = 0; i < entries.length; i++) {
+                if (entries[i] == entry) {
+                    at = i;
+                    break;
+                }
+            }
+            
+            if (at < 0) {
+                // Dead entries are the first to make room
+                for (int i = 0; i < entries.length; i++) {
+                    if (!entries[i].live) {
+                        at = i;
+                        break;
+                    }
+                }
+            }
+            
+            if (at < 0) {
+                if (entries.length < capacity) {
+                    entries = Arrays.copyOf(entries, entries.length + 1);
+                    at = entries.length - 1;
+                } else if (entry.weight > entries[entries.length - 1].weight) {
+                    at = entries.length - 1;
+                } else {
+                    return;
+                }
+            }
+            
+            // Move the entry up to its place by weight
+            entries[at] = entry;
+            while (at > 0 && entries[at - 1].weight < entry.weight) {
+                entries[at] = entries[at - 1];
+                entries[--at] = entry;
+            }
+            // A reused dead slot may sit above lower weighted entries
+            while (at < entries.length - 1 && entries[at + 1].weight > entry.weight) {
+                entries[at] = entries[at + 1];
+                entries[++at] = entry;
+            }
+        }
+    }
+}
\ No newline at end of file
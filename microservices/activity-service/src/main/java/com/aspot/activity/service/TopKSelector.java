@@ -0,0 +1,133 @@
+package com.aspot.activity.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps the K highest-scored items offered to it, using a min-heap over primitive scores.
+ * Equal scores rank in the order they were offered, matching a stable descending sort.
+ * The heap grows with the items offered, so a K far above the number of candidates costs nothing.
+ */
+public final class TopKSelector<T> {
+    
+    private static final int INITIAL_SLOTS = 16;
+    
+    private final int capacity;
+    private double[] scores;
+    private long[] offerOrder;
+    private Object[] items;
+    private int size;
+    private long offered;
+    
+    public TopKSelector(int capacity) {
+        this.capacity = Math.max(capacity, 0);
+        int slots = Math.min(this.capacity, INITIAL_SLOTS);
+        this.scores = new double[slots];
+        this.offerOrder = new long[slots];
+        this.items = new Object[slots];
+    }
+    
+    public void offer(T item, double score) {
+        long order = offered++;
+        if (capacity == 0) {
+            return;
+        }
+        
+        if (size < capacity) {
+            if (size == scores.length) {
+                grow();
+            }
+            set(size, item, score, order);
+            siftUp(size++);
+        } else if (Double.compare(score, scores[0]) > 0) {
+            // The root is the weakest kept item; an equal score offered later never displaces it
+            set(0, item, score, order);
+            siftDown(0);
+        }
+    }
+    
+    /**
+     * Kept items, highest score first
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> toSortedList() {
+        Integer[] slots = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = i;
+        }
+        Arrays.sort(slots, (a, b) -> isWeaker(b, a) ? -1 : isWeaker(a, b) ? 1 : 0);
+        
+        List<T> result = new ArrayList<>(size);
+        for (Integer slot : slots) {
+            result.add((T) items[slot]);
+        }
+        return result;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    private void grow() {
+        int slots = (int) Math.min(capacity, Math.max(INITIAL_SLOTS, 2L * scores.length));
+        scores = Arrays.copyOf(scores, slots);
+        offerOrder = Arrays.copyOf(offerOrder, slots);
+        items = Arrays.copyOf(items, slots);
+    }
+    
+    private void set(int slot, Object item, double score, long order) {
+        items[slot] = item;
+        scores[slot] = score;
+        offerOrder[slot] = order;
+    }
+    
+    private boolean isWeaker(int i, int j) {
+        int byScore = Double.compare(scores[i], scores[j]);
+        return byScore < 0 || (byScore == 0 && offerOrder[i] > offerOrder[j]);
+    }
+    
+    private void siftUp(int slot) {
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (!isWeaker(slot, parent)) {
+                return;
+            }
+            swap(slot, parent);
+            slot = parent;
+        }
+    }
+    
+    private void siftDown(int slot) {
+        while (true) {
+            int left = 2 * slot + 1;
+            if (left >= size) {
+                return;
+            }
+            int weakest = left;
+            int right = left + 1;
+            if (right < size && isWeaker(right, left)) {
+                weakest = right;
+            }
+            if (!isWeaker(weakest, slot)) {
+                return;
+            }
+            swap(slot, weakest);
+            slot = weakest;
+        }
+    }
+    
+    private void swap(int i, int j) {
+        Object item = items[i];
+        items[i] = items[j];
+        items[j] = item;
+        
+        double score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+        
+        long order = offerOrder[i];
+        offerOrder[i] = offerOrder[j];
+        offerOrder[j] = order;
+    }
+}
\ No newline at end of file
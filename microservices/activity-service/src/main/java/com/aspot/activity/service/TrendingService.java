@@ -0,0 +1,113 @@
+package com.aspot.activity.service;
+
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.model.DestinationKeys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * What users are actually scheduling, per destination, from itinerary-service events.
+ * <p>
+ * Each destination gets a fixed-size {@link TrendingSketch}, and at most max-destinations are
+ * tracked; when a new destination arrives the one with the least recent activity is dropped.
+ * Memory therefore stays bounded however many activities and users there are.
+ */
+@Service
+@Slf4j
+public class TrendingService {
+    
+    private final ActivityService activityService;
+    private final PopularityLeaderboard popularityLeaderboard;
+    private final int maxDestinations;
+    private final int sketchDepth;
+    private final int sketchWidth;
+    private final int heavyHitters;
+    private final long halfLifeMs;
+    
+    private final Map<String, TrendingSketch> sketches = new HashMap<>();
+    
+    public TrendingService(ActivityService activityService,
+                           PopularityLeaderboard popularityLeaderboard,
+                           @Value("${activity.trending.max-destinations:1000}") int maxDestinations,
+                           @Value("${activity.trending.sketch-depth:4}") int sketchDepth,
+                           @Value("${activity.trending.sketch-width:1024}") int sketchWidth,
+                           @Value("${activity.trending.heavy-hitters:64}") int heavyHitters,
+                           @Value("${activity.trending.half-life-ms:604800000}") long halfLifeMs) {
+        this.activityService = activityService;
+        this.popularityLeaderboard = popularityLeaderboard;
+        this.maxDestinations = maxDestinations;
+        this.sketchDepth = sketchDepth;
+        this.sketchWidth = sketchWidth;
+        this.heavyHitters = heavyHitters;
+        this.halfLifeMs = halfLifeMs;
+    }
+    
+    public void recordScheduled(String destination, List<String> activityIds) {
+        if (destination == null || destination.isBlank() || activityIds == null || activityIds.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (sketches) {
+            TrendingSketch sketch = sketches.get(key(destination));
+            if (sketch == null) {
+                if (sketches.size() >= maxDestinations) {
+                    evictQuietestDestination(now);
+                }
+                sketch = new TrendingSketch(sketchDepth, sketchWidth, heavyHitters, halfLifeMs, now);
+                sketches.put(key(destination), sketch);
+            }
+            for (String activityId : activityIds) {
+                if (activityId != null) {
+                    sketch.record(activityId, now);
+                }
+            }
+        }
+        popularityLeaderboard.recordScheduled(destination, activityIds.stream().filter(Objects::nonNull).toList());
+    }
+    
+    /**
+     * Most scheduled activities in a destination, with recent scheduling counting the most
+     */
+    public List<Activity> getTrendingActivities(String destination, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        List<String> activityIds;
+        synchronized (sketches) {
+            TrendingSketch sketch = sketches.get(key(destination));
+            if (sketch == null) {
+                return List.of();
+            }
+            activityIds = sketch.top(limit, System.currentTimeMillis()).stream()
+                    .map(Map.Entry::getKey)
+                    .toList();
+        }
+        return activityService.getActivitiesByIds(activityIds, destination);
+    }
+    
+    private void evictQuietestDestination(long now) {
+        String quietest = null;
+        double lowest = Double.MAX_VALUE;
+        for (Map.Entry<String, TrendingSketch> entry : sketches.entrySet()) {
+            double weight = entry.getValue().totalWeight(now);
+            if (weight < lowest) {
+                lowest = weight;
+                quietest = entry.getKey();
+            }
+        }
+        if (quietest != null) {
+            sketches.remove(quietest);
+            log.debug("Stopped tracking trending activities for {}", quietest);
+        }
+    }
+    
+    private static String key(String destination) {
+        return DestinationKeys.of(destination);
+    }
+}
\ No newline at end of file
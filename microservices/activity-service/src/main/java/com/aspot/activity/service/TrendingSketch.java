@@ -0,0 +1,149 @@
+package com.aspot.activity.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fixed-size, time-decayed counts of how often activities in one destination are scheduled.
+ * <p>
+ * A count-min sketch estimates the decayed count of any activity, and a fixed number of heavy
+ * hitter candidates is kept beside it; an activity displaces the smallest candidate once its
+ * sketch estimate is larger. Decay is applied forward: each event is
+ * weighted by 2^(age of the landmark / half-life), so older events count for relatively less
+ * without ever touching stored counters, and everything is rescaled once weights grow large.
+ * Memory depends only on the sketch dimensions. Not thread-safe.
+ */
+class TrendingSketch {
+    
+    // Rescale before event weights lose float precision against old counters
+    private static final double RESCALE_AT = 1 << 20;
+    
+    private static final long[] ROW_SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+            0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x27D4EB2F165667C5L, 0x94D049BB133111EBL};
+    
+    private final int width;
+    private final float[][] counts;
+    private final int capacity;
+    private final Map<String, Candidate> candidates;
+    private final double halfLifeMs;
+    
+    private long landmarkMs;
+    
+    TrendingSketch(int depth, int width, int capacity, long halfLifeMs, long nowMs) {
+        this.width = width;
+        this.counts = new float[Math.min(depth, ROW_SEEDS.length)][width];
+        this.capacity = capacity;
+        this.candidates = new HashMap<>(capacity * 2);
+        this.halfLifeMs = halfLifeMs;
+        this.landmarkMs = nowMs;
+    }
+    
+    void record(String activityId, long nowMs) {
+        double weight = weightAt(nowMs);
+        if (weight >= RESCALE_AT) {
+            rescale(nowMs);
+            weight = 1.0;
+        }
+        
+        long hash = activityId.hashCode();
+        float estimate = Float.MAX_VALUE;
+        for (int row = 0; row < counts.length; row++) {
+            int column = column(hash, row);
+            counts[row][column] += (float) weight;
+            estimate = Math.min(estimate, counts[row][column]);
+        }
+        
+        Candidate candidate = candidates.get(activityId);
+        if (candidate != null) {
+            candidate.count += weight;
+        } else if (candidates.size() < capacity) {
+            candidates.put(activityId, new Candidate(activityId, estimate));
+        } else {
+            // The sketch estimate decides whether a newcomer displaces the smallest candidate
+            Candidate smallest = null;
+            for (Candidate c : candidates.values()) {
+                if (smallest == null || c.count < smallest.count) {
+                    smallest = c;
+                }
+            }
+            if (estimate > smallest.count) {
+                candidates.remove(smallest.activityId);
+                candidates.put(activityId, new Candidate(activityId, estimate));
+            }
+        }
+    }
+    
+    /**
+     * Heaviest hitters by decayed count, highest first, with counts as of now
+     */
+    List<Map.Entry<String, Double>> top(int limit, long nowMs) {
+        double scale = weightAt(nowMs);
+        List<Map.Entry<String, Double>> top = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates.values()) {
+            // Both structures only overestimate, so the smaller figure is the tighter one
+            double count = Math.min(candidate.count, estimate(candidate.activityId));
+            top.add(Map.entry(candidate.activityId, count / scale));
+        }
+        top.sort(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()));
+        return top.size() > limit ? top.subList(0, limit) : top;
+    }
+    
+    /**
+     * Total decayed weight, used to pick which destination to forget when too many are tracked
+     */
+    double totalWeight(long nowMs) {
+        double total = 0;
+        for (float count : counts[0]) {
+            total += count;
+        }
+        return total / weightAt(nowMs);
+    }
+    
+    private double estimate(String activityId) {
+        long hash = activityId.hashCode();
+        float estimate = Float.MAX_VALUE;
+        for (int row = 0; row < counts.length; row++) {
+            estimate = Math.min(estimate, counts[row][column(hash, row)]);
+        }
+        return estimate;
+    }
+    
+    private double weightAt(long nowMs) {
+        return Math.pow(2, (nowMs - landmarkMs) / halfLifeMs);
+    }
+    
+    private void rescale(long nowMs) {
+        float factor = (float) (1.0 / weightAt(nowMs));
+        for (float[] row : counts) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] *= factor;
+            }
+        }
+        for (Candidate candidate : candidates.values()) {
+            candidate.count *= factor;
+        }
+        landmarkMs = nowMs;
+    }
+    
+    private int column(long hash, int row) {
+        long h = (hash ^ ROW_SEEDS[row]) * 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 31;
+        h *= 0x94D049BB133111EBL;
+        h ^= h >>> 29;
+        return (int) Math.floorMod(h, (long) width);
+    }
+    
+    private static final class Candidate {
+        final String activityId;
+        double count;
+        
+        Candidate(String activityId, double count) {
+            this.activityId = activityId;
+            this.count = count;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.aspot.activity.service.external;
+
+import com.aspot.activity.model.Activity;
+
+import java.util.List;
+
+/**
+ * A source of activities for a destination. Providers are queried in parallel and their results
+ * merged, so each one declares how long it may take before its results are left out.
+ */
+public interface ActivityProvider {
+    
+    /**
+     * Short name used in logs and metrics
+     */
+    String getName();
+    
+    /**
+     * Providers without credentials or switched off in configuration are skipped
+     */
+    boolean isEnabled();
+    
+    long getTimeoutMs();
+    
+    /**
+     * High-rated activities for a user-facing category, best first. May be served from a cache.
+     */
+    List<Activity> searchActivities(String destination, String category, int maxResults);
+    
+    /**
+     * Same as searchActivities, but bypassing any cache the provider keeps
+     */
+    default List<Activity> refreshActivities(String destination, String category, int maxResults) {
+        return searchActivities(destination, category, maxResults);
+    }
+}
\ No newline at end of file
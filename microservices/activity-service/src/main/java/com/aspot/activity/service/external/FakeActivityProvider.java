@@ -0,0 +1,94 @@
+package com.aspot.activity.service.external;
+
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.model.ActivityCategory;
+import com.aspot.activity.model.ActivityIds;
+import com.aspot.activity.model.Location;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic in-process provider for local runs, off by default. Its latency is configurable
+ * so per-provider deadlines can be exercised without a slow upstream.
+ */
+@Component
+@Order(3)
+@Slf4j
+public class FakeActivityProvider implements ActivityProvider {
+    
+    @Value("${activity.providers.fake.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${activity.providers.fake.timeout-ms:1000}")
+    private long timeoutMs;
+    
+    @Value("${activity.providers.fake.latency-ms:0}")
+    private long latencyMs;
+    
+    @Override
+    public String getName() {
+        return "fake";
+    }
+    
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    @Override
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+    
+    @Override
+    public List<Activity> searchActivities(String destination, String category, int maxResults) {
+        if (latencyMs > 0) {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return List.of();
+            }
+        }
+        
+        String effectiveCategory = (category != null && !category.isEmpty()) ? category : "sights";
+        List<Activity> activities = new ArrayList<>();
+        for (int i = 1; i <= Math.min(maxResults, 5); i++) {
+            Activity activity = new Activity();
+            activity.setId(ActivityIds.stableHash("fake", destination, effectiveCategory, i));
+            activity.setName(String.format("Local %s Favorite #%d in %s", effectiveCategory, i, destination));
+            activity.setDescription(String.format("Locally loved %s activity in %s", effectiveCategory, destination));
+            activity.setDestination(destination);
+            activity.setRating(5.0 - (i * 0.15));
+            activity.setReviewCount(40 * i);
+            activity.setPriceRange("$$");
+            activity.setCategory(mapCategory(effectiveCategory));
+            activity.setIsPopular(i <= 2);
+            
+            Location location = new Location();
+            location.setLatitude(40.7 - (i * 0.01));
+            location.setLongitude(-74.0 - (i * 0.01));
+            location.setAddress(String.format("%d Side St, %s", i * 10, destination));
+            activity.setLocation(location);
+            activity.setTags(List.of(effectiveCategory, "local"));
+            
+            activities.add(activity);
+        }
+        
+        log.debug("Generated {} fake activities for {} in category {}", activities.size(), destination, category);
+        return activities;
+    }
+    
+    private ActivityCategory mapCategory(String category) {
+        try {
+            return ActivityCategory.valueOf(category.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ActivityCategory.SIGHTS;
+        }
+    }
+}
\ No newline at end of file
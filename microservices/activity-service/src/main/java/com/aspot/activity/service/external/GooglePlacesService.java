@@ -2,38 +2,96 @@ package com.aspot.activity.service.external;
 
 import com.aspot.activity.model.Activity;
 import com.aspot.activity.model.ActivityCategory;
+import com.aspot.activity.model.ActivityIds;
 import com.aspot.activity.model.Location;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Service
+@Order(1)
 @RequiredArgsConstructor
 @Slf4j
-public class GooglePlacesService {
+public class GooglePlacesService implements ActivityProvider {
     
     private final RestTemplate restTemplate;
-    private final ObjectMapper objectMapper;
+    private final PlacesResponseParser responseParser;
+    private final PlacesQuotaGovernor quotaGovernor;
     
     @Value("${external.google.places.api-key:}")
     private String apiKey;
     
-    private static final String PLACES_API_URL = "https://maps.googleapis.com/maps/api/place";
+    // Overridable so local runs and tests can point at a Places API stub
+    @Value("${external.google.places.base-url:https://maps.googleapis.com/maps/api/place}")
+    private String placesApiUrl;
+    
+    @Value("${activity.providers.google.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${activity.providers.google.timeout-ms:5000}")
+    private long timeoutMs;
+    
+    @Value("${activity.places.pagination.max-pages:3}")
+    private int maxPages;
+    
+    @Value("${activity.places.pagination.page-token-delay-ms:2000}")
+    private long pageTokenDelayMs;
+    
+    @Value("${activity.places.pagination.page-token-retry-ms:1000}")
+    private long pageTokenRetryMs;
+    
+    @Value("${activity.places.pagination.max-elapsed-ms:4000}")
+    private long paginationMaxElapsedMs;
+    
+    @Override
+    public String getName() {
+        return "google";
+    }
+    
+    /**
+     * Enabled even without an API key, in which case mock activities are returned
+     */
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    @Override
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
     
     /**
      * Search for activities in a destination using Google Places API
      */
-    @Cacheable(value = "activities", key = "#destination + '_' + #category + '_' + #maxResults")
+    @Override
+    @Cacheable(value = "activities", key = "#destination + '_' + #category + '_' + #maxResults", sync = true)
     public List<Activity> searchActivities(String destination, String category, int maxResults) {
+        return fetchActivities(destination, category, maxResults);
+    }
+    
+    /**
+     * Fetch activities from Google Places API, bypassing the cache, and store the result in it
+     */
+    @Override
+    @CachePut(value = "activities", key = "#destination + '_' + #category + '_' + #maxResults")
+    public List<Activity> refreshActivities(String destination, String category, int maxResults) {
+        return fetchActivities(destination, category, maxResults);
+    }
+    
+    private List<Activity> fetchActivities(String destination, String category, int maxResults) {
+        long startedAt = System.nanoTime();
         if (apiKey.isEmpty()) {
             log.warn("Google Places API key not configured, returning mock data");
             return getMockActivities(destination, category);
@@ -42,91 +100,150 @@ public class GooglePlacesService {
         try {
             // First, get coordinates for the destination
             String geocodeUrl = String.format("%s/findplacefromtext/json?input=%s&inputtype=textquery&fields=geometry&key=%s",
-                    PLACES_API_URL, destination, apiKey);
+                    placesApiUrl, destination, apiKey);
             
-            String geocodeResponse = restTemplate.getForObject(geocodeUrl, String.class);
-            JsonNode geocodeJson = objectMapper.readTree(geocodeResponse);
+            quotaGovernor.acquire();
+            Location location = restTemplate.execute(geocodeUrl, HttpMethod.GET, null,
+                    response -> responseParser.parseFirstCandidateLocation(response.getBody()));
             
-            if (geocodeJson.path("candidates").isEmpty()) {
+            if (location == null) {
                 log.warn("Could not find coordinates for destination: {}", destination);
                 return getMockActivities(destination, category);
             }
             
-            JsonNode location = geocodeJson.path("candidates").get(0).path("geometry").path("location");
-            double lat = location.path("lat").asDouble();
-            double lng = location.path("lng").asDouble();
-            
             // Search for places near the destination
             String searchUrl = String.format("%s/nearbysearch/json?location=%f,%f&radius=10000&type=%s&key=%s",
-                    PLACES_API_URL, lat, lng, mapCategoryToGoogleType(category), apiKey);
-            
-            String searchResponse = restTemplate.getForObject(searchUrl, String.class);
-            JsonNode searchJson = objectMapper.readTree(searchResponse);
+                    placesApiUrl, location.getLatitude(), location.getLongitude(), mapCategoryToGoogleType(category), apiKey);
             
-            List<Activity> activities = new ArrayList<>();
-            JsonNode results = searchJson.path("results");
-            
-            int count = 0;
-            for (JsonNode result : results) {
-                if (count >= maxResults) break;
-                
-                Activity activity = parseGooglePlaceToActivity(result, destination);
-                if (activity != null && activity.getRating() != null && activity.getRating() >= 4.0) {
-                    activities.add(activity);
-                    count++;
-                }
-            }
+            // High-rated places are parsed straight off the response stream, which is abandoned once maxResults are found
+            quotaGovernor.acquire();
+            PlacesSearchPage page = fetchPage(searchUrl, destination, maxResults);
+            List<Activity> activities = new ArrayList<>(page.activities());
+            followNextPages(page, activities, destination, maxResults, startedAt);
             
             log.info("Found {} high-rated activities in {} for category {}", activities.size(), destination, category);
             return activities;
             
+        } catch (PlacesQuotaExceededException e) {
+            // Out of budget: let callers fall back to cached data instead of mock results
+            throw e;
         } catch (Exception e) {
             log.error("Error fetching activities from Google Places API: {}", e.getMessage());
             return getMockActivities(destination, category);
         }
     }
     
-    private Activity parseGooglePlaceToActivity(JsonNode place, String destination) {
-        try {
-            Activity activity = new Activity();
-            activity.setId(UUID.randomUUID().toString());
-            activity.setName(place.path("name").asText());
-            activity.setDestination(destination);
-            activity.setRating(place.path("rating").asDouble());
-            activity.setReviewCount(place.path("user_ratings_total").asInt());
-            activity.setPriceRange(mapPriceLevel(place.path("price_level").asInt()));
-            
-            // Set location
-            JsonNode location = place.path("geometry").path("location");
-            Location activityLocation = new Location();
-            activityLocation.setLatitude(location.path("lat").asDouble());
-            activityLocation.setLongitude(location.path("lng").asDouble());
-            activityLocation.setAddress(place.path("vicinity").asText());
-            activity.setLocation(activityLocation);
-            
-            // Set category based on types
-            JsonNode types = place.path("types");
-            activity.setCategory(mapGoogleTypesToCategory(types));
-            
-            // Set tags from types
-            List<String> tags = new ArrayList<>();
-            for (JsonNode type : types) {
-                tags.add(type.asText());
+    /**
+     * Follow next_page_token until enough high-rated places are collected, the page limit is reached
+     * or the next page could not start within the pagination budget. A token only becomes valid a
+     * couple of seconds after its page is served; this thread waits for it while other categories'
+     * requests carry on in parallel on the Places executor.
+     */
+    private void followNextPages(PlacesSearchPage page, List<Activity> activities, String destination,
+                                 int maxResults, long startedAt) {
+        long budgetEnd = startedAt + TimeUnit.MILLISECONDS.toNanos(paginationMaxElapsedMs);
+        int pages = 1;
+        int retries = 0;
+        
+        while (activities.size() < maxResults && page.hasNextPage() && pages < maxPages) {
+            long activeAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retries == 0 ? pageTokenDelayMs : pageTokenRetryMs);
+            if (activeAt > budgetEnd || !sleepUntil(activeAt)) {
+                break;
             }
-            activity.setTags(tags);
             
-            // Mark as popular if high rating and many reviews
-            activity.setIsPopular(activity.getRating() >= 4.5 && activity.getReviewCount() >= 100);
+            String pageUrl = String.format("%s/nearbysearch/json?pagetoken=%s&key=%s", placesApiUrl, page.nextPageToken(), apiKey);
+            PlacesSearchPage next;
+            try {
+                quotaGovernor.acquire();
+                next = fetchPage(pageUrl, destination, maxResults - activities.size());
+            } catch (Exception e) {
+                // Keep the pages already collected
+                log.warn("Stopped following Places pages for {} after {} pages: {}", destination, pages, e.getMessage());
+                break;
+            }
             
-            return activity;
+            if (next.isPageTokenPending() && retries == 0) {
+                retries++;
+                continue;
+            }
             
-        } catch (Exception e) {
-            log.error("Error parsing Google Place: {}", e.getMessage());
+            activities.addAll(next.activities());
+            page = next;
+            pages++;
+            retries = 0;
+        }
+        
+        if (pages > 1) {
+            log.debug("Followed {} Places pages for {}", pages, destination);
+        }
+    }
+    
+    /**
+     * Geocode a destination to the formatted address of the place Google matches it to, which is the
+     * same for every spelling of that place. Returns null without an API key or when nothing matches.
+     */
+    public String findDestinationAddress(String destination) {
+        if (apiKey.isEmpty()) {
             return null;
         }
+        String findUrl = String.format("%s/findplacefromtext/json?input=%s&inputtype=textquery&fields=formatted_address&key=%s",
+                placesApiUrl, destination, apiKey);
+        quotaGovernor.acquire();
+        return restTemplate.execute(findUrl, HttpMethod.GET, null,
+                response -> responseParser.parseFirstCandidateAddress(response.getBody()));
+    }
+    
+    /**
+     * Fetch the website, phone number and first photo of a place with a Place Details call
+     * limited to those fields. Returns null when no API key is configured.
+     */
+    public PlaceDetails fetchPlaceDetails(String placeId) {
+        if (apiKey.isEmpty()) {
+            return null;
+        }
+        String detailsUrl = String.format("%s/details/json?place_id=%s&fields=website,formatted_phone_number,photos&key=%s",
+                placesApiUrl, placeId, apiKey);
+        quotaGovernor.acquire();
+        return restTemplate.execute(detailsUrl, HttpMethod.GET, null,
+                response -> responseParser.parsePlaceDetails(response.getBody()));
+    }
+    
+    /**
+     * Resolve a photo reference to the image URL the Places photo endpoint redirects to, so clients
+     * never see the API key. A HEAD request is not redirected, which leaves the target in Location.
+     */
+    public String resolvePhotoUrl(String photoReference, int maxWidth) {
+        String photoUrl = String.format("%s/photo?maxwidth=%d&photo_reference=%s&key=%s",
+                placesApiUrl, maxWidth, photoReference, apiKey);
+        quotaGovernor.acquire();
+        URI location = restTemplate.execute(photoUrl, HttpMethod.HEAD, null,
+                response -> response.getHeaders().getLocation());
+        return location != null ? location.toString() : null;
+    }
+    
+    private PlacesSearchPage fetchPage(String url, String destination, int maxResults) {
+        return restTemplate.execute(url, HttpMethod.GET, null,
+                response -> responseParser.parseNearbySearch(response.getBody(), destination, maxResults));
+    }
+    
+    private static boolean sleepUntil(long deadline) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            return true;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
     }
     
-    private String mapCategoryToGoogleType(String category) {
+    /**
+     * Map a user-facing category or interest to the Google Places type used for nearby search
+     */
+    public String mapCategoryToGoogleType(String category) {
         return switch (category.toLowerCase()) {
             case "sights" -> "tourist_attraction";
             case "food" -> "restaurant";
@@ -138,41 +255,6 @@ public class GooglePlacesService {
         };
     }
     
-    private ActivityCategory mapGoogleTypesToCategory(JsonNode types) {
-        for (JsonNode type : types) {
-            String typeStr = type.asText();
-            switch (typeStr) {
-                case "tourist_attraction", "museum", "art_gallery" -> {
-                    return ActivityCategory.SIGHTS;
-                }
-                case "restaurant", "food", "cafe" -> {
-                    return ActivityCategory.FOOD;
-                }
-                case "park", "zoo", "amusement_park" -> {
-                    return ActivityCategory.OUTDOOR;
-                }
-                case "night_club", "bar" -> {
-                    return ActivityCategory.NIGHTLIFE;
-                }
-                case "shopping_mall", "store" -> {
-                    return ActivityCategory.SHOPPING;
-                }
-            }
-        }
-        return ActivityCategory.SIGHTS; // default
-    }
-    
-    private String mapPriceLevel(int priceLevel) {
-        return switch (priceLevel) {
-            case 0 -> "Free";
-            case 1 -> "$";
-            case 2 -> "$";
-            case 3 -> "$$";
-            case 4 -> "$$";
-            default -> "Unknown";
-        };
-    }
-    
     /**
      * Mock data for when API key is not configured
      */
@@ -206,7 +288,7 @@ public class GooglePlacesService {
         // Create some mock high-rated activities
         for (int i = 1; i <= 5; i++) {
             Activity activity = new Activity();
-            activity.setId(UUID.randomUUID().toString());
+            activity.setId(ActivityIds.stableHash("mock", destination, effectiveCategory, i));
             activity.setName(String.format("Top %s Spot #%d in %s", effectiveCategory, i, destination));
             activity.setDescription(String.format("Highly rated %s activity in %s", effectiveCategory, destination));
             activity.setDestination(destination);
@@ -0,0 +1,11 @@
+package com.aspot.activity.service.external;
+
+/**
+ * The Place Details fields used to hydrate an activity. Any of them may be null.
+ */
+public record PlaceDetails(String website, String phoneNumber, String photoReference, String status) {
+    
+    public boolean isFound() {
+        return "OK".equals(status);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.aspot.activity.service.external;
+
+/**
+ * Thrown when a Google Places call is refused by the quota governor
+ */
+public class PlacesQuotaExceededException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public PlacesQuotaExceededException(QuotaPriority priority) {
+        super("Google Places quota exhausted for " + priority.name().toLowerCase() + " requests");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,150 @@
+package com.aspot.activity.service.external;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Token-bucket limits on Google Places calls made by this instance.
+ * <p>
+ * A per-second bucket smooths bursts and a per-day budget resets at midnight in the quota's
+ * time zone. Interactive calls may wait up to the configured time for a per-second token.
+ * Warm-up calls never wait, and stop once the daily budget drops to the interactive reserve.
+ * The priority of the calling thread is set with {@link #callWithPriority}.
+ */
+@Component
+@Slf4j
+public class PlacesQuotaGovernor {
+    
+    private static final ThreadLocal<QuotaPriority> CURRENT_PRIORITY = ThreadLocal.withInitial(() -> QuotaPriority.INTERACTIVE);
+    
+    private final double perSecond;
+    private final long perDay;
+    private final long interactiveReserve;
+    private final long maxWaitNanos;
+    private final ZoneId resetZone;
+    
+    private double secondTokens;
+    private long lastRefillNanos;
+    private long dayRemaining;
+    private LocalDate day;
+    
+    private final Map<QuotaPriority, Counter> granted = new EnumMap<>(QuotaPriority.class);
+    private final Map<QuotaPriority, Counter> denied = new EnumMap<>(QuotaPriority.class);
+    
+    public PlacesQuotaGovernor(MeterRegistry meterRegistry,
+                               @Value("${activity.places.quota.per-second:10}") double perSecond,
+                               @Value("${activity.places.quota.per-day:5000}") long perDay,
+                               @Value("${activity.places.quota.interactive-reserve:0.3}") double interactiveReserveFraction,
+                               @Value("${activity.places.quota.max-wait-ms:500}") long maxWaitMs,
+                               @Value("${activity.places.quota.reset-zone:America/Los_Angeles}") String resetZone) {
+        this.perSecond = perSecond;
+        this.perDay = perDay;
+        this.interactiveReserve = Math.round(perDay * interactiveReserveFraction);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.resetZone = ZoneId.of(resetZone);
+        
+        this.secondTokens = perSecond;
+        this.lastRefillNanos = System.nanoTime();
+        this.dayRemaining = perDay;
+        this.day = LocalDate.now(this.resetZone);
+        
+        for (QuotaPriority priority : QuotaPriority.values()) {
+            String tag = priority.name().toLowerCase();
+            granted.put(priority, meterRegistry.counter("places.quota.requests", "priority", tag, "outcome", "granted"));
+            denied.put(priority, meterRegistry.counter("places.quota.requests", "priority", tag, "outcome", "denied"));
+        }
+        meterRegistry.gauge("places.quota.remaining", List.of(Tag.of("window", "second")),
+                this, PlacesQuotaGovernor::getSecondRemaining);
+        meterRegistry.gauge("places.quota.remaining", List.of(Tag.of("window", "day")),
+                this, PlacesQuotaGovernor::getDayRemaining);
+    }
+    
+    /**
+     * Run an upstream call on behalf of the given priority
+     */
+    public <T> T callWithPriority(QuotaPriority priority, Supplier<T> call) {
+        QuotaPriority previous = CURRENT_PRIORITY.get();
+        CURRENT_PRIORITY.set(priority);
+        try {
+            return call.get();
+        } finally {
+            CURRENT_PRIORITY.set(previous);
+        }
+    }
+    
+    public QuotaPriority currentPriority() {
+        return CURRENT_PRIORITY.get();
+    }
+    
+    /**
+     * Take one call from both buckets for the current thread's priority
+     *
+     * @throws PlacesQuotaExceededException if the budget is exhausted or no token frees up in time
+     */
+    public void acquire() {
+        QuotaPriority priority = currentPriority();
+        long deadline = System.nanoTime() + (priority == QuotaPriority.INTERACTIVE ? maxWaitNanos : 0L);
+        
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                refill();
+                long reserve = priority == QuotaPriority.INTERACTIVE ? 0L : interactiveReserve;
+                if (dayRemaining <= reserve) {
+                    break;
+                }
+                if (secondTokens >= 1.0) {
+                    secondTokens -= 1.0;
+                    dayRemaining--;
+                    granted.get(priority).increment();
+                    return;
+                }
+                waitNanos = (long) ((1.0 - secondTokens) / perSecond * TimeUnit.SECONDS.toNanos(1));
+            }
+            
+            if (System.nanoTime() + waitNanos > deadline || Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            LockSupport.parkNanos(waitNanos);
+        }
+        
+        denied.get(priority).increment();
+        log.warn("Google Places quota refused a {} call, {} calls left today", priority, getDayRemaining());
+        throw new PlacesQuotaExceededException(priority);
+    }
+    
+    public synchronized double getSecondRemaining() {
+        refill();
+        return secondTokens;
+    }
+    
+    public synchronized long getDayRemaining() {
+        refill();
+        return dayRemaining;
+    }
+    
+    private void refill() {
+        long now = System.nanoTime();
+        secondTokens = Math.min(perSecond, secondTokens + (now - lastRefillNanos) * perSecond / TimeUnit.SECONDS.toNanos(1));
+        lastRefillNanos = now;
+        
+        LocalDate today = LocalDate.now(resetZone);
+        if (!today.equals(day)) {
+            day = today;
+            dayRemaining = perDay;
+        }
+    }
+}
\ No newline at end of file
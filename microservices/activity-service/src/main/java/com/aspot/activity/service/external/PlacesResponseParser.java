@@ -0,0 +1,365 @@
+package com.aspot.activity.service.external;
+
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.model.ActivityCategory;
+import com.aspot.activity.model.ActivityIds;
+import com.aspot.activity.model.Location;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Token-level parsing of Google Places responses, straight from the response stream.
+ * <p>
+ * Places are built field by field without a buffered body or a JsonNode tree, filtered by
+ * rating as they are read, and reading stops once enough places have been kept. Missing or
+ * mistyped fields read the same as they did through JsonNode: numbers default to 0 and text
+ * to an empty string.
+ */
+@Component
+public class PlacesResponseParser {
+    
+    private static final double MIN_RATING = 4.0;
+    
+    private final JsonFactory jsonFactory;
+    
+    public PlacesResponseParser(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+    
+    /**
+     * Read the coordinates of the first findplacefromtext candidate, or null if there are no candidates
+     */
+    public Location parseFirstCandidateLocation(InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("candidates".equals(field) && value == JsonToken.START_ARRAY) {
+                    if (parser.nextToken() == JsonToken.END_ARRAY) {
+                        return null;
+                    }
+                    Location location = newLocation();
+                    readObject(parser, "geometry", geometry -> readObject(geometry, "location", loc -> readLatLng(loc, location)));
+                    return location;
+                }
+                parser.skipChildren();
+            }
+            return null;
+        }
+    }
+    
+    /**
+     * Read the formatted address of the first findplacefromtext candidate, or null if there are no candidates
+     */
+    public String parseFirstCandidateAddress(InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("candidates".equals(field) && value == JsonToken.START_ARRAY) {
+                    if (parser.nextToken() != JsonToken.START_OBJECT) {
+                        return null;
+                    }
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String candidateField = parser.currentName();
+                        parser.nextToken();
+                        if ("formatted_address".equals(candidateField)) {
+                            return optionalText(parser);
+                        }
+                        parser.skipChildren();
+                    }
+                    return null;
+                }
+                parser.skipChildren();
+            }
+            return null;
+        }
+    }
+    
+    /**
+     * Read nearbysearch results rated 4.0 or higher, stopping after maxResults of them
+     */
+    public PlacesSearchPage parseNearbySearch(InputStream body, String destination, int maxResults) throws IOException {
+        List<Activity> activities = new ArrayList<>();
+        String nextPageToken = null;
+        String status = null;
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return new PlacesSearchPage(activities, null, null);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "next_page_token" -> nextPageToken = parser.getValueAsString();
+                    case "status" -> status = parser.getValueAsString();
+                    case "results" -> {
+                        if (value != JsonToken.START_ARRAY) {
+                            parser.skipChildren();
+                        }
+                        while (value == JsonToken.START_ARRAY && parser.nextToken() != JsonToken.END_ARRAY) {
+                            if (activities.size() >= maxResults) {
+                                // Enough places; the rest of the response is never read
+                                return new PlacesSearchPage(activities, null, status);
+                            }
+                            Activity activity = parsePlace(parser, destination);
+                            if (activity != null && activity.getRating() >= MIN_RATING) {
+                                activities.add(activity);
+                            }
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        return new PlacesSearchPage(activities, nextPageToken, status);
+    }
+    
+    /**
+     * Read the contact fields and first photo reference of a Place Details response
+     */
+    public PlaceDetails parsePlaceDetails(InputStream body) throws IOException {
+        String status = null;
+        String[] details = new String[3];
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return new PlaceDetails(null, null, null, null);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("status".equals(field)) {
+                    status = parser.getValueAsString();
+                } else if ("result".equals(field) && value == JsonToken.START_OBJECT) {
+                    readDetails(parser, details);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return new PlaceDetails(details[0], details[1], details[2], status);
+    }
+    
+    private void readDetails(JsonParser parser, String[] details) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "website" -> details[0] = optionalText(parser);
+                case "formatted_phone_number" -> details[1] = optionalText(parser);
+                case "photos" -> details[2] = readFirstPhotoReference(parser);
+                default -> parser.skipChildren();
+            }
+        }
+    }
+    
+    private String readFirstPhotoReference(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        String reference = null;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (reference != null || parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("photo_reference".equals(field)) {
+                    reference = optionalText(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return reference;
+    }
+    
+    private Activity parsePlace(JsonParser parser, String destination) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        
+        Activity activity = new Activity();
+        Location location = newLocation();
+        location.setAddress("");
+        String name = "";
+        String placeId = "";
+        double rating = 0;
+        int reviewCount = 0;
+        int priceLevel = 0;
+        List<String> types = new ArrayList<>();
+        
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "name" -> name = text(parser);
+                case "rating" -> rating = number(parser);
+                case "user_ratings_total" -> reviewCount = integer(parser);
+                case "price_level" -> priceLevel = integer(parser);
+                case "vicinity" -> location.setAddress(text(parser));
+                case "place_id" -> placeId = text(parser);
+                case "geometry" -> readObject(parser, "location", loc -> readLatLng(loc, location));
+                case "types" -> readTypes(parser, types);
+                default -> parser.skipChildren();
+            }
+        }
+        
+        activity.setName(name);
+        activity.setDestination(destination);
+        activity.setRating(rating);
+        activity.setReviewCount(reviewCount);
+        activity.setPriceRange(mapPriceLevel(priceLevel));
+        activity.setLocation(location);
+        activity.setId(placeId.isEmpty()
+                ? ActivityIds.stableHash(destination, name, location.getLatitude(), location.getLongitude())
+                : ActivityIds.fromGooglePlace(placeId));
+        activity.setCategory(mapGoogleTypesToCategory(types));
+        activity.setTags(types);
+        
+        activity.setIsPopular(isPopular(rating, reviewCount));
+        
+        return activity;
+    }
+    
+    private static Location newLocation() {
+        Location location = new Location();
+        location.setLatitude(0.0);
+        location.setLongitude(0.0);
+        return location;
+    }
+    
+    private void readLatLng(JsonParser parser, Location location) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "lat" -> location.setLatitude(number(parser));
+                case "lng" -> location.setLongitude(number(parser));
+                default -> parser.skipChildren();
+            }
+        }
+    }
+    
+    private void readTypes(JsonParser parser, List<String> types) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            types.add(text(parser));
+        }
+    }
+    
+    /**
+     * With the parser on an object, hand the named child object to the reader and skip everything else
+     */
+    private void readObject(JsonParser parser, String childName, ObjectReader reader) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (childName.equals(field) && value == JsonToken.START_OBJECT) {
+                reader.read(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+    
+    // Scalar readers matching JsonNode.asText(), asDouble() and asInt()
+    
+    private static String text(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return "null";
+        }
+        String value = parser.getValueAsString("");
+        parser.skipChildren();
+        return value;
+    }
+    
+    private static String optionalText(JsonParser parser) throws IOException {
+        String value = parser.getValueAsString();
+        parser.skipChildren();
+        return value;
+    }
+    
+    private static double number(JsonParser parser) throws IOException {
+        double value = parser.getValueAsDouble(0.0);
+        parser.skipChildren();
+        return value;
+    }
+    
+    private static int integer(JsonParser parser) throws IOException {
+        int value = parser.getValueAsInt(0);
+        parser.skipChildren();
+        return value;
+    }
+    
+    /**
+     * Popular means a high rating with many reviews
+     */
+    public static boolean isPopular(double rating, int reviewCount) {
+        return rating >= 4.5 && reviewCount >= 100;
+    }
+    
+    public static ActivityCategory mapGoogleTypesToCategory(List<String> types) {
+        for (String type : types) {
+            switch (type) {
+                case "tourist_attraction", "museum", "art_gallery" -> {
+                    return ActivityCategory.SIGHTS;
+                }
+                case "restaurant", "food", "cafe" -> {
+                    return ActivityCategory.FOOD;
+                }
+                case "park", "zoo", "amusement_park" -> {
+                    return ActivityCategory.OUTDOOR;
+                }
+                case "night_club", "bar" -> {
+                    return ActivityCategory.NIGHTLIFE;
+                }
+                case "shopping_mall", "store" -> {
+                    return ActivityCategory.SHOPPING;
+                }
+            }
+        }
+        return ActivityCategory.SIGHTS; // default
+    }
+    
+    public static String mapPriceLevel(int priceLevel) {
+        return switch (priceLevel) {
+            case 0 -> "Free";
+            case 1 -> "$";
+            case 2 -> "$";
+            case 3 -> "$$";
+            case 4 -> "$$";
+            default -> "Unknown";
+        };
+    }
+    
+    @FunctionalInterface
+    private interface ObjectReader {
+        void read(JsonParser parser) throws IOException;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.aspot.activity.service.external;
+
+import com.aspot.activity.model.Activity;
+
+import java.util.List;
+
+/**
+ * One page of nearbysearch results, with the token for the next page when Google returned one.
+ * The token is only read if parsing did not stop early, since an early stop means enough results were found.
+ */
+public record PlacesSearchPage(List<Activity> activities, String nextPageToken, String status) {
+    
+    public boolean hasNextPage() {
+        return nextPageToken != null && !nextPageToken.isEmpty();
+    }
+    
+    /**
+     * Google answers INVALID_REQUEST for a page token that is not active yet
+     */
+    public boolean isPageTokenPending() {
+        return "INVALID_REQUEST".equals(status);
+    }
+}
\ No newline at end of file
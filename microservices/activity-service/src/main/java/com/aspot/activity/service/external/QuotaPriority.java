@@ -0,0 +1,11 @@
+package com.aspot.activity.service.external;
+
+/**
+ * Who an upstream Places call is for. Interactive calls may wait briefly for quota and can use
+ * the whole daily budget; warm-up and background calls never wait and leave a reserve untouched.
+ */
+public enum QuotaPriority {
+    INTERACTIVE,
+    WARMUP,
+    HYDRATION
+}
\ No newline at end of file
@@ -0,0 +1,178 @@
+package com.aspot.activity.service.external;
+
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.model.ActivityCategory;
+import com.aspot.activity.model.ActivityIds;
+import com.aspot.activity.model.Location;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Activities from the Yelp Fusion business search. Only enabled when external.yelp.api.key is set.
+ */
+@Service
+@Order(2)
+@RequiredArgsConstructor
+@Slf4j
+public class YelpFusionService implements ActivityProvider {
+    
+    // Yelp's largest page size
+    private static final int MAX_LIMIT = 50;
+    
+    private final RestTemplate restTemplate;
+    
+    @Value("${external.yelp.api.key:}")
+    private String apiKey;
+    
+    @Value("${external.yelp.api.base-url:https://api.yelp.com/v3}")
+    private String apiUrl;
+    
+    @Value("${activity.providers.yelp.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${activity.providers.yelp.timeout-ms:3000}")
+    private long timeoutMs;
+    
+    @Override
+    public String getName() {
+        return "yelp";
+    }
+    
+    @Override
+    public boolean isEnabled() {
+        return enabled && !apiKey.isEmpty();
+    }
+    
+    @Override
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+    
+    /**
+     * Search for activities in a destination using Yelp Fusion
+     */
+    @Override
+    @Cacheable(value = "yelp-activities", key = "#destination + '_' + #category + '_' + #maxResults", sync = true)
+    public List<Activity> searchActivities(String destination, String category, int maxResults) {
+        return fetchActivities(destination, category, maxResults);
+    }
+    
+    @Override
+    @CachePut(value = "yelp-activities", key = "#destination + '_' + #category + '_' + #maxResults")
+    public List<Activity> refreshActivities(String destination, String category, int maxResults) {
+        return fetchActivities(destination, category, maxResults);
+    }
+    
+    private List<Activity> fetchActivities(String destination, String category, int maxResults) {
+        UriComponentsBuilder uri = UriComponentsBuilder.fromHttpUrl(apiUrl + "/businesses/search")
+                .queryParam("location", destination)
+                .queryParam("limit", Math.min(Math.max(maxResults * 2, 1), MAX_LIMIT))
+                .queryParam("sort_by", "best_match");
+        String yelpCategories = mapCategoryToYelpCategories(category);
+        if (yelpCategories != null) {
+            uri.queryParam("categories", yelpCategories);
+        }
+        URI searchUri = uri.encode().build().toUri();
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(apiKey);
+        JsonNode response = restTemplate.exchange(searchUri, HttpMethod.GET, new HttpEntity<>(headers), JsonNode.class).getBody();
+        
+        List<Activity> activities = new ArrayList<>();
+        if (response == null) {
+            return activities;
+        }
+        for (JsonNode business : response.path("businesses")) {
+            if (activities.size() >= maxResults) break;
+            
+            Activity activity = parseBusiness(business, destination, category);
+            if (activity.getRating() >= 4.0) {
+                activities.add(activity);
+            }
+        }
+        
+        log.info("Found {} high-rated Yelp activities in {} for category {}", activities.size(), destination, category);
+        return activities;
+    }
+    
+    private Activity parseBusiness(JsonNode business, String destination, String category) {
+        Activity activity = new Activity();
+        activity.setId(ActivityIds.fromYelpBusiness(business.path("id").asText()));
+        activity.setName(business.path("name").asText());
+        activity.setDestination(destination);
+        activity.setRating(business.path("rating").asDouble());
+        activity.setReviewCount(business.path("review_count").asInt());
+        // Yelp already uses "$" to "$$$$"
+        activity.setPriceRange(business.path("price").asText("Unknown"));
+        activity.setImageUrl(business.path("image_url").asText(null));
+        activity.setWebsiteUrl(business.path("url").asText(null));
+        activity.setPhoneNumber(business.path("display_phone").asText(null));
+        
+        JsonNode coordinates = business.path("coordinates");
+        Location location = new Location();
+        location.setLatitude(coordinates.path("latitude").asDouble());
+        location.setLongitude(coordinates.path("longitude").asDouble());
+        List<String> addressLines = new ArrayList<>();
+        business.path("location").path("display_address").forEach(line -> addressLines.add(line.asText()));
+        location.setAddress(String.join(", ", addressLines));
+        location.setCity(business.path("location").path("city").asText(null));
+        location.setCountry(business.path("location").path("country").asText(null));
+        activity.setLocation(location);
+        
+        List<String> tags = new ArrayList<>();
+        business.path("categories").forEach(c -> tags.add(c.path("alias").asText()));
+        activity.setTags(tags);
+        activity.setCategory(mapCategory(category));
+        
+        // Same popularity rule as Google Places results
+        activity.setIsPopular(activity.getRating() >= 4.5 && activity.getReviewCount() >= 100);
+        return activity;
+    }
+    
+    /**
+     * Yelp category aliases for a user-facing category; null searches all categories
+     */
+    private String mapCategoryToYelpCategories(String category) {
+        if (category == null) {
+            return null;
+        }
+        return switch (category.toLowerCase()) {
+            case "sights" -> "landmarks,tours";
+            case "food" -> "restaurants";
+            case "outdoor" -> "parks";
+            case "nightlife" -> "nightlife";
+            case "shopping" -> "shopping";
+            case "culture" -> "museums,galleries";
+            default -> null;
+        };
+    }
+    
+    private ActivityCategory mapCategory(String category) {
+        if (category == null) {
+            return ActivityCategory.SIGHTS;
+        }
+        return switch (category.toLowerCase()) {
+            case "food" -> ActivityCategory.FOOD;
+            case "outdoor" -> ActivityCategory.OUTDOOR;
+            case "nightlife" -> ActivityCategory.NIGHTLIFE;
+            case "shopping" -> ActivityCategory.SHOPPING;
+            case "culture" -> ActivityCategory.CULTURE;
+            default -> ActivityCategory.SIGHTS;
+        };
+    }
+}
\ No newline at end of file
@@ -0,0 +1,233 @@
+package com.aspot.activity.snapshot;
+
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.model.ActivityCategory;
+import com.aspot.activity.model.DestinationKeys;
+import com.aspot.activity.model.Location;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.IntPredicate;
+
+/**
+ * Read-only view of an activity snapshot file, memory-mapped so lookups decode records straight
+ * from the page cache without loading the file onto the heap.
+ * <p>
+ * Layout, little-endian:
+ * <pre>
+ * header     magic, version, createdAt, activityCount, destinationCount, directoryOffset, heapOffset
+ * records    fixed RECORD_SIZE entries, sorted by destination then category
+ * directory  per destination: heap offset of the destination key, then (first record, count) per category
+ * heap       strings as a length and UTF-8 bytes, referenced by offset from records and the directory
+ * </pre>
+ * Only the directory is read onto the heap, when the file is opened. Thread-safe.
+ */
+public final class ActivitySnapshot {
+    
+    static final int MAGIC = 0x504E5341; // "ASNP"
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 32;
+    
+    // 12 string offsets, rating, latitude, longitude, review count, category, flags, padding
+    static final int RECORD_SIZE = 12 * 4 + 3 * 8 + 4 + 4;
+    private static final int RATING = 48;
+    private static final int LATITUDE = 56;
+    private static final int LONGITUDE = 64;
+    private static final int REVIEW_COUNT = 72;
+    private static final int CATEGORY = 76;
+    private static final int FLAGS = 77;
+    
+    static final int NULL_STRING = -1;
+    static final String TAG_SEPARATOR = "\u001f";
+    
+    static final int HAS_RATING = 1;
+    static final int HAS_REVIEW_COUNT = 1 << 1;
+    static final int HAS_LOCATION = 1 << 2;
+    static final int HAS_LATITUDE = 1 << 3;
+    static final int HAS_LONGITUDE = 1 << 4;
+    static final int HAS_POPULAR = 1 << 5;
+    static final int POPULAR = 1 << 6;
+    
+    private static final ActivityCategory[] CATEGORIES = ActivityCategory.values();
+    static final int UNCATEGORIZED = CATEGORIES.length;
+    static final int CATEGORY_SLOTS = CATEGORIES.length + 1;
+    
+    private final MappedByteBuffer buffer;
+    private final long createdAt;
+    private final int activityCount;
+    private final int heapOffset;
+    
+    // Per destination key: (first record, count) for each category slot
+    private final Map<String, int[]> directory;
+    
+    private ActivitySnapshot(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not an activity snapshot of version " + VERSION);
+        }
+        this.createdAt = buffer.getLong(8);
+        this.activityCount = buffer.getInt(16);
+        int destinationCount = buffer.getInt(20);
+        int directoryOffset = buffer.getInt(24);
+        this.heapOffset = buffer.getInt(28);
+        if (heapOffset > buffer.capacity() || directoryOffset != HEADER_SIZE + activityCount * RECORD_SIZE) {
+            throw new IOException("Truncated activity snapshot");
+        }
+        
+        this.directory = new HashMap<>(destinationCount * 2);
+        int position = directoryOffset;
+        for (int d = 0; d < destinationCount; d++) {
+            String key = string(buffer.getInt(position));
+            int[] slots = new int[CATEGORY_SLOTS * 2];
+            for (int i = 0; i < slots.length; i++) {
+                slots[i] = buffer.getInt(position + 4 + i * 4);
+            }
+            directory.put(key, slots);
+            position += 4 + slots.length * 4;
+        }
+    }
+    
+    /**
+     * Map the snapshot file. Snapshot files are never rewritten, so the mapping stays valid until
+     * this snapshot is garbage collected.
+     */
+    public static ActivitySnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return new ActivitySnapshot(buffer);
+        }
+    }
+    
+    public long getCreatedAt() {
+        return createdAt;
+    }
+    
+    public int getActivityCount() {
+        return activityCount;
+    }
+    
+    public int getDestinationCount() {
+        return directory.size();
+    }
+    
+    /**
+     * Activities for a destination, matched by destination key, in a single category or in all of them when the category is null
+     */
+    public List<Activity> find(String destination, ActivityCategory category, int limit) {
+        return find(destination, category, limit, null);
+    }
+    
+    /**
+     * Popular activities for a destination across all categories
+     */
+    public List<Activity> findPopular(String destination, int limit) {
+        return find(destination, null, limit, this::isPopular);
+    }
+    
+    /**
+     * Every activity in the snapshot, decoded as it is reached
+     */
+    public Iterator<Activity> iterator() {
+        return new Iterator<>() {
+            private int next;
+            
+            @Override
+            public boolean hasNext() {
+                return next < activityCount;
+            }
+            
+            @Override
+            public Activity next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return read(next++);
+            }
+        };
+    }
+    
+    private List<Activity> find(String destination, ActivityCategory category, int limit, IntPredicate filter) {
+        int[] slots = destination != null ? directory.get(destinationKey(destination)) : null;
+        if (slots == null || limit <= 0) {
+            return List.of();
+        }
+        
+        int first = category != null ? category.ordinal() : 0;
+        int last = category != null ? category.ordinal() : CATEGORY_SLOTS - 1;
+        List<Activity> activities = new ArrayList<>(Math.min(limit, 64));
+        for (int slot = first; slot <= last && activities.size() < limit; slot++) {
+            int start = slots[slot * 2];
+            int end = start + slots[slot * 2 + 1];
+            for (int index = start; index < end && activities.size() < limit; index++) {
+                if (filter == null || filter.test(index)) {
+                    activities.add(read(index));
+                }
+            }
+        }
+        return activities;
+    }
+    
+    private boolean isPopular(int index) {
+        return (buffer.get(HEADER_SIZE + index * RECORD_SIZE + FLAGS) & POPULAR) != 0;
+    }
+    
+    private Activity read(int index) {
+        int record = HEADER_SIZE + index * RECORD_SIZE;
+        int flags = buffer.get(record + FLAGS);
+        int category = buffer.get(record + CATEGORY);
+        
+        Activity activity = new Activity();
+        activity.setId(string(buffer.getInt(record)));
+        activity.setName(string(buffer.getInt(record + 4)));
+        activity.setDescription(string(buffer.getInt(record + 8)));
+        activity.setDestination(string(buffer.getInt(record + 12)));
+        activity.setPriceRange(string(buffer.getInt(record + 16)));
+        String tags = string(buffer.getInt(record + 32));
+        activity.setTags(tags == null ? null
+                : tags.isEmpty() ? new ArrayList<>() : new ArrayList<>(Arrays.asList(tags.split(TAG_SEPARATOR, -1))));
+        activity.setImageUrl(string(buffer.getInt(record + 36)));
+        activity.setWebsiteUrl(string(buffer.getInt(record + 40)));
+        activity.setPhoneNumber(string(buffer.getInt(record + 44)));
+        activity.setRating((flags & HAS_RATING) != 0 ? buffer.getDouble(record + RATING) : null);
+        activity.setReviewCount((flags & HAS_REVIEW_COUNT) != 0 ? buffer.getInt(record + REVIEW_COUNT) : null);
+        activity.setCategory(category < CATEGORIES.length ? CATEGORIES[category] : null);
+        activity.setIsPopular((flags & HAS_POPULAR) != 0 ? (flags & POPULAR) != 0 : null);
+        
+        if ((flags & HAS_LOCATION) != 0) {
+            activity.setLocation(new Location(
+                    (flags & HAS_LATITUDE) != 0 ? buffer.getDouble(record + LATITUDE) : null,
+                    (flags & HAS_LONGITUDE) != 0 ? buffer.getDouble(record + LONGITUDE) : null,
+                    string(buffer.getInt(record + 20)),
+                    string(buffer.getInt(record + 24)),
+                    string(buffer.getInt(record + 28))));
+        }
+        return activity;
+    }
+    
+    private String string(int offset) {
+        if (offset == NULL_STRING) {
+            return null;
+        }
+        int position = heapOffset + offset;
+        byte[] bytes = new byte[buffer.getInt(position)];
+        buffer.get(position + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    static String destinationKey(String destination) {
+        return DestinationKeys.of(destination);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,204 @@
+package com.aspot.activity.snapshot;
+
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.model.ActivityCategory;
+import com.aspot.activity.service.SuggestionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHitsIterator;
+import org.springframework.data.elasticsearch.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Periodic compact copy of the activity index in a local memory-mapped file.
+ * <p>
+ * While Elasticsearch is unreachable, destination and popular lookups are answered from the
+ * snapshot instead of going straight to the external providers. After a deploy the last snapshot
+ * is mapped at startup and seeds the suggestion index before Elasticsearch has been scanned.
+ * <p>
+ * Every snapshot goes to a new file named after the configured path and its creation time, for
+ * example {@code activity-snapshot-1700000000000.bin}, so a file is never replaced while it is
+ * mapped. Readers switch to the new snapshot, then older files are deleted; a file that cannot be
+ * deleted yet, as on Windows while its mapping is alive, is retried after the next snapshot.
+ */
+@Service
+@Slf4j
+public class ActivitySnapshotService {
+    
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final SuggestionService suggestionService;
+    private final boolean enabled;
+    private final Path path;
+    private final Path directory;
+    private final String filePrefix;
+    private final String fileSuffix;
+    private final int maxActivities;
+    
+    private volatile ActivitySnapshot snapshot;
+    
+    public ActivitySnapshotService(ElasticsearchOperations elasticsearchOperations,
+                                   SuggestionService suggestionService,
+                                   @Value("${activity.snapshot.enabled:true}") boolean enabled,
+                                   @Value("${activity.snapshot.path:./data/activity-snapshot.bin}") String path,
+                                   @Value("${activity.snapshot.max-activities:500000}") int maxActivities) {
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.suggestionService = suggestionService;
+        this.enabled = enabled;
+        this.path = Path.of(path).toAbsolutePath();
+        this.directory = this.path.getParent();
+        String fileName = this.path.getFileName().toString();
+        int extension = fileName.lastIndexOf('.');
+        this.filePrefix = (extension > 0 ? fileName.substring(0, extension) : fileName) + "-";
+        this.fileSuffix = extension > 0 ? fileName.substring(extension) : "";
+        this.maxActivities = maxActivities;
+    }
+    
+    /**
+     * Activities for a destination from the snapshot, in one category or all of them for an
+     * empty or unknown category. Empty when there is no snapshot.
+     */
+    public List<Activity> findActivities(String destination, String category, int limit) {
+        ActivitySnapshot current = snapshot;
+        if (current == null) {
+            return List.of();
+        }
+        
+        ActivityCategory activityCategory = null;
+        if (category != null && !category.isEmpty()) {
+            try {
+                activityCategory = ActivityCategory.valueOf(category.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                // Same as the index lookup: any other category searches the whole destination
+            }
+        }
+        return current.find(destination, activityCategory, limit);
+    }
+    
+    /**
+     * Popular activities for a destination from the snapshot, empty when there is no snapshot
+     */
+    public List<Activity> findPopularActivities(String destination, int limit) {
+        ActivitySnapshot current = snapshot;
+        return current != null ? current.findPopular(destination, limit) : List.of();
+    }
+    
+    /**
+     * Map the newest snapshot left by the previous run that can be read and seed the suggestions from it
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmStart() {
+        if (!enabled) {
+            return;
+        }
+        for (Path file : snapshotFiles()) {
+            try {
+                snapshot = ActivitySnapshot.open(file);
+                log.info("Mapped activity snapshot {} with {} activities for {} destinations, taken {}s ago",
+                        file.getFileName(), snapshot.getActivityCount(), snapshot.getDestinationCount(),
+                        (System.currentTimeMillis() - snapshot.getCreatedAt()) / 1000);
+                suggestionService.rebuild(snapshot.iterator(), "snapshot");
+                return;
+            } catch (Exception e) {
+                log.warn("Could not load activity snapshot {}: {}", file, e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Scan the index and replace the snapshot. An empty or failed scan keeps the current one.
+     */
+    @Scheduled(fixedDelayString = "${activity.snapshot.interval-ms:900000}",
+               initialDelayString = "${activity.snapshot.initial-delay-ms:120000}")
+    public void takeSnapshot() {
+        if (!enabled) {
+            return;
+        }
+        
+        long started = System.currentTimeMillis();
+        Path file = directory.resolve(filePrefix + started + fileSuffix);
+        try {
+            Files.createDirectories(directory);
+            int written;
+            try (ActivitySnapshotWriter writer = new ActivitySnapshotWriter(directory);
+                 SearchHitsIterator<Activity> hits = elasticsearchOperations.searchForStream(Query.findAll(), Activity.class)) {
+                while (hits.hasNext() && writer.size() < maxActivities) {
+                    writer.add(hits.next().getContent());
+                }
+                if (writer.size() == 0) {
+                    log.info("No indexed activities, keeping the current activity snapshot");
+                    return;
+                }
+                writer.writeTo(file, started);
+                written = writer.size();
+            }
+            
+            snapshot = ActivitySnapshot.open(file);
+            log.info("Wrote activity snapshot of {} activities ({} bytes) in {}ms",
+                    written, Files.size(file), System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            log.warn("Failed to write activity snapshot, keeping the current one: {}", e.getMessage());
+            return;
+        }
+        deleteSnapshotsOtherThan(file);
+    }
+    
+    /**
+     * Snapshot files in this snapshot's directory, newest first, then the single file older versions wrote to the path itself
+     */
+    List<Path> snapshotFiles() {
+        List<Path> files = new ArrayList<>();
+        if (Files.isDirectory(directory)) {
+            try (Stream<Path> listed = Files.list(directory)) {
+                listed.filter(file -> createdAt(file) >= 0)
+                        .sorted(Comparator.comparingLong(this::createdAt).reversed())
+                        .forEach(files::add);
+            } catch (IOException e) {
+                log.warn("Could not list activity snapshots in {}: {}", directory, e.getMessage());
+            }
+        }
+        if (Files.exists(path)) {
+            files.add(path);
+        }
+        return files;
+    }
+    
+    private void deleteSnapshotsOtherThan(Path current) {
+        for (Path file : snapshotFiles()) {
+            if (!file.equals(current)) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    log.debug("Could not delete old activity snapshot {} yet: {}", file, e.getMessage());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Creation time in a snapshot file name, or -1 if the file is not a snapshot
+     */
+    private long createdAt(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(filePrefix) || !name.endsWith(fileSuffix)
+                || name.length() <= filePrefix.length() + fileSuffix.length()) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(filePrefix.length(), name.length() - fileSuffix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,340 @@
+package com.aspot.activity.snapshot;
+
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.model.ActivityCategory;
+import com.aspot.activity.model.Location;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.aspot.activity.snapshot.ActivitySnapshot.*;
+
+/**
+ * Writes activities in the snapshot layout read by {@link ActivitySnapshot}, spilling them to disk as they are added.
+ * <p>
+ * Records and strings are appended to temporary files next to the snapshot, so the heap only holds
+ * a destination and category per activity and the strings that repeat across activities, such as
+ * destinations, price ranges and tags, which are stored once. When the snapshot is written the
+ * records are copied out sorted by destination and category, so every (destination, category)
+ * pair is one contiguous run of fixed-size records. The file is written under a temporary name
+ * and moved into place, so readers never see a partial snapshot.
+ */
+public final class ActivitySnapshotWriter implements Closeable {
+    
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int DIRECTORY_ENTRY_SIZE = 4 + CATEGORY_SLOTS * 8;
+    
+    private final Path recordsFile;
+    private final Path heapFile;
+    private final FileChannel records;
+    private final FileChannel heap;
+    private final ByteBuffer recordsBuffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer heapBuffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private long heapSize;
+    
+    private final Map<String, Integer> sharedStrings = new HashMap<>();
+    private final Map<String, Integer> destinationIds = new HashMap<>();
+    private final List<String> destinationKeys = new ArrayList<>();
+    private final List<Integer> destinationKeyOffsets = new ArrayList<>();
+    
+    // Per record, in the order added
+    private int[] destinationOf = new int[1024];
+    private byte[] categoryOf = new byte[1024];
+    private int size;
+    
+    /**
+     * Start a snapshot, keeping its temporary files in the given directory until it is closed
+     */
+    public ActivitySnapshotWriter(Path directory) throws IOException {
+        this.recordsFile = Files.createTempFile(directory, "activity-snapshot-", ".records.tmp");
+        this.heapFile = Files.createTempFile(directory, "activity-snapshot-", ".heap.tmp");
+        this.records = FileChannel.open(recordsFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.heap = FileChannel.open(heapFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+    
+    public void add(Activity activity) throws IOException {
+        if (activity.getId() == null || activity.getDestination() == null) {
+            return;
+        }
+        
+        String key = destinationKey(activity.getDestination());
+        Integer destination = destinationIds.get(key);
+        if (destination == null) {
+            destination = destinationKeys.size();
+            destinationIds.put(key, destination);
+            destinationKeys.add(key);
+            destinationKeyOffsets.add(sharedString(key));
+        }
+        if (size == destinationOf.length) {
+            destinationOf = Arrays.copyOf(destinationOf, size * 2);
+            categoryOf = Arrays.copyOf(categoryOf, size * 2);
+        }
+        destinationOf[size] = destination;
+        categoryOf[size] = (byte) categorySlot(activity.getCategory());
+        size++;
+        
+        if (recordsBuffer.remaining() < RECORD_SIZE) {
+            drain(recordsBuffer, records);
+        }
+        writeRecord(activity);
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Write the snapshot to the target path, which must not be mapped by a reader
+     */
+    public void writeTo(Path target, long createdAt) throws IOException {
+        drain(recordsBuffer, records);
+        drain(heapBuffer, heap);
+        
+        long directoryOffset = HEADER_SIZE + (long) size * RECORD_SIZE;
+        long heapOffset = directoryOffset + (long) destinationKeys.size() * DIRECTORY_ENTRY_SIZE;
+        if (heapOffset + heapSize > Integer.MAX_VALUE) {
+            throw new IOException("Activity snapshot would exceed 2 GB");
+        }
+        
+        // Destination keys ranked in sort order, then (rank, category, record) packed into one long per record
+        String[] sortedKeys = destinationKeys.toArray(String[]::new);
+        Arrays.sort(sortedKeys);
+        int[] rank = new int[sortedKeys.length];
+        for (int r = 0; r < sortedKeys.length; r++) {
+            rank[destinationIds.get(sortedKeys[r])] = r;
+        }
+        long[] order = new long[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = ((long) rank[destinationOf[i]] << 40) | ((long) categoryOf[i] << 32) | i;
+        }
+        Arrays.sort(order);
+        
+        int[][] slots = new int[sortedKeys.length][CATEGORY_SLOTS * 2];
+        for (int position = 0; position < size; position++) {
+            int[] destinationSlots = slots[(int) (order[position] >>> 40)];
+            int slot = (int) (order[position] >>> 32) & 0xFF;
+            if (destinationSlots[slot * 2 + 1]++ == 0) {
+                destinationSlots[slot * 2] = position;
+            }
+        }
+        
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .putLong(createdAt)
+                .putInt(size)
+                .putInt(sortedKeys.length)
+                .putInt((int) directoryOffset)
+                .putInt((int) heapOffset);
+        
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            drain(header, channel);
+            copyRecords(order, channel);
+            
+            ByteBuffer directory = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            for (int r = 0; r < sortedKeys.length; r++) {
+                if (directory.remaining() < DIRECTORY_ENTRY_SIZE) {
+                    drain(directory, channel);
+                }
+                directory.putInt(destinationKeyOffsets.get(destinationIds.get(sortedKeys[r])));
+                for (int value : slots[r]) {
+                    directory.putInt(value);
+                }
+            }
+            drain(directory, channel);
+            
+            for (long copied = 0; copied < heapSize; ) {
+                copied += heap.transferTo(copied, heapSize - copied, channel);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Delete the temporary files
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            records.close();
+        } finally {
+            heap.close();
+            Files.deleteIfExists(recordsFile);
+            Files.deleteIfExists(heapFile);
+        }
+    }
+    
+    /**
+     * Copy the spilled records out in sorted order, reading runs that were added one after another in one go
+     */
+    private void copyRecords(long[] order, FileChannel target) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        int runStart = 0;
+        int runLength = 0;
+        for (long entry : order) {
+            int index = (int) entry;
+            if (runLength > 0 && index == runStart + runLength && (runLength + 1) * RECORD_SIZE <= BUFFER_SIZE) {
+                runLength++;
+                continue;
+            }
+            readRecords(runStart, runLength, buffer, target);
+            runStart = index;
+            runLength = 1;
+        }
+        readRecords(runStart, runLength, buffer, target);
+        drain(buffer, target);
+    }
+    
+    private void readRecords(int first, int count, ByteBuffer buffer, FileChannel target) throws IOException {
+        if (count == 0) {
+            return;
+        }
+        int length = count * RECORD_SIZE;
+        if (buffer.remaining() < length) {
+            drain(buffer, target);
+        }
+        buffer.limit(buffer.position() + length);
+        long position = (long) first * RECORD_SIZE;
+        while (buffer.hasRemaining()) {
+            int read = records.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Activity snapshot records ended early");
+            }
+            position += read;
+        }
+        buffer.limit(buffer.capacity());
+    }
+    
+    private void writeRecord(Activity activity) throws IOException {
+        Location location = activity.getLocation();
+        Double latitude = location != null ? location.getLatitude() : null;
+        Double longitude = location != null ? location.getLongitude() : null;
+        
+        // Strings first: writing them can flush the heap buffer, never the records buffer
+        int[] strings = {
+                string(activity.getId()),
+                string(activity.getName()),
+                string(activity.getDescription()),
+                sharedString(activity.getDestination()),
+                sharedString(activity.getPriceRange()),
+                string(location != null ? location.getAddress() : null),
+                sharedString(location != null ? location.getCity() : null),
+                sharedString(location != null ? location.getCountry() : null),
+                sharedString(activity.getTags() != null ? String.join(TAG_SEPARATOR, activity.getTags()) : null),
+                string(activity.getImageUrl()),
+                string(activity.getWebsiteUrl()),
+                string(activity.getPhoneNumber())
+        };
+        for (int offset : strings) {
+            recordsBuffer.putInt(offset);
+        }
+        recordsBuffer.putDouble(activity.getRating() != null ? activity.getRating() : 0)
+                .putDouble(latitude != null ? latitude : 0)
+                .putDouble(longitude != null ? longitude : 0)
+                .putInt(activity.getReviewCount() != null ? activity.getReviewCount() : 0)
+                .put((byte) categorySlot(activity.getCategory()))
+                .put(flags(activity, location != null, latitude != null, longitude != null))
+                .putShort((short) 0);
+    }
+    
+    private static byte flags(Activity activity, boolean hasLocation, boolean hasLatitude, boolean hasLongitude) {
+        int flags = 0;
+        if (activity.getRating() != null) {
+            flags |= HAS_RATING;
+        }
+        if (activity.getReviewCount() != null) {
+            flags |= HAS_REVIEW_COUNT;
+        }
+        if (hasLocation) {
+            flags |= HAS_LOCATION;
+        }
+        if (hasLatitude) {
+            flags |= HAS_LATITUDE;
+        }
+        if (hasLongitude) {
+            flags |= HAS_LONGITUDE;
+        }
+        if (activity.getIsPopular() != null) {
+            flags |= HAS_POPULAR;
+            if (activity.getIsPopular()) {
+                flags |= POPULAR;
+            }
+        }
+        return (byte) flags;
+    }
+    
+    /**
+     * Heap offset of a string that repeats across activities, storing it on first use; NULL_STRING for null
+     */
+    private int sharedString(String value) throws IOException {
+        if (value == null) {
+            return NULL_STRING;
+        }
+        Integer existing = sharedStrings.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        int offset = string(value);
+        sharedStrings.put(value, offset);
+        return offset;
+    }
+    
+    /**
+     * Heap offset of a newly stored string; NULL_STRING for null
+     */
+    private int string(String value) throws IOException {
+        if (value == null) {
+            return NULL_STRING;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (heapSize + 4 + bytes.length > Integer.MAX_VALUE) {
+            throw new IOException("Activity snapshot strings would exceed 2 GB");
+        }
+        
+        int offset = (int) heapSize;
+        if (heapBuffer.remaining() < 4 + bytes.length) {
+            drain(heapBuffer, heap);
+        }
+        heapBuffer.putInt(bytes.length);
+        if (heapBuffer.remaining() >= bytes.length) {
+            heapBuffer.put(bytes);
+        } else {
+            drain(heapBuffer, heap);
+            drain(ByteBuffer.wrap(bytes).position(bytes.length), heap);
+        }
+        heapSize += 4 + bytes.length;
+        return offset;
+    }
+    
+    /**
+     * Write everything put into the buffer so far to the channel and clear it
+     */
+    private static void drain(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+    
+    private static int categorySlot(ActivityCategory category) {
+        return category != null ? category.ordinal() : UNCATEGORIZED;
+    }
+}
\ No newline at end of file
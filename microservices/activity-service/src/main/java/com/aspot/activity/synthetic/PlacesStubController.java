@@ -0,0 +1,262 @@
+package com.aspot.activity.synthetic;
+
+import com.aspot.activity.model.DestinationKeys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Local stand-in for the Google Places endpoints this service calls, serving the synthetic corpus
+ * so the whole fetch, pagination and hydration path runs offline. Off by default; point
+ * {@code external.google.places.base-url} at it and set any API key.
+ * <p>
+ * Responses follow the Places JSON shape: at most 20 results per nearby search page and 60 in
+ * total, with next_page_token only becoming valid after the configured delay, as upstream.
+ */
+@RestController
+@RequestMapping("${activity.synthetic.places-stub.path:/stub/places}")
+@ConditionalOnProperty(name = "activity.synthetic.places-stub.enabled", havingValue = "true")
+@Slf4j
+public class PlacesStubController {
+    
+    private static final int PAGE_SIZE = 20;
+    private static final int MAX_RESULTS = 60;
+    
+    private final SyntheticActivityGenerator generator;
+    private final long latencyMs;
+    private final long pageTokenDelayMs;
+    private final String photoBaseUrl;
+    
+    // Generated destinations by key, and destination keys by the center nearby search is called with
+    private final Map<String, SyntheticDestination> destinations;
+    private final Map<String, String> destinationsByCenter;
+    
+    public PlacesStubController(@Value("${activity.synthetic.seed:42}") long seed,
+                                @Value("${activity.synthetic.activities-per-destination:500}") int activitiesPerDestination,
+                                @Value("${activity.synthetic.places-stub.latency-ms:0}") long latencyMs,
+                                @Value("${activity.synthetic.places-stub.page-token-delay-ms:0}") long pageTokenDelayMs,
+                                @Value("${activity.synthetic.places-stub.photo-base-url:https://example.com/synthetic-photos}") String photoBaseUrl,
+                                @Value("${activity.synthetic.places-stub.cached-destinations:256}") int cachedDestinations) {
+        this.generator = new SyntheticActivityGenerator(seed, activitiesPerDestination);
+        this.latencyMs = latencyMs;
+        this.pageTokenDelayMs = pageTokenDelayMs;
+        this.photoBaseUrl = photoBaseUrl;
+        this.destinations = lru(cachedDestinations);
+        this.destinationsByCenter = lru(cachedDestinations * 4);
+        log.warn("Serving the synthetic Places API stub; activities fetched through it are not real places");
+    }
+    
+    @GetMapping("/findplacefromtext/json")
+    public Map<String, Object> findPlaceFromText(@RequestParam String input) {
+        simulateLatency();
+        String key = DestinationKeys.of(input);
+        if (key.isEmpty()) {
+            return response("ZERO_RESULTS", "candidates", List.of());
+        }
+        
+        // Generated from the spelling asked for, so made-up destinations keep their capitalization
+        SyntheticDestination destination = generator.destination(input);
+        synchronized (destinations) {
+            destinations.put(key, destination);
+        }
+        synchronized (destinationsByCenter) {
+            destinationsByCenter.put(centerKey(destination.latitude(), destination.longitude()), key);
+        }
+        
+        Map<String, Object> candidate = new LinkedHashMap<>();
+        candidate.put("name", destination.name());
+        candidate.put("formatted_address", destination.formattedAddress());
+        candidate.put("geometry", geometry(destination.latitude(), destination.longitude()));
+        return response("OK", "candidates", List.of(candidate));
+    }
+    
+    @GetMapping("/nearbysearch/json")
+    public Map<String, Object> nearbySearch(@RequestParam(required = false) String location,
+                                            @RequestParam(required = false) String type,
+                                            @RequestParam(required = false) String pagetoken) {
+        simulateLatency();
+        String key;
+        int offset = 0;
+        if (pagetoken != null) {
+            String[] token = decodeToken(pagetoken);
+            if (token == null || System.currentTimeMillis() < Long.parseLong(token[3]) + pageTokenDelayMs) {
+                return response("INVALID_REQUEST", "results", List.of());
+            }
+            key = token[0];
+            type = token[1].isEmpty() ? null : token[1];
+            offset = Integer.parseInt(token[2]);
+        } else {
+            key = location != null ? destinationAt(location) : null;
+            if (key == null) {
+                return response("ZERO_RESULTS", "results", List.of());
+            }
+        }
+        
+        // Most reviewed first, roughly how Places ranks by prominence
+        String wantedType = type;
+        List<SyntheticPlace> matching = destination(key).places().stream()
+                .filter(place -> wantedType == null || place.types().contains(wantedType))
+                .sorted(Comparator.comparingInt(SyntheticPlace::reviewCount).reversed())
+                .limit(MAX_RESULTS)
+                .toList();
+        if (matching.isEmpty()) {
+            return response("ZERO_RESULTS", "results", List.of());
+        }
+        
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (SyntheticPlace place : matching.subList(Math.min(offset, matching.size()), Math.min(offset + PAGE_SIZE, matching.size()))) {
+            results.add(nearbyResult(place));
+        }
+        Map<String, Object> response = response("OK", "results", results);
+        if (offset + PAGE_SIZE < matching.size()) {
+            response.put("next_page_token", encodeToken(key, type, offset + PAGE_SIZE));
+        }
+        return response;
+    }
+    
+    @GetMapping("/details/json")
+    public Map<String, Object> details(@RequestParam("place_id") String placeId) {
+        simulateLatency();
+        String key = SyntheticActivityGenerator.destinationKeyOf(placeId);
+        int index = SyntheticActivityGenerator.placeIndexOf(placeId);
+        List<SyntheticPlace> places = key != null ? destination(key).places() : List.of();
+        if (index < 0 || index >= places.size()) {
+            return response("NOT_FOUND", "html_attributions", List.of());
+        }
+        
+        SyntheticPlace place = places.get(index);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("website", place.website());
+        result.put("formatted_phone_number", place.phoneNumber());
+        if (place.photoReference() != null) {
+            result.put("photos", List.of(Map.of("photo_reference", place.photoReference())));
+        }
+        Map<String, Object> response = response("OK", "html_attributions", List.of());
+        response.put("result", result);
+        return response;
+    }
+    
+    /**
+     * Redirects to an image URL like the real photo endpoint, so photo resolution follows the same path
+     */
+    @GetMapping("/photo")
+    public ResponseEntity<Void> photo(@RequestParam("photo_reference") String photoReference,
+                                      @RequestParam(defaultValue = "400") int maxwidth) {
+        simulateLatency();
+        return ResponseEntity.status(HttpStatus.FOUND)
+                .location(URI.create(String.format(Locale.ROOT, "%s/%s?maxwidth=%d", photoBaseUrl, photoReference, maxwidth)))
+                .build();
+    }
+    
+    private SyntheticDestination destination(String key) {
+        synchronized (destinations) {
+            SyntheticDestination cached = destinations.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        SyntheticDestination destination = generator.destination(key);
+        synchronized (destinations) {
+            destinations.put(key, destination);
+        }
+        return destination;
+    }
+    
+    private String destinationAt(String location) {
+        String[] latLng = location.split(",");
+        if (latLng.length != 2) {
+            return null;
+        }
+        try {
+            String center = centerKey(Double.parseDouble(latLng[0].trim()), Double.parseDouble(latLng[1].trim()));
+            synchronized (destinationsByCenter) {
+                return destinationsByCenter.get(center);
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
+    private static Map<String, Object> nearbyResult(SyntheticPlace place) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("place_id", place.placeId());
+        result.put("name", place.name());
+        result.put("rating", place.rating());
+        result.put("user_ratings_total", place.reviewCount());
+        result.put("price_level", place.priceLevel());
+        result.put("vicinity", place.vicinity());
+        result.put("geometry", geometry(place.latitude(), place.longitude()));
+        result.put("types", place.types());
+        return result;
+    }
+    
+    private static Map<String, Object> geometry(double latitude, double longitude) {
+        return Map.of("location", Map.of("lat", latitude, "lng", longitude));
+    }
+    
+    private static Map<String, Object> response(String status, String listField, List<?> list) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put(listField, list);
+        response.put("status", status);
+        return response;
+    }
+    
+    private static String centerKey(double latitude, double longitude) {
+        return String.format(Locale.ROOT, "%.4f,%.4f", latitude, longitude);
+    }
+    
+    private static String encodeToken(String key, String type, int offset) {
+        String token = String.join("|", key, type != null ? type : "", Integer.toString(offset),
+                Long.toString(System.currentTimeMillis()));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static String[] decodeToken(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|", -1);
+            if (parts.length != 4) {
+                return null;
+            }
+            Integer.parseInt(parts[2]);
+            Long.parseLong(parts[3]);
+            return parts;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
+    private void simulateLatency() {
+        if (latencyMs > 0) {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    private static <V> Map<String, V> lru(int maxSize) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+}
\ No newline at end of file
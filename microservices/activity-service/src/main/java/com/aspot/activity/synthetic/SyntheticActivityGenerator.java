@@ -0,0 +1,256 @@
+package com.aspot.activity.synthetic;
+
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.model.ActivityIds;
+import com.aspot.activity.model.DestinationKeys;
+import com.aspot.activity.model.Location;
+import com.aspot.activity.service.external.PlacesResponseParser;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic activity corpus for capacity testing, shaped like Google Places data.
+ * <p>
+ * Every destination is generated from the seed and its destination key alone, so the same seed
+ * gives the same places whether a destination is bulk-loaded or served by the Places stub, and
+ * in any order. Destination sizes are long-tailed around the configured average. Places sit in a
+ * few neighbourhood clusters around the center, ratings bunch between 4 and 5 with a tail of
+ * poor ones, review counts are log-normal, and types and price levels follow the category.
+ */
+public final class SyntheticActivityGenerator {
+    
+    private static final String PLACE_ID_PREFIX = "synth-";
+    private static final String SYNTHETIC_COUNTRY = "Testland";
+    private static final HexFormat HEX = HexFormat.of();
+    
+    // name, country, latitude, longitude
+    private static final Object[][] CITIES = {
+            {"Paris", "France", 48.8566, 2.3522}, {"London", "United Kingdom", 51.5072, -0.1276},
+            {"New York", "USA", 40.7128, -74.0060}, {"Tokyo", "Japan", 35.6762, 139.6503},
+            {"Rome", "Italy", 41.9028, 12.4964}, {"Barcelona", "Spain", 41.3874, 2.1686},
+            {"Amsterdam", "Netherlands", 52.3676, 4.9041}, {"Berlin", "Germany", 52.5200, 13.4050},
+            {"Lisbon", "Portugal", 38.7223, -9.1393}, {"Prague", "Czechia", 50.0755, 14.4378},
+            {"Vienna", "Austria", 48.2082, 16.3738}, {"Istanbul", "Turkey", 41.0082, 28.9784},
+            {"Dubai", "United Arab Emirates", 25.2048, 55.2708}, {"Singapore", "Singapore", 1.3521, 103.8198},
+            {"Bangkok", "Thailand", 13.7563, 100.5018}, {"Sydney", "Australia", -33.8688, 151.2093},
+            {"San Francisco", "USA", 37.7749, -122.4194}, {"Los Angeles", "USA", 34.0522, -118.2437},
+            {"Chicago", "USA", 41.8781, -87.6298}, {"Toronto", "Canada", 43.6532, -79.3832},
+            {"Mexico City", "Mexico", 19.4326, -99.1332}, {"São Paulo", "Brazil", -23.5505, -46.6333},
+            {"Buenos Aires", "Argentina", -34.6037, -58.3816}, {"Cape Town", "South Africa", -33.9249, 18.4241},
+            {"Marrakesh", "Morocco", 31.6295, -7.9811}, {"Seoul", "South Korea", 37.5665, 126.9780},
+            {"Kyoto", "Japan", 35.0116, 135.7681}, {"Hong Kong", "China", 22.3193, 114.1694},
+            {"Reykjavik", "Iceland", 64.1466, -21.9426}, {"Edinburgh", "United Kingdom", 55.9533, -3.1883}
+    };
+    private static final Map<String, Object[]> CITIES_BY_KEY = new HashMap<>();
+    
+    static {
+        for (Object[] city : CITIES) {
+            CITIES_BY_KEY.put(DestinationKeys.of((String) city[0]), city);
+        }
+    }
+    
+    private static final String[] PREFIXES = {
+            "Harbor", "Royal", "Old Mill", "Riverside", "Grand", "Lantern", "Golden", "Blue Door", "Corner",
+            "Hidden", "Market", "Cedar", "Copper", "North Gate", "Little", "Stone Bridge", "Velvet", "Olive",
+            "Sunset", "Central", "Kingfisher", "Juniper", "Iron", "Silver Lake", "Old Town", "Garden", "Maple",
+            "Lighthouse", "Orchard", "Union"
+    };
+    private static final String[] STREETS = {
+            "Main St", "Market St", "River Rd", "Church Ln", "High St", "Station Rd", "Park Ave", "Harbor Way",
+            "Mill Ln", "Castle St", "Bridge St", "Garden Row", "King St", "Queen St", "Hill Rd"
+    };
+    
+    private static final List<Profile> PROFILES = List.of(
+            new Profile(0.34, 1, 3, List.of(
+                    List.of("restaurant", "food", "point_of_interest", "establishment"),
+                    List.of("cafe", "restaurant", "food", "point_of_interest", "establishment")),
+                    "Bistro", "Trattoria", "Kitchen", "Noodle Bar", "Cafe", "Grill", "Bakery", "Tapas House"),
+            new Profile(0.24, 0, 2, List.of(
+                    List.of("tourist_attraction", "point_of_interest", "establishment"),
+                    List.of("museum", "tourist_attraction", "point_of_interest", "establishment"),
+                    List.of("art_gallery", "tourist_attraction", "point_of_interest", "establishment")),
+                    "Tower", "Cathedral", "Museum", "Gallery", "Palace", "Lookout", "Monument", "Old Square"),
+            new Profile(0.14, 1, 3, List.of(
+                    List.of("shopping_mall", "store", "point_of_interest", "establishment"),
+                    List.of("store", "shopping_mall", "point_of_interest", "establishment")),
+                    "Arcade", "Market Hall", "Boutique", "Bazaar", "Emporium", "Galleria"),
+            new Profile(0.14, 0, 1, List.of(
+                    List.of("park", "point_of_interest", "establishment"),
+                    List.of("zoo", "park", "tourist_attraction", "point_of_interest", "establishment"),
+                    List.of("amusement_park", "park", "point_of_interest", "establishment")),
+                    "Park", "Gardens", "Trail", "Botanic Garden", "Zoo", "Waterfront", "Common"),
+            new Profile(0.14, 2, 3, List.of(
+                    List.of("night_club", "bar", "point_of_interest", "establishment"),
+                    List.of("bar", "night_club", "point_of_interest", "establishment")),
+                    "Lounge", "Club", "Taproom", "Jazz Bar", "Cocktail Bar", "Rooftop")
+    );
+    
+    private final long seed;
+    private final int averagePlaces;
+    
+    public SyntheticActivityGenerator(long seed, int averagePlaces) {
+        this.seed = seed;
+        this.averagePlaces = averagePlaces;
+    }
+    
+    /**
+     * Names of the first count destinations: well-known cities, then numbered synthetic ones
+     */
+    public List<String> destinationNames(int count) {
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add(i < CITIES.length ? (String) CITIES[i][0] : String.format(Locale.ROOT, "Synthetic City %04d", i));
+        }
+        return names;
+    }
+    
+    /**
+     * Generate a destination and all its places. Any name works; unknown ones get a made-up center.
+     */
+    public SyntheticDestination destination(String name) {
+        String key = DestinationKeys.of(name);
+        SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + key.hashCode());
+        
+        Object[] city = CITIES_BY_KEY.get(key);
+        String displayName = city != null ? (String) city[0] : name.trim();
+        String formattedAddress = displayName + ", " + (city != null ? city[1] : SYNTHETIC_COUNTRY);
+        double latitude = city != null ? (double) city[2] : round(random.nextDouble(-45, 60), 4);
+        double longitude = city != null ? (double) city[3] : round(random.nextDouble(-170, 170), 4);
+        double lngScale = 1 / Math.max(0.2, Math.cos(Math.toRadians(latitude)));
+        
+        // Log-normal with mean 1, so a few destinations are several times the average
+        int placeCount = (int) Math.max(10, Math.round(averagePlaces * Math.exp(0.8 * random.nextGaussian() - 0.32)));
+        double[][] clusters = new double[2 + random.nextInt(5)][];
+        double clusterWeights = 0;
+        for (int c = 0; c < clusters.length; c++) {
+            clusters[c] = new double[]{
+                    latitude + (c == 0 ? 0 : random.nextGaussian() * 0.025),
+                    longitude + (c == 0 ? 0 : random.nextGaussian() * 0.025 * lngScale)};
+            clusterWeights += 1.0 / (c + 1);
+        }
+        
+        String hexKey = HEX.formatHex(key.getBytes(StandardCharsets.UTF_8));
+        List<SyntheticPlace> places = new ArrayList<>(placeCount);
+        for (int i = 0; i < placeCount; i++) {
+            places.add(place(random, PLACE_ID_PREFIX + hexKey + "-" + i, displayName, clusters,
+                    pickCluster(random, clusters.length, clusterWeights), lngScale));
+        }
+        return new SyntheticDestination(displayName, formattedAddress, latitude, longitude, places);
+    }
+    
+    /**
+     * The destination key a generated place id belongs to, or null for other ids
+     */
+    public static String destinationKeyOf(String placeId) {
+        int separator = placeId != null ? placeId.lastIndexOf('-') : -1;
+        if (separator <= PLACE_ID_PREFIX.length() || !placeId.startsWith(PLACE_ID_PREFIX)) {
+            return null;
+        }
+        try {
+            return new String(HEX.parseHex(placeId, PLACE_ID_PREFIX.length(), separator), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Position of a generated place in its destination, or -1 for other ids
+     */
+    public static int placeIndexOf(String placeId) {
+        if (destinationKeyOf(placeId) == null) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(placeId.substring(placeId.lastIndexOf('-') + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
+    /**
+     * The activity the Places parser would build from this place's nearby search result
+     */
+    public static Activity toActivity(SyntheticPlace place, String destination) {
+        Activity activity = new Activity();
+        activity.setId(ActivityIds.fromGooglePlace(place.placeId()));
+        activity.setName(place.name());
+        activity.setDestination(destination);
+        activity.setRating(place.rating());
+        activity.setReviewCount(place.reviewCount());
+        activity.setPriceRange(PlacesResponseParser.mapPriceLevel(place.priceLevel()));
+        activity.setLocation(new Location(place.latitude(), place.longitude(), place.vicinity(), null, null));
+        activity.setCategory(PlacesResponseParser.mapGoogleTypesToCategory(place.types()));
+        activity.setTags(new ArrayList<>(place.types()));
+        activity.setIsPopular(PlacesResponseParser.isPopular(place.rating(), place.reviewCount()));
+        return activity;
+    }
+    
+    private static SyntheticPlace place(SplittableRandom random, String placeId, String destination,
+                                        double[][] clusters, int cluster, double lngScale) {
+        Profile profile = pickProfile(random);
+        String name = PREFIXES[random.nextInt(PREFIXES.length)] + " " + profile.nouns()[random.nextInt(profile.nouns().length)];
+        double latitude = round(clusters[cluster][0] + random.nextGaussian() * 0.004, 6);
+        double longitude = round(clusters[cluster][1] + random.nextGaussian() * 0.004 * lngScale, 6);
+        String vicinity = String.format(Locale.ROOT, "%d %s, %s",
+                1 + random.nextInt(300), STREETS[random.nextInt(STREETS.length)], destination);
+        
+        // Most places rate between 4 and 5; about one in twenty is a poor one
+        double rating = random.nextDouble() < 0.05
+                ? 2.5 + random.nextDouble() * 1.5
+                : 4.7 - Math.abs(random.nextGaussian() * 0.45);
+        rating = round(Math.max(1.0, Math.min(5.0, rating)), 1);
+        // The central cluster draws more visitors
+        int reviewCount = (int) Math.min(100_000, Math.exp(4.2 + random.nextGaussian() * 1.4) * (cluster == 0 ? 2 : 1));
+        int priceLevel = profile.minPrice() + random.nextInt(profile.maxPrice() - profile.minPrice() + 1);
+        List<String> types = profile.types().get(random.nextInt(profile.types().size()));
+        
+        String website = random.nextDouble() < 0.8 ? "https://example.com/places/" + placeId : null;
+        String phoneNumber = random.nextDouble() < 0.9
+                ? String.format(Locale.ROOT, "+%d %03d %04d", 1 + random.nextInt(98), random.nextInt(1000), random.nextInt(10000))
+                : null;
+        String photoReference = random.nextDouble() < 0.85 ? "synthphoto-" + placeId : null;
+        
+        return new SyntheticPlace(placeId, name, latitude, longitude, vicinity, rating, reviewCount, priceLevel,
+                types, website, phoneNumber, photoReference);
+    }
+    
+    private static int pickCluster(SplittableRandom random, int clusters, double totalWeight) {
+        double target = random.nextDouble() * totalWeight;
+        for (int c = 0; c < clusters; c++) {
+            target -= 1.0 / (c + 1);
+            if (target <= 0) {
+                return c;
+            }
+        }
+        return clusters - 1;
+    }
+    
+    private static Profile pickProfile(SplittableRandom random) {
+        double target = random.nextDouble();
+        for (Profile profile : PROFILES) {
+            target -= profile.weight();
+            if (target <= 0) {
+                return profile;
+            }
+        }
+        return PROFILES.get(PROFILES.size() - 1);
+    }
+    
+    private static double round(double value, int decimals) {
+        double scale = Math.pow(10, decimals);
+        return Math.round(value * scale) / scale;
+    }
+    
+    /**
+     * Share of places, price level range, Google types and name nouns for one category
+     */
+    private record Profile(double weight, int minPrice, int maxPrice, List<List<String>> types, String... nouns) {
+    }
+}
\ No newline at end of file
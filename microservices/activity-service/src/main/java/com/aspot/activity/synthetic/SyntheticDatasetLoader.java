@@ -0,0 +1,135 @@
+package com.aspot.activity.synthetic;
+
+import com.aspot.activity.cache.QueryResultCache;
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.repository.ActivityRepository;
+import com.aspot.activity.service.PopularityLeaderboard;
+import com.aspot.activity.service.SuggestionService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bulk-loads the synthetic corpus into Elasticsearch for capacity tests, off by default.
+ * <p>
+ * Destinations are generated one at a time and written in bulk batches through the repository,
+ * so documents are routed by destination like any other. Suggestions and popularity leaderboards
+ * are filled as batches land, the same as after regular indexing. Loading the same seed again
+ * overwrites the same documents.
+ */
+@Component
+@Slf4j
+public class SyntheticDatasetLoader {
+    
+    private final ActivityRepository activityRepository;
+    private final SuggestionService suggestionService;
+    private final PopularityLeaderboard popularityLeaderboard;
+    private final QueryResultCache queryResultCache;
+    private final SyntheticActivityGenerator generator;
+    private final boolean enabled;
+    private final int defaultDestinations;
+    private final int batchSize;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("synthetic-loader-"));
+    private final AtomicBoolean running = new AtomicBoolean();
+    
+    public SyntheticDatasetLoader(ActivityRepository activityRepository,
+                                  SuggestionService suggestionService,
+                                  PopularityLeaderboard popularityLeaderboard,
+                                  QueryResultCache queryResultCache,
+                                  @Value("${activity.synthetic.seed:42}") long seed,
+                                  @Value("${activity.synthetic.activities-per-destination:500}") int activitiesPerDestination,
+                                  @Value("${activity.synthetic.destinations:200}") int defaultDestinations,
+                                  @Value("${activity.synthetic.loader.enabled:false}") boolean enabled,
+                                  @Value("${activity.synthetic.loader.batch-size:1000}") int batchSize) {
+        this.activityRepository = activityRepository;
+        this.suggestionService = suggestionService;
+        this.popularityLeaderboard = popularityLeaderboard;
+        this.queryResultCache = queryResultCache;
+        this.generator = new SyntheticActivityGenerator(seed, activitiesPerDestination);
+        this.enabled = enabled;
+        this.defaultDestinations = defaultDestinations;
+        this.batchSize = batchSize;
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Start loading the corpus for the given number of destinations, or the configured number when null
+     *
+     * @return false if a load is already running
+     */
+    public boolean start(Integer destinations) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        int count = destinations != null ? destinations : defaultDestinations;
+        try {
+            worker.execute(() -> {
+                try {
+                    load(count);
+                } catch (Exception e) {
+                    log.error("Synthetic activity load failed: {}", e.getMessage(), e);
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (Exception e) {
+            running.set(false);
+            throw e;
+        }
+        return true;
+    }
+    
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        worker.shutdownNow();
+        worker.awaitTermination(10, TimeUnit.SECONDS);
+    }
+    
+    private void load(int destinations) {
+        long started = System.currentTimeMillis();
+        log.info("Loading synthetic activities for {} destinations", destinations);
+        
+        long loaded = 0;
+        List<Activity> batch = new ArrayList<>(batchSize);
+        for (String name : generator.destinationNames(destinations)) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            SyntheticDestination destination = generator.destination(name);
+            for (SyntheticPlace place : destination.places()) {
+                batch.add(SyntheticActivityGenerator.toActivity(place, destination.name()));
+                if (batch.size() >= batchSize) {
+                    loaded += write(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            loaded += write(batch);
+        }
+        queryResultCache.invalidate();
+        
+        long elapsed = Math.max(1, System.currentTimeMillis() - started);
+        log.info("Loaded {} synthetic activities for {} destinations in {}ms ({} per second)",
+                loaded, destinations, elapsed, loaded * 1000 / elapsed);
+    }
+    
+    private int write(List<Activity> batch) {
+        activityRepository.saveAll(batch);
+        suggestionService.addActivities(batch);
+        popularityLeaderboard.recordIndexed(batch);
+        return batch.size();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.aspot.activity.synthetic;
+
+import java.util.List;
+
+/**
+ * A generated destination: its center, the address Places would name it by, and its places
+ */
+public record SyntheticDestination(String name, String formattedAddress, double latitude, double longitude,
+                                   List<SyntheticPlace> places) {
+}
\ No newline at end of file
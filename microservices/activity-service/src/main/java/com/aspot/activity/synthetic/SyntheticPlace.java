@@ -0,0 +1,12 @@
+package com.aspot.activity.synthetic;
+
+import java.util.List;
+
+/**
+ * One generated place, holding the fields Google Places returns from nearby search and Place
+ * Details. Website, phone number and photo reference may be null.
+ */
+public record SyntheticPlace(String placeId, String name, double latitude, double longitude, String vicinity,
+                             double rating, int reviewCount, int priceLevel, List<String> types,
+                             String website, String phoneNumber, String photoReference) {
+}
\ No newline at end of file
@@ -0,0 +1,57 @@
+package com.aspot.activity.service;
+
+import com.aspot.activity.model.Activity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Duplicate removal over candidate pools: the pairwise loop against the indexed deduplicator.
+ * <p>
+ * Run after {@code mvn test-compile} with
+ * {@code java -cp target/test-classes:target/classes:<test classpath> org.openjdk.jmh.Main ActivityDeduplicatorBenchmark},
+ * where {@code mvn dependency:build-classpath -Dmdep.includeScope=test} prints the test classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ActivityDeduplicatorBenchmark {
+    
+    @Param({"500", "5000"})
+    int candidates;
+    
+    List<Activity> pool;
+    
+    @Setup
+    public void setUp() {
+        pool = CandidatePools.pool(42, candidates);
+    }
+    
+    @Benchmark
+    public List<Activity> pairwise() {
+        return PairwiseDeduplication.removeDuplicates(pool);
+    }
+    
+    @Benchmark
+    public List<Activity> indexed() {
+        ActivityDeduplicator deduplicator = new ActivityDeduplicator();
+        for (Activity activity : pool) {
+            deduplicator.add(activity, 0);
+        }
+        return deduplicator.getUniqueActivities();
+    }
+}
\ No newline at end of file
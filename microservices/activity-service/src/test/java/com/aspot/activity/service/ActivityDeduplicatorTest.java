@@ -0,0 +1,85 @@
+package com.aspot.activity.service;
+
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.model.Location;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ActivityDeduplicatorTest {
+    
+    @Test
+    void keepsThePairwiseResultOnRandomPools() {
+        for (long seed = 0; seed < 300; seed++) {
+            List<Activity> pool = CandidatePools.pool(seed, 50 + (int) (seed % 7) * 60);
+            
+            List<Activity> expected = PairwiseDeduplication.removeDuplicates(pool);
+            ActivityDeduplicator deduplicator = deduplicate(pool);
+            
+            assertThat(deduplicator.getUniqueActivities()).as("pool %d", seed).containsExactlyElementsOf(expected);
+            assertThat(deduplicator.getRemovedCount()).as("pool %d", seed).isEqualTo(pool.size() - expected.size());
+        }
+    }
+    
+    @Test
+    void replacesTheKeptActivityWithAHigherRatedDuplicate() {
+        Activity first = activity("Louvre Museum", 4.2, null);
+        Activity other = activity("Eiffel Tower", 4.6, null);
+        Activity better = activity("The Louvre Museum", 4.8, null);
+        
+        ActivityDeduplicator deduplicator = deduplicate(List.of(first, other, better));
+        
+        assertThat(deduplicator.getUniqueActivities()).containsExactly(other, better);
+        assertThat(deduplicator.getRemovedCount()).isEqualTo(1);
+    }
+    
+    @Test
+    void treatsNearbyPlacesSharingALeadingWordAsDuplicates() {
+        Activity cafe = activity("Cafe de Flore", 4.5, location(48.85420, 2.33260));
+        Activity nextDoor = activity("Cafe Les Deux Magots", 4.4, location(48.85400, 2.33300));
+        Activity acrossTown = activity("Cafe Marly", 4.3, location(48.86100, 2.33560));
+        
+        ActivityDeduplicator deduplicator = deduplicate(List.of(cafe, nextDoor, acrossTown));
+        
+        assertThat(deduplicator.getUniqueActivities()).containsExactly(cafe, acrossTown);
+    }
+    
+    @Test
+    void findsNearbyDuplicatesAcrossTheAntimeridianAndNearThePoles() {
+        Activity east = activity("Station hut", 4.0, location(-16.5, 179.99995));
+        Activity west = activity("Station dock", 4.0, location(-16.5, -179.99995));
+        Activity pole = activity("Camp base", 4.0, location(89.9996, 10));
+        Activity acrossPole = activity("Camp store", 4.0, location(89.9996, -170));
+        
+        ActivityDeduplicator deduplicator = deduplicate(List.of(east, west, pole, acrossPole));
+        
+        assertThat(deduplicator.getUniqueActivities()).containsExactly(east, pole);
+        assertThat(deduplicator.getUniqueActivities())
+                .containsExactlyElementsOf(PairwiseDeduplication.removeDuplicates(List.of(east, west, pole, acrossPole)));
+    }
+    
+    private static ActivityDeduplicator deduplicate(List<Activity> pool) {
+        ActivityDeduplicator deduplicator = new ActivityDeduplicator();
+        pool.forEach(activity -> deduplicator.add(activity, 0));
+        return deduplicator;
+    }
+    
+    private static Activity activity(String name, Double rating, Location location) {
+        Activity activity = new Activity();
+        activity.setName(name);
+        activity.setRating(rating);
+        activity.setLocation(location);
+        activity.setTags(new ArrayList<>());
+        return activity;
+    }
+    
+    private static Location location(double latitude, double longitude) {
+        Location location = new Location();
+        location.setLatitude(latitude);
+        location.setLongitude(longitude);
+        return location;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,76 @@
+package com.aspot.activity.service;
+
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.repository.ActivityRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ActivityIndexerTest {
+    
+    private final ActivityRepository activityRepository = mock(ActivityRepository.class);
+    private ActivityIndexer activityIndexer;
+    
+    @BeforeEach
+    void setUp() {
+        activityIndexer = new ActivityIndexer(activityRepository, mock(SuggestionService.class),
+                mock(PopularityLeaderboard.class), mock(ActivityReindexer.class),
+                mock(DestinationCanonicalizer.class), new SimpleMeterRegistry(), 500, 10000);
+    }
+    
+    @Test
+    void writesBatchesWithoutDeletingWhenNoCopyMoved() throws InterruptedException {
+        when(activityRepository.findAllByIdInDestination(anyCollection(), eq("Lisbon")))
+                .thenReturn(List.of(activity("gp_a", "Lisbon")));
+        
+        activityIndexer.index(List.of(activity("gp_a", "Lisbon"), activity("gp_b", "Lisbon")));
+        activityIndexer.shutdown();
+        
+        verify(activityRepository).saveAll(anyCollection());
+        verify(activityRepository, never()).deleteStaleCopies(any());
+    }
+    
+    @Test
+    void deletesOnlyCopiesFoundUnderAnotherDestination() throws InterruptedException {
+        when(activityRepository.findAllByIdInDestination(anyCollection(), eq("Lisbon")))
+                .thenReturn(List.of(activity("gp_a", "Lisbon"), activity("gp_b", "Porto")));
+        
+        activityIndexer.index(List.of(activity("gp_a", "Lisbon"), activity("gp_b", "Lisbon"), activity("gp_c", "Lisbon")));
+        activityIndexer.shutdown();
+        
+        verify(activityRepository).deleteStaleCopies(List.of(activity("gp_b", "Lisbon")));
+    }
+    
+    @Test
+    void keepsHydratedDetailsOfTheIndexedCopy() throws InterruptedException {
+        Activity indexed = activity("gp_a", "Lisbon");
+        indexed.setWebsiteUrl("https://example.com/a");
+        when(activityRepository.findAllByIdInDestination(anyCollection(), eq("Lisbon"))).thenReturn(List.of(indexed));
+        Activity refetched = activity("gp_a", "Lisbon");
+        
+        activityIndexer.index(List.of(refetched));
+        activityIndexer.shutdown();
+        
+        assertThat(refetched.getWebsiteUrl()).isEqualTo("https://example.com/a");
+    }
+    
+    private static Activity activity(String id, String destination) {
+        Activity activity = new Activity();
+        activity.setId(id);
+        activity.setName(id);
+        activity.setDestination(destination);
+        activity.setRating(4.5);
+        return activity;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,142 @@
+package com.aspot.activity.service;
+
+import com.aspot.activity.cache.QueryResultCache;
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.repository.ActivityRepository;
+import com.aspot.activity.snapshot.ActivitySnapshotService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ActivityServiceTest {
+    
+    private final ActivityRepository activityRepository = mock(ActivityRepository.class);
+    private ActivityIndexer activityIndexer;
+    private ActivityService activityService;
+    
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SuggestionService suggestionService = mock(SuggestionService.class);
+        PopularityLeaderboard popularityLeaderboard = mock(PopularityLeaderboard.class);
+        ActivityReindexer activityReindexer = mock(ActivityReindexer.class);
+        DestinationCanonicalizer destinationCanonicalizer = mock(DestinationCanonicalizer.class);
+        when(destinationCanonicalizer.canonicalize(anyString())).then(returnsFirstArg());
+        activityIndexer = new ActivityIndexer(activityRepository, suggestionService, popularityLeaderboard,
+                activityReindexer, destinationCanonicalizer, meterRegistry, 500, 10000);
+        activityService = new ActivityService(activityRepository, mock(ActivityAggregator.class), activityIndexer,
+                suggestionService, popularityLeaderboard, mock(ActivitySnapshotService.class), activityReindexer,
+                destinationCanonicalizer, new QueryResultCache(meterRegistry, true, 2000, 60000, 100));
+        
+        Page<Activity> museums = new PageImpl<>(List.of(activity("museum-1")));
+        when(activityRepository.searchByQuery(anyString(), any(Pageable.class))).thenReturn(museums);
+        when(activityRepository.save(any(Activity.class))).then(returnsFirstArg());
+        when(activityRepository.deleteAllCopies("museum-1")).thenReturn(List.of(activity("museum-1")));
+    }
+    
+    @AfterEach
+    void stopIndexer() throws InterruptedException {
+        activityIndexer.shutdown();
+    }
+    
+    @Test
+    void bulkIndexingKeepsCachedQueryPages() throws InterruptedException {
+        activityService.searchActivitiesByQuery("museum", 0, 20);
+        
+        activityIndexer.index(List.of(activity("museum-2"), activity("park-1")));
+        activityIndexer.shutdown();
+        activityService.searchActivitiesByQuery("Museum ", 0, 20);
+        
+        verify(activityRepository).saveAll(anyCollection());
+        verify(activityRepository, times(1)).searchByQuery(eq("museum"), any(Pageable.class));
+    }
+    
+    @Test
+    void savingAnActivityDropsCachedQueryPages() {
+        activityService.searchActivitiesByQuery("museum", 0, 20);
+        
+        activityService.saveActivity(activity("museum-2"));
+        activityService.searchActivitiesByQuery("museum", 0, 20);
+        
+        verify(activityRepository, times(2)).searchByQuery(eq("museum"), any(Pageable.class));
+    }
+    
+    @Test
+    void deletingAnActivityDropsCachedQueryPages() {
+        activityService.searchActivitiesByQuery("museum", 0, 20);
+        
+        activityService.deleteActivity("museum-1");
+        activityService.searchActivitiesByQuery("museum", 0, 20);
+        
+        verify(activityRepository, times(2)).searchByQuery(eq("museum"), any(Pageable.class));
+    }
+    
+    @Test
+    void updatingInPlaceLooksUpOneShardAndDeletesNothing() {
+        when(activityRepository.findAllByIdInDestination(List.of("museum-1"), "Lisbon")).thenReturn(List.of(activity("museum-1")));
+        
+        activityService.saveActivity(activity("museum-1"));
+        
+        verify(activityRepository, never()).deleteStaleCopies(any());
+    }
+    
+    @Test
+    void movingAnActivityDeletesTheCopyUnderItsOldDestination() {
+        Activity old = activity("museum-1");
+        old.setDestination("Porto");
+        when(activityRepository.findAllByIdInDestination(List.of("museum-1"), "Lisbon")).thenReturn(List.of(old));
+        
+        Activity moved = activityService.saveActivity(activity("museum-1"));
+        
+        verify(activityRepository).deleteStaleCopies(List.of(moved));
+    }
+    
+    @Test
+    void looksUpRequestedIdsOnceAndReturnsThemInRequestOrder() {
+        when(activityRepository.findAllByIdOnAnyShard(anyCollection())).thenReturn(List.of(activity("c"), activity("a")));
+        
+        List<Activity> activities = activityService.getActivitiesByIds(Arrays.asList("c", "missing", "a", "c", null));
+        
+        assertThat(activities).extracting(Activity::getId).containsExactly("c", "a");
+        verify(activityRepository).findAllByIdOnAnyShard(new LinkedHashSet<>(List.of("c", "missing", "a")));
+    }
+    
+    @Test
+    void looksUpIdsOnTheDestinationsShardWhenGivenOne() {
+        when(activityRepository.findAllByIdInDestination(anyCollection(), eq("Lisbon"))).thenReturn(List.of(activity("a")));
+        
+        assertThat(activityService.getActivitiesByIds(List.of("a", "b"), "Lisbon")).extracting(Activity::getId).containsExactly("a");
+        assertThat(activityService.getActivitiesByIds(List.of())).isEmpty();
+        verify(activityRepository, never()).findAllByIdOnAnyShard(any());
+    }
+    
+    private static Activity activity(String id) {
+        Activity activity = new Activity();
+        activity.setId(id);
+        activity.setName(id);
+        activity.setDestination("Lisbon");
+        activity.setRating(4.5);
+        activity.setTags(List.of("museum"));
+        return activity;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,94 @@
+package com.aspot.activity.service;
+
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.model.ActivityCategory;
+import com.aspot.activity.model.Location;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeded recommendation candidate pools for tests and benchmarks. Names come from a small
+ * vocabulary and places cluster around a few centers, so exact, contained and nearby-name
+ * duplicates all turn up, as they do when several Places queries return the same places.
+ */
+final class CandidatePools {
+    
+    private static final String[] WORDS = {
+            "louvre", "museum", "eiffel", "tower", "garden", "park", "central", "market", "old", "town",
+            "cathedral", "bridge", "river", "gallery", "modern", "art", "palace", "royal", "square", "harbor"
+    };
+    private static final String[] TAGS = {
+            "museum", "art", "park", "outdoor", "food", "restaurant", "night_club", "shopping_mall",
+            "tourist_attraction", "point_of_interest", "history", "culture"
+    };
+    private static final String[] PRICES = {"Free", "$", "$$", "$$$", "$$$$", "Varies", null};
+    
+    private CandidatePools() {
+    }
+    
+    /**
+     * A pool of the given size; the same seed always gives the same pool
+     */
+    static List<Activity> pool(long seed, int size) {
+        Random random = new Random(seed);
+        int centers = 1 + size / 500;
+        double[][] centerPoints = new double[centers][];
+        for (int i = 0; i < centers; i++) {
+            centerPoints[i] = new double[]{random.nextDouble() * 170 - 85, random.nextDouble() * 360 - 180};
+        }
+        
+        List<Activity> pool = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Activity activity = new Activity();
+            activity.setId("candidate-" + seed + "-" + i);
+            activity.setName(name(random));
+            activity.setDestination("Test City");
+            activity.setRating(random.nextInt(10) < 9 ? 3.0 + random.nextInt(21) / 10.0 : null);
+            activity.setReviewCount(random.nextInt(10) < 9 ? random.nextInt(400) : null);
+            activity.setPriceRange(PRICES[random.nextInt(PRICES.length)]);
+            activity.setCategory(ActivityCategory.values()[random.nextInt(ActivityCategory.values().length)]);
+            activity.setIsPopular(random.nextInt(4) == 0);
+            activity.setTags(tags(random));
+            
+            if (random.nextInt(10) < 8) {
+                double[] center = centerPoints[random.nextInt(centers)];
+                Location location = new Location();
+                // Within a couple of kilometres, so many places fall within 100m of another
+                location.setLatitude(center[0] + (random.nextDouble() - 0.5) * 0.02);
+                location.setLongitude(center[1] + (random.nextDouble() - 0.5) * 0.02);
+                activity.setLocation(location);
+            }
+            pool.add(activity);
+        }
+        return pool;
+    }
+    
+    private static String name(Random random) {
+        int words = 1 + random.nextInt(3);
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                name.append(' ');
+            }
+            String word = WORDS[random.nextInt(WORDS.length)];
+            name.append(random.nextInt(3) == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word);
+        }
+        // Most names get a distinguishing suffix, so not everything collapses into a few entries
+        if (random.nextInt(4) != 0) {
+            name.append(' ').append(random.nextInt(1000));
+        }
+        return random.nextInt(10) == 0 ? " " + name + " " : name.toString();
+    }
+    
+    private static List<String> tags(Random random) {
+        List<String> tags = new ArrayList<>();
+        for (String tag : TAGS) {
+            if (random.nextInt(4) == 0) {
+                tags.add(random.nextInt(5) == 0 ? tag.toUpperCase() : tag);
+            }
+        }
+        return tags;
+    }
+}
\ No newline at end of file
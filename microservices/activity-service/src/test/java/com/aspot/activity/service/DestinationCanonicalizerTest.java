@@ -0,0 +1,100 @@
+package com.aspot.activity.service;
+
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.service.external.GooglePlacesService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DestinationCanonicalizerTest {
+    
+    private static final String REGISTRY_KEY = "destinations:canonical";
+    
+    private final Map<Object, Object> registry = new HashMap<>();
+    private final HashOperations<String, Object, Object> hashOperations = registry();
+    private final GooglePlacesService googlePlacesService = mock(GooglePlacesService.class);
+    
+    @Test
+    void keepsUnresolvedDestinationsOutOfTheRegistry() {
+        DestinationCanonicalizer canonicalizer = canonicalizer(false);
+        
+        assertThat(canonicalizer.canonicalize("  Atlantis   City ")).isEqualTo("Atlantis City");
+        assertThat(canonicalizer.canonicalize("atlantis city")).isEqualTo("Atlantis City");
+        
+        assertThat(registry).isEmpty();
+        verify(hashOperations, times(1)).get(REGISTRY_KEY, "atlantis city");
+    }
+    
+    @Test
+    void registersDestinationsOnceActivitiesAreIndexedUnderThem() {
+        DestinationCanonicalizer canonicalizer = canonicalizer(false);
+        canonicalizer.canonicalize("Lisbon");
+        
+        canonicalizer.registerIndexed(List.of(activity("Lisbon"), activity("Lisbon"), activity("nyc")));
+        
+        assertThat(registry).containsExactly(Map.entry("lisbon", "Lisbon"));
+        verify(hashOperations, times(1)).putIfAbsent(REGISTRY_KEY, "lisbon", "Lisbon");
+        assertThat(canonicalizer(false).canonicalize("LISBON")).isEqualTo("Lisbon");
+    }
+    
+    @Test
+    void registersGeocodedDestinationsOnly() {
+        when(googlePlacesService.findDestinationAddress("Lisboa")).thenReturn("Lisbon, Portugal");
+        DestinationCanonicalizer canonicalizer = canonicalizer(true);
+        
+        assertThat(canonicalizer.canonicalize("Lisboa")).isEqualTo("Lisbon, Portugal");
+        assertThat(canonicalizer.canonicalize("Nowhere Town")).isEqualTo("Nowhere Town");
+        
+        assertThat(registry).containsExactly(Map.entry("lisboa", "Lisbon, Portugal"));
+    }
+    
+    @Test
+    void usesTheNameAnotherInstanceRegisteredFirst() {
+        registry.put("paris", "Paris");
+        DestinationCanonicalizer canonicalizer = canonicalizer(true);
+        
+        assertThat(canonicalizer.canonicalize("PARIS ")).isEqualTo("Paris");
+        canonicalizer.registerIndexed(List.of(activity("paris")));
+        
+        verify(googlePlacesService, never()).findDestinationAddress(anyString());
+        verify(hashOperations, never()).putIfAbsent(any(), any(), any());
+    }
+    
+    private DestinationCanonicalizer canonicalizer(boolean geocode) {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        return new DestinationCanonicalizer(redisTemplate, googlePlacesService, new SimpleMeterRegistry(),
+                "nyc=New York", geocode, 100);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private HashOperations<String, Object, Object> registry() {
+        HashOperations<String, Object, Object> operations = mock(HashOperations.class);
+        when(operations.get(eq(REGISTRY_KEY), any())).then(invocation -> registry.get(invocation.getArgument(1)));
+        when(operations.putIfAbsent(eq(REGISTRY_KEY), any(), any())).then(invocation ->
+                registry.putIfAbsent(invocation.getArgument(1), invocation.getArgument(2)) == null);
+        return operations;
+    }
+    
+    private static Activity activity(String destination) {
+        Activity activity = new Activity();
+        activity.setId("a");
+        activity.setDestination(destination);
+        return activity;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.aspot.activity.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DestinationTrafficTrackerTest {
+    
+    private final DestinationTrafficTracker tracker = new DestinationTrafficTracker();
+    
+    @Test
+    void replacesTheLeastRequestedDestinationOnceFull() {
+        ReflectionTestUtils.setField(tracker, "maxTrackedDestinations", 2);
+        record("Lisbon", 3);
+        record("Kyoto", 1);
+        
+        record("Porto", 2);
+        
+        assertThat(tracker.topDestinations(10)).containsExactly("Lisbon", "Porto");
+    }
+    
+    @Test
+    void halvesCountsAndForgetsDestinationsThatReachZero() {
+        ReflectionTestUtils.setField(tracker, "maxTrackedDestinations", 10);
+        record("Lisbon", 4);
+        record("Kyoto", 1);
+        record("Porto", 3);
+        
+        tracker.decay();
+        record("Porto", 2);
+        
+        assertThat(tracker.topDestinations(10)).containsExactly("Porto", "Lisbon");
+    }
+    
+    private void record(String destination, int times) {
+        for (int i = 0; i < times; i++) {
+            tracker.record(destination);
+        }
+    }
+}
\ No newline at end of file
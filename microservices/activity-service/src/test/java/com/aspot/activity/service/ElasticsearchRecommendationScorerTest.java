@@ -0,0 +1,63 @@
+package com.aspot.activity.service;
+
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.model.UserPreferences;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ElasticsearchRecommendationScorerTest {
+    
+    private static final List<List<String>> INTERESTS = Arrays.asList(
+            null,
+            List.of(),
+            List.of("museum", "art"),
+            List.of("food", "outdoor", "culture"),
+            List.of("Art", "NIGHTLIFE", "park"));
+    
+    private static final List<String> BUDGETS = Arrays.asList(null, "BUDGET", "MID_RANGE", "LUXURY", "unknown");
+    
+    @Test
+    void scriptScoresMatchTheJvmScores() {
+        List<Activity> candidates = CandidatePools.pool(11, 2000);
+        candidates.get(0).setRating(null);
+        candidates.get(1).setReviewCount(null);
+        candidates.get(2).setCategory(null);
+        candidates.get(3).setTags(null);
+        candidates.get(4).setPriceRange(null);
+        candidates.get(5).setIsPopular(null);
+        candidates.get(6).setPriceRange("Varies");
+        
+        for (List<String> interests : INTERESTS) {
+            for (String budget : BUDGETS) {
+                PreferenceMatcher matcher = PreferenceMatcher.compile(preferences(interests, budget));
+                Map<String, Object> params = matcher.toScriptParams();
+                
+                for (Activity activity : candidates) {
+                    assertThat((double) PainlessScoreScript.score(params, activity))
+                            .as("%s with interests %s and budget %s", activity.getName(), interests, budget)
+                            .isCloseTo(matcher.score(activity), within(1e-4));
+                }
+            }
+        }
+    }
+    
+    @Test
+    void scriptUsesTheJvmWeights() {
+        assertThat(ElasticsearchRecommendationScorer.SCORE_SCRIPT)
+                .contains("/ 5.0) * 30.0", "/ 100.0, 1.0) * 10.0", "interest += 0.7", "interest += 0.1",
+                        "interest * 40.0", "budget * 15.0", "score += 5.0");
+    }
+    
+    private static UserPreferences preferences(List<String> interests, String budget) {
+        UserPreferences preferences = new UserPreferences();
+        preferences.setInterests(interests);
+        preferences.setBudgetLevel(budget);
+        return preferences;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,195 @@
+package com.aspot.activity.service;
+
+import org.luaj.vm2.Globals;
+import org.luaj.vm2.LuaTable;
+import org.luaj.vm2.LuaValue;
+import org.luaj.vm2.Varargs;
+import org.luaj.vm2.lib.VarArgFunction;
+import org.luaj.vm2.lib.jse.JsePlatform;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Sorted sets, hashes and strings in memory, with Lua scripts run by LuaJ against a redis.call
+ * that supports the commands the leaderboard scripts use. Scripts whose keys have different hash
+ * tags fail with CROSSSLOT, as they would on Redis Cluster.
+ */
+class InMemoryRedis {
+    
+    private final Map<String, Map<String, Double>> sortedSets = new HashMap<>();
+    private final Map<String, Map<String, String>> hashes = new HashMap<>();
+    private final Map<String, String> strings = new HashMap<>();
+    
+    /**
+     * A StringRedisTemplate mock whose scripts, key checks and reverse ranges run against this
+     */
+    @SuppressWarnings("unchecked")
+    StringRedisTemplate template() {
+        StringRedisTemplate template = mock(StringRedisTemplate.class);
+        when(template.execute(any(RedisScript.class), anyList(), any(Object[].class))).then(invocation -> {
+            RedisScript<?> script = invocation.getArgument(0);
+            return eval(script.getScriptAsString(), invocation.getArgument(1), (Object[]) invocation.getRawArguments()[2]);
+        });
+        when(template.hasKey(anyString())).then(invocation -> exists(invocation.getArgument(0)));
+        ZSetOperations<String, String> zSetOperations = mock(ZSetOperations.class);
+        when(zSetOperations.reverseRange(anyString(), anyLong(), anyLong())).then(invocation ->
+                reverseRange(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2)));
+        when(template.opsForZSet()).thenReturn(zSetOperations);
+        return template;
+    }
+    
+    Map<String, Double> sortedSet(String key) {
+        return sortedSets.getOrDefault(key, Map.of());
+    }
+    
+    Map<String, String> hash(String key) {
+        return hashes.getOrDefault(key, Map.of());
+    }
+    
+    boolean exists(String key) {
+        return sortedSets.containsKey(key) || hashes.containsKey(key) || strings.containsKey(key);
+    }
+    
+    /**
+     * Members from highest to lowest score, ties in reverse lexicographic order like ZREVRANGE
+     */
+    Set<String> reverseRange(String key, long start, long end) {
+        return sortedSet(key).entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue()
+                        .thenComparing(Map.Entry.comparingByKey())
+                        .reversed())
+                .skip(start)
+                .limit(Math.max(0, end - start + 1))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+    
+    Long eval(String source, List<String> keys, Object... args) {
+        Set<String> slots = keys.stream().map(InMemoryRedis::hashTag).collect(Collectors.toSet());
+        if (slots.size() > 1) {
+            throw new IllegalStateException("CROSSSLOT Keys in request don't hash to the same slot: " + keys);
+        }
+        
+        Globals globals = JsePlatform.standardGlobals();
+        LuaTable redis = new LuaTable();
+        redis.set("call", new VarArgFunction() {
+            @Override
+            public Varargs invoke(Varargs call) {
+                return command(call);
+            }
+        });
+        globals.set("redis", redis);
+        globals.set("KEYS", table(keys.toArray()));
+        globals.set("ARGV", table(args));
+        LuaValue result = globals.load(source).call();
+        // Redis truncates Lua numbers to integer replies
+        return result.isnumber() ? (long) result.todouble() : null;
+    }
+    
+    private LuaValue command(Varargs call) {
+        String command = call.arg1().tojstring().toUpperCase(Locale.ROOT);
+        String key = call.arg(2).tojstring();
+        switch (command) {
+            case "ZADD" -> {
+                Double previous = sortedSets.computeIfAbsent(key, k -> new HashMap<>()).put(call.arg(4).tojstring(), number(call.arg(3)));
+                return LuaValue.valueOf(previous == null ? 1 : 0);
+            }
+            case "ZINCRBY" -> {
+                double score = sortedSets.computeIfAbsent(key, k -> new HashMap<>()).merge(call.arg(4).tojstring(), number(call.arg(3)), Double::sum);
+                return LuaValue.valueOf(format(score));
+            }
+            case "ZSCORE" -> {
+                Double score = sortedSet(key).get(call.arg(3).tojstring());
+                return score != null ? LuaValue.valueOf(format(score)) : LuaValue.FALSE;
+            }
+            case "ZREM" -> {
+                return LuaValue.valueOf(remove(sortedSets, key, call.arg(3).tojstring()) ? 1 : 0);
+            }
+            case "HGET" -> {
+                String value = hash(key).get(call.arg(3).tojstring());
+                return value != null ? LuaValue.valueOf(value) : LuaValue.FALSE;
+            }
+            case "HSET" -> {
+                String previous = hashes.computeIfAbsent(key, k -> new HashMap<>()).put(call.arg(3).tojstring(), call.arg(4).tojstring());
+                return LuaValue.valueOf(previous == null ? 1 : 0);
+            }
+            case "HINCRBY" -> {
+                long value = Long.parseLong(hashes.computeIfAbsent(key, k -> new HashMap<>())
+                        .merge(call.arg(3).tojstring(), call.arg(4).tojstring(), (a, b) -> Long.toString(Long.parseLong(a) + Long.parseLong(b))));
+                return LuaValue.valueOf(value);
+            }
+            case "HDEL" -> {
+                return LuaValue.valueOf(remove(hashes, key, call.arg(3).tojstring()) ? 1 : 0);
+            }
+            case "EXISTS" -> {
+                return LuaValue.valueOf(exists(key) ? 1 : 0);
+            }
+            case "DEL" -> {
+                int deleted = 0;
+                for (int i = 2; i <= call.narg(); i++) {
+                    String deletedKey = call.arg(i).tojstring();
+                    deleted += exists(deletedKey) ? 1 : 0;
+                    sortedSets.remove(deletedKey);
+                    hashes.remove(deletedKey);
+                    strings.remove(deletedKey);
+                }
+                return LuaValue.valueOf(deleted);
+            }
+            case "SET" -> {
+                strings.put(key, call.arg(3).tojstring());
+                return LuaValue.tableOf(new LuaValue[]{LuaValue.valueOf("ok"), LuaValue.valueOf("OK")});
+            }
+            default -> throw new UnsupportedOperationException(command);
+        }
+    }
+    
+    private static <V> boolean remove(Map<String, Map<String, V>> structures, String key, String field) {
+        Map<String, V> structure = structures.get(key);
+        if (structure == null || structure.remove(field) == null) {
+            return false;
+        }
+        if (structure.isEmpty()) {
+            // Redis drops a sorted set or hash with its last member
+            structures.remove(key);
+        }
+        return true;
+    }
+    
+    private static double number(LuaValue value) {
+        return Double.parseDouble(value.tojstring());
+    }
+    
+    private static String format(double score) {
+        return score == Math.rint(score) ? Long.toString((long) score) : Double.toString(score);
+    }
+    
+    private static LuaTable table(Object[] values) {
+        LuaTable table = new LuaTable();
+        for (int i = 0; i < values.length; i++) {
+            table.set(i + 1, LuaValue.valueOf(values[i].toString()));
+        }
+        return table;
+    }
+    
+    private static String hashTag(String key) {
+        int open = key.indexOf('{');
+        int close = open >= 0 ? key.indexOf('}', open + 1) : -1;
+        return close > open + 1 ? key.substring(open + 1, close) : key;
+    }
+}
\ No newline at end of file
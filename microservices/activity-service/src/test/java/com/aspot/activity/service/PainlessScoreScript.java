@@ -0,0 +1,94 @@
+package com.aspot.activity.service;
+
+import com.aspot.activity.model.Activity;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * A Java transliteration of ElasticsearchRecommendationScorer.SCORE_SCRIPT, reading an activity
+ * the way the script sees it: as doc values, where keyword lists come back sorted and without
+ * duplicates, and with params that have been through JSON. Statements keep the script's order
+ * so the two can be compared line by line.
+ */
+final class PainlessScoreScript {
+    
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    
+    private PainlessScoreScript() {
+    }
+    
+    /**
+     * The score Elasticsearch would return for the activity, which it keeps as a float
+     */
+    @SuppressWarnings("unchecked")
+    static float score(Map<String, Object> scriptParams, Activity activity) {
+        Map<String, Object> params = OBJECT_MAPPER.convertValue(scriptParams, Map.class);
+        Map<String, List<Object>> doc = docValues(activity);
+        
+        double score = 0.0;
+        if (doc.get("rating").size() != 0) {
+            score += ((Double) doc.get("rating").get(0) / 5.0) * 30.0;
+        }
+        if (doc.get("reviewCount").size() != 0) {
+            score += Math.min((Long) doc.get("reviewCount").get(0) / 100.0, 1.0) * 10.0;
+        }
+        double interest = 0.5;
+        if ((Boolean) params.get("hasInterests")) {
+            interest = 0.0;
+            if (doc.get("category").size() != 0 && ((List<String>) params.get("categories")).contains(doc.get("category").get(0))) {
+                interest += 0.7;
+            }
+            for (Object tag : doc.get("tags")) {
+                String lowerCaseTag = ((String) tag).toLowerCase();
+                for (String i : (List<String>) params.get("interests")) {
+                    if (lowerCaseTag.contains(i) || i.contains(lowerCaseTag)) {
+                        interest += 0.1;
+                    }
+                }
+            }
+            interest = Math.min(interest, 1.0);
+        }
+        score += interest * 40.0;
+        double budget = 0.5;
+        if (doc.get("priceRange").size() != 0 && (Boolean) params.get("hasBudget")) {
+            String price = (String) doc.get("priceRange").get(0);
+            int band = 5;
+            if (price.equals("Free")) {
+                band = 0;
+            } else if (price.length() > 0 && price.length() < 5) {
+                band = price.length();
+                for (int c = 0; c < price.length(); c++) {
+                    if (price.charAt(c) != '$') {
+                        band = 5;
+                        break;
+                    }
+                }
+            }
+            budget = ((List<Number>) params.get("budgetWeights")).get(band).doubleValue();
+        }
+        score += budget * 15.0;
+        if (doc.get("isPopular").size() != 0 && (Boolean) doc.get("isPopular").get(0)) {
+            score += 5.0;
+        }
+        return (float) score;
+    }
+    
+    private static Map<String, List<Object>> docValues(Activity activity) {
+        List<Object> tags = activity.getTags() != null ? new ArrayList<>(new TreeSet<>(activity.getTags())) : List.of();
+        return Map.of(
+                "rating", single(activity.getRating()),
+                "reviewCount", single(activity.getReviewCount() != null ? activity.getReviewCount().longValue() : null),
+                "category", single(activity.getCategory() != null ? activity.getCategory().name() : null),
+                "tags", tags,
+                "priceRange", single(activity.getPriceRange()),
+                "isPopular", single(activity.getIsPopular()));
+    }
+    
+    private static List<Object> single(Object value) {
+        return value != null ? List.of(value) : List.of();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.aspot.activity.service;
+
+import com.aspot.activity.model.Activity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The pairwise duplicate removal RecommendationService used before ActivityDeduplicator, kept as
+ * the reference its results are checked against and the baseline it is benchmarked against
+ */
+final class PairwiseDeduplication {
+    
+    private PairwiseDeduplication() {
+    }
+    
+    static List<Activity> removeDuplicates(List<Activity> activities) {
+        List<Activity> uniqueActivities = new ArrayList<>();
+        
+        for (Activity activity : activities) {
+            boolean isDuplicate = false;
+            
+            for (Activity existing : uniqueActivities) {
+                if (isSimilarActivity(activity, existing)) {
+                    isDuplicate = true;
+                    // Keep the one with higher rating
+                    if (activity.getRating() != null && existing.getRating() != null &&
+                        activity.getRating() > existing.getRating()) {
+                        uniqueActivities.remove(existing);
+                        uniqueActivities.add(activity);
+                    }
+                    break;
+                }
+            }
+            
+            if (!isDuplicate) {
+                uniqueActivities.add(activity);
+            }
+        }
+        
+        return uniqueActivities;
+    }
+    
+    private static boolean isSimilarActivity(Activity a1, Activity a2) {
+        String name1 = a1.getName().toLowerCase().trim();
+        String name2 = a2.getName().toLowerCase().trim();
+        
+        if (name1.equals(name2)) {
+            return true;
+        }
+        
+        if (name1.length() > 5 && name2.length() > 5) {
+            String shorter = name1.length() < name2.length() ? name1 : name2;
+            String longer = name1.length() >= name2.length() ? name1 : name2;
+            
+            if (longer.contains(shorter)) {
+                return true;
+            }
+        }
+        
+        if (a1.getLocation() != null && a2.getLocation() != null &&
+            a1.getLocation().getLatitude() != null && a1.getLocation().getLongitude() != null &&
+            a2.getLocation().getLatitude() != null && a2.getLocation().getLongitude() != null) {
+            
+            double distance = calculateDistance(
+                a1.getLocation().getLatitude(), a1.getLocation().getLongitude(),
+                a2.getLocation().getLatitude(), a2.getLocation().getLongitude()
+            );
+            
+            if (distance < 0.1 && (name1.contains(name2.split(" ")[0]) || name2.contains(name1.split(" ")[0]))) {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    private static double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
+        final int R = 6371;
+        
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        
+        return R * c;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,109 @@
+package com.aspot.activity.service;
+
+import com.aspot.activity.model.Activity;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class PopularityLeaderboardTest {
+    
+    private final InMemoryRedis redis = new InMemoryRedis();
+    private final PopularityLeaderboard leaderboard = new PopularityLeaderboard(redis.template(), 10.0);
+    
+    @Test
+    void isNotReadUntilSeeded() {
+        leaderboard.recordIndexed(List.of(popular("a", 4.5, 1000)));
+        
+        assertThat(leaderboard.getTopActivityIds("Lisbon", 0, 10)).isEmpty();
+    }
+    
+    @Test
+    void pagesThroughSeededActivitiesByQuality() {
+        leaderboard.seed("Lisbon", List.of(
+                popular("c", 5.0, 10),
+                popular("a", 4.5, 1000),
+                notPopular("e"),
+                popular("d", 3.0, 50),
+                popular("b", 4.0, 100)));
+        
+        assertThat(leaderboard.getTopActivityIds("Lisbon", 0, 2)).containsExactly("a", "b");
+        assertThat(leaderboard.getTopActivityIds("lisbon", 1, 2)).containsExactly("c", "d");
+        assertThat(leaderboard.getTopActivityIds("LISBON", 2, 2)).isEmpty();
+        assertThat(redis.sortedSet("leaderboard:{lisbon}:popular").get("a")).isCloseTo(4.5 * Math.log1p(1000), within(1e-6));
+    }
+    
+    @Test
+    void seedingReplacesWhatIndexingLeftAndOnlyHappensOnce() {
+        leaderboard.recordIndexed(List.of(popular("stale", 5.0, 5000)));
+        leaderboard.seed("Lisbon", List.of(popular("a", 4.5, 1000)));
+        leaderboard.seed("Lisbon", List.of(popular("b", 5.0, 5000)));
+        
+        assertThat(leaderboard.getTopActivityIds("Lisbon", 0, 10)).containsExactly("a");
+    }
+    
+    @Test
+    void keepsScheduleCountsAcrossQualityUpdates() {
+        leaderboard.seed("Lisbon", List.of(popular("a", 4.5, 1000), popular("b", 4.0, 100)));
+        leaderboard.recordScheduled("Lisbon", List.of("b", "b"));
+        
+        assertThat(leaderboard.getTopActivityIds("Lisbon", 0, 10)).containsExactly("b", "a");
+        
+        leaderboard.recordIndexed(List.of(popular("b", 1.0, 1)));
+        assertThat(redis.sortedSet("leaderboard:{lisbon}:popular").get("b")).isCloseTo(Math.log1p(1) + 20, within(1e-6));
+    }
+    
+    @Test
+    void startsActivitiesThatBecomePopularWithTheirScheduleCount() {
+        leaderboard.seed("Lisbon", List.of(popular("a", 4.5, 1000)));
+        leaderboard.recordScheduled("Lisbon", List.of("b", "b", "b", "b"));
+        assertThat(leaderboard.getTopActivityIds("Lisbon", 0, 10)).containsExactly("a");
+        
+        leaderboard.recordIndexed(List.of(popular("b", 0, 0)));
+        
+        assertThat(leaderboard.getTopActivityIds("Lisbon", 0, 10)).containsExactly("b", "a");
+        assertThat(redis.sortedSet("leaderboard:{lisbon}:popular").get("b")).isEqualTo(40.0);
+    }
+    
+    @Test
+    void takesActivitiesNoLongerPopularOrRemovedOffTheLeaderboard() {
+        leaderboard.seed("Lisbon", List.of(popular("a", 4.5, 1000), popular("b", 4.0, 100), popular("c", 5.0, 10)));
+        leaderboard.recordScheduled("Lisbon", List.of("c"));
+        
+        leaderboard.recordIndexed(List.of(notPopular("a")));
+        leaderboard.remove(popular("c", 5.0, 10));
+        
+        assertThat(leaderboard.getTopActivityIds("Lisbon", 0, 1)).containsExactly("b");
+        assertThat(leaderboard.getTopActivityIds("Lisbon", 1, 1)).isEmpty();
+        assertThat(redis.hash("leaderboard:{lisbon}:quality")).containsOnlyKeys("b");
+        assertThat(redis.hash("leaderboard:{lisbon}:scheduled")).isEmpty();
+    }
+    
+    @Test
+    void keepsEachDestinationsKeysInOneClusterSlot() {
+        leaderboard.seed("Lisbon", List.of(popular("a", 4.5, 1000)));
+        
+        assertThat(redis.exists("leaderboard:{lisbon}:seeded")).isTrue();
+        assertThatThrownBy(() -> redis.eval("return 1", List.of("leaderboard:{lisbon}:popular", "leaderboard:{porto}:popular")))
+                .hasMessageStartingWith("CROSSSLOT");
+    }
+    
+    private static Activity popular(String id, double rating, int reviewCount) {
+        Activity activity = notPopular(id);
+        activity.setIsPopular(true);
+        activity.setRating(rating);
+        activity.setReviewCount(reviewCount);
+        return activity;
+    }
+    
+    private static Activity notPopular(String id) {
+        Activity activity = new Activity();
+        activity.setId(id);
+        activity.setDestination("Lisbon");
+        activity.setIsPopular(false);
+        return activity;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.aspot.activity.service;
+
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.model.UserPreferences;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scoring a candidate pool against one user's preferences: string comparison per tag and
+ * interest pair against a matcher compiled once for the request. Run like
+ * {@link ActivityDeduplicatorBenchmark}, adding {@code -prof gc} to see allocation per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PreferenceMatcherBenchmark {
+    
+    @Param({"70", "5000"})
+    int candidates;
+    
+    List<Activity> pool;
+    UserPreferences preferences;
+    
+    @Setup
+    public void setUp() {
+        pool = CandidatePools.pool(42, candidates);
+        preferences = new UserPreferences();
+        preferences.setInterests(List.of("museum", "art", "food", "outdoor", "history"));
+        preferences.setBudgetLevel("MID_RANGE");
+    }
+    
+    @Benchmark
+    public double stringComparison() {
+        double total = 0;
+        for (Activity activity : pool) {
+            total += StringComparisonScoring.calculateScore(activity, preferences);
+        }
+        return total;
+    }
+    
+    @Benchmark
+    public double compiledMatcher() {
+        // Compiled per request, as RecommendationService does
+        PreferenceMatcher matcher = PreferenceMatcher.compile(preferences);
+        double total = 0;
+        for (Activity activity : pool) {
+            total += matcher.score(activity);
+        }
+        return total;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,72 @@
+package com.aspot.activity.service;
+
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.model.ActivityCategory;
+import com.aspot.activity.model.UserPreferences;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PreferenceMatcherTest {
+    
+    private static final List<List<String>> INTERESTS = Arrays.asList(
+            null,
+            List.of(),
+            List.of("museum", "art"),
+            List.of("food", "outdoor", "culture"),
+            List.of("Art", "NIGHTLIFE", "park"),
+            List.of("a", "point_of_interest_and_more", "shopping"));
+    
+    private static final List<String> BUDGETS = Arrays.asList(null, "BUDGET", "MID_RANGE", "LUXURY", "unknown");
+    
+    @Test
+    void scoresLikeTheStringComparingScorer() {
+        List<Activity> candidates = CandidatePools.pool(7, 2000);
+        
+        for (List<String> interests : INTERESTS) {
+            for (String budget : BUDGETS) {
+                UserPreferences preferences = preferences(interests, budget);
+                PreferenceMatcher matcher = PreferenceMatcher.compile(preferences);
+                
+                for (Activity activity : candidates) {
+                    assertThat(matcher.score(activity))
+                            .as("%s with interests %s and budget %s", activity.getName(), interests, budget)
+                            .isEqualTo(StringComparisonScoring.calculateScore(activity, preferences));
+                }
+            }
+        }
+    }
+    
+    @Test
+    void capsTheInterestMatchAtOne() {
+        Activity activity = new Activity();
+        activity.setCategory(ActivityCategory.CULTURE);
+        activity.setTags(new ArrayList<>(List.of("art", "art gallery", "modern art", "street art")));
+        
+        PreferenceMatcher matcher = PreferenceMatcher.compile(preferences(List.of("culture", "art", "gallery"), null));
+        
+        assertThat(matcher.interestMatch(activity)).isEqualTo(1.0);
+    }
+    
+    @Test
+    void readsPriceRangesOutsideTheKnownBandsAsOther() {
+        PreferenceMatcher matcher = PreferenceMatcher.compile(preferences(null, "LUXURY"));
+        
+        for (String priceRange : List.of("", "$$$$$", "Varies", "$x", "free")) {
+            Activity activity = new Activity();
+            activity.setPriceRange(priceRange);
+            assertThat(matcher.budgetMatch(activity)).as(priceRange).isEqualTo(0.5);
+        }
+    }
+    
+    private static UserPreferences preferences(List<String> interests, String budget) {
+        UserPreferences preferences = new UserPreferences();
+        preferences.setInterests(interests);
+        preferences.setBudgetLevel(budget);
+        return preferences;
+    }
+}
\ No newline at end of file
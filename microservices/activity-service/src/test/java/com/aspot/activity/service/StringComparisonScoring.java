@@ -0,0 +1,107 @@
+package com.aspot.activity.service;
+
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.model.BudgetLevel;
+import com.aspot.activity.model.UserPreferences;
+
+import java.util.List;
+
+/**
+ * The scoring RecommendationService used before PreferenceMatcher, comparing strings for every
+ * tag and interest pair. Kept as the reference the matcher's scores are checked against and the
+ * baseline it is benchmarked against.
+ */
+final class StringComparisonScoring {
+    
+    private StringComparisonScoring() {
+    }
+    
+    static double calculateScore(Activity activity, UserPreferences preferences) {
+        double score = 0.0;
+        
+        if (activity.getRating() != null) {
+            score += (activity.getRating() / 5.0) * 30.0;
+        }
+        
+        if (activity.getReviewCount() != null) {
+            double reviewScore = Math.min(activity.getReviewCount() / 100.0, 1.0);
+            score += reviewScore * 10.0;
+        }
+        
+        double interestScore = calculateInterestMatch(activity, preferences.getInterests());
+        score += interestScore * 40.0;
+        
+        double budgetScore = calculateBudgetMatch(activity, preferences.getBudgetLevelEnum());
+        score += budgetScore * 15.0;
+        
+        if (activity.getIsPopular() != null && activity.getIsPopular()) {
+            score += 5.0;
+        }
+        
+        return score;
+    }
+    
+    private static double calculateInterestMatch(Activity activity, List<String> userInterests) {
+        if (userInterests == null || userInterests.isEmpty()) {
+            return 0.5;
+        }
+        
+        double matchScore = 0.0;
+        
+        if (activity.getCategory() != null) {
+            String categoryName = activity.getCategory().name().toLowerCase();
+            if (userInterests.contains(categoryName)) {
+                matchScore += 0.7;
+            }
+        }
+        
+        if (activity.getTags() != null) {
+            for (String tag : activity.getTags()) {
+                for (String interest : userInterests) {
+                    if (tag.toLowerCase().contains(interest.toLowerCase()) ||
+                        interest.toLowerCase().contains(tag.toLowerCase())) {
+                        matchScore += 0.1;
+                    }
+                }
+            }
+        }
+        
+        return Math.min(matchScore, 1.0);
+    }
+    
+    private static double calculateBudgetMatch(Activity activity, BudgetLevel budgetLevel) {
+        if (activity.getPriceRange() == null || budgetLevel == null) {
+            return 0.5;
+        }
+        
+        String priceRange = activity.getPriceRange();
+        
+        if (budgetLevel == BudgetLevel.BUDGET) {
+            return switch (priceRange) {
+                case "Free" -> 1.0;
+                case "$" -> 0.6;
+                case "$$" -> 0.3;
+                default -> 0.2;
+            };
+        } else if (budgetLevel == BudgetLevel.MID_RANGE) {
+            return switch (priceRange) {
+                case "Free" -> 0.8;
+                case "$" -> 1.0;
+                case "$$" -> 0.9;
+                case "$$$" -> 0.7;
+                default -> 0.5;
+            };
+        } else if (budgetLevel == BudgetLevel.LUXURY) {
+            return switch (priceRange) {
+                case "Free" -> 0.4;
+                case "$" -> 0.6;
+                case "$$" -> 0.8;
+                case "$$$" -> 1.0;
+                case "$$$$" -> 1.0;
+                default -> 0.5;
+            };
+        }
+        
+        return 0.5;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.aspot.activity.service;
+
+import com.aspot.activity.model.Suggestion;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SuggestionTrieTest {
+    
+    @Test
+    void ranksMatchesByWeightAndLeavesOutOtherPrefixes() {
+        SuggestionTrie trie = new SuggestionTrie(10);
+        trie.addActivity("a", "Tower Bridge", "London", 2);
+        trie.addActivity("b", "Tower of London", "London", 5);
+        trie.addActivity("c", "Eiffel Tower", "Paris", 9);
+        trie.addActivity("d", "Towpath Walk", "Bath", 1);
+        trie.addActivity("e", "Louvre", "Paris", 7);
+        
+        assertThat(texts(trie.suggest("tower", 10))).containsExactly("Eiffel Tower", "Tower of London", "Tower Bridge");
+        assertThat(texts(trie.suggest("tow", 10))).containsExactly("Eiffel Tower", "Tower of London", "Tower Bridge", "Towpath Walk");
+        assertThat(texts(trie.suggest("tow", 2))).containsExactly("Eiffel Tower", "Tower of London");
+        assertThat(trie.suggest("bridge tower", 10)).isEmpty();
+    }
+    
+    @Test
+    void matchesAcrossCaseAccentsAndPunctuation() {
+        SuggestionTrie trie = new SuggestionTrie(10);
+        trie.addActivity("a", "Musée d'Orsay", "Paris", 1);
+        
+        assertThat(texts(trie.suggest("MUSEE", 10))).containsExactly("Musée d'Orsay");
+        assertThat(texts(trie.suggest("d orsay", 10))).containsExactly("Musée d'Orsay");
+        assertThat(trie.suggest("  ", 10)).isEmpty();
+    }
+    
+    @Test
+    void ranksDestinationsByTheirActivityCount() {
+        SuggestionTrie trie = new SuggestionTrie(10);
+        trie.addActivity("a", "Harbour Walk", "Lima", 0);
+        trie.addActivity("b", "Museum", "Lisbon", 0);
+        trie.addActivity("c", "Tram 28", "Lisbon", 0);
+        trie.addActivity("b", "Museum of Art", "Lisbon", 0);
+        
+        List<Suggestion> suggestions = trie.suggest("li", 10);
+        
+        assertThat(suggestions).extracting(Suggestion::getType).containsOnly(Suggestion.Type.DESTINATION);
+        assertThat(texts(suggestions)).containsExactly("Lisbon", "Lima");
+        assertThat(trie.size()).isEqualTo(5);
+    }
+    
+    @Test
+    void keepsOnlyTheTopEntriesPerNodeAndRefillsFromRemovedOnes() {
+        SuggestionTrie trie = new SuggestionTrie(2);
+        trie.addActivity("a", "Park A", "X", 1);
+        trie.addActivity("b", "Park B", "X", 3);
+        trie.addActivity("c", "Park C", "X", 2);
+        
+        assertThat(texts(trie.suggest("park", 10))).containsExactly("Park B", "Park C");
+        
+        trie.removeActivity("b");
+        assertThat(texts(trie.suggest("park", 10))).containsExactly("Park C");
+        
+        trie.addActivity("d", "Park D", "X", 0.5);
+        assertThat(texts(trie.suggest("park", 10))).containsExactly("Park C", "Park D");
+    }
+    
+    @Test
+    void replacesAnEarlierVersionOfAnActivity() {
+        SuggestionTrie trie = new SuggestionTrie(10);
+        trie.addActivity("a", "Old Name", "X", 1);
+        trie.addActivity("a", "New Name", "X", 1);
+        
+        assertThat(texts(trie.suggest("old", 10))).isEmpty();
+        assertThat(texts(trie.suggest("name", 10))).containsExactly("New Name");
+    }
+    
+    @Test
+    void checksPrefixesLongerThanTheTrieDepthAgainstTheText() {
+        SuggestionTrie trie = new SuggestionTrie(10);
+        trie.addActivity("a", "Supercalifragilistic Expialidocious Tour", "X", 1);
+        trie.addActivity("b", "Supercalifragilistic Expialidocious Walk", "X", 2);
+        
+        assertThat(texts(trie.suggest("supercalifragilistic expialidocious t", 10)))
+                .containsExactly("Supercalifragilistic Expialidocious Tour");
+    }
+    
+    private static List<String> texts(List<Suggestion> suggestions) {
+        return suggestions.stream().map(Suggestion::getText).toList();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.aspot.activity.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class TrendingServiceTest {
+    
+    private final ActivityService activityService = mock(ActivityService.class);
+    private final TrendingService trendingService = new TrendingService(activityService, mock(PopularityLeaderboard.class),
+            2, 4, 256, 8, 604800000L);
+    
+    @Test
+    void dropsTheQuietestDestinationForANewOne() {
+        trendingService.recordScheduled("Lisbon", List.of("a", "b", "c"));
+        trendingService.recordScheduled("Kyoto", List.of("d"));
+        trendingService.recordScheduled("Porto", List.of("e", "f"));
+        
+        trendingService.getTrendingActivities("Kyoto", 10);
+        verify(activityService, never()).getActivitiesByIds(any(), anyString());
+        
+        trendingService.getTrendingActivities("lisbon", 10);
+        verify(activityService).getActivitiesByIds(List.of("a", "b", "c"), "lisbon");
+        trendingService.getTrendingActivities("Porto", 10);
+        verify(activityService).getActivitiesByIds(List.of("e", "f"), "Porto");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,100 @@
+package com.aspot.activity.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class TrendingSketchTest {
+    
+    private static final long HALF_LIFE = 1000;
+    
+    @Test
+    void countsEventsAtFullWeightWhenTheyHappen() {
+        TrendingSketch sketch = new TrendingSketch(4, 1024, 8, HALF_LIFE, 0);
+        sketch.record("a", 0);
+        sketch.record("a", 0);
+        sketch.record("b", 0);
+        
+        assertThat(sketch.top(10, 0)).containsExactly(Map.entry("a", 2.0), Map.entry("b", 1.0));
+        assertThat(sketch.totalWeight(0)).isCloseTo(3.0, within(1e-6));
+    }
+    
+    @Test
+    void halvesCountsEveryHalfLife() {
+        TrendingSketch sketch = new TrendingSketch(4, 1024, 8, HALF_LIFE, 0);
+        sketch.record("old", 0);
+        sketch.record("old", 0);
+        sketch.record("new", 2 * HALF_LIFE);
+        
+        List<Map.Entry<String, Double>> top = sketch.top(10, 2 * HALF_LIFE);
+        
+        assertThat(top.get(0).getKey()).isEqualTo("new");
+        assertThat(top.get(0).getValue()).isCloseTo(1.0, within(1e-6));
+        assertThat(top.get(1).getValue()).isCloseTo(0.5, within(1e-6));
+        assertThat(sketch.totalWeight(3 * HALF_LIFE)).isCloseTo(0.75, within(1e-6));
+    }
+    
+    @Test
+    void keepsCountsAcrossARescale() {
+        TrendingSketch sketch = new TrendingSketch(4, 1024, 8, HALF_LIFE, 0);
+        sketch.record("a", 0);
+        // 2^21 is past the rescale threshold, so this record rescales everything first
+        long later = 21 * HALF_LIFE;
+        sketch.record("b", later);
+        sketch.record("b", later + HALF_LIFE);
+        
+        List<Map.Entry<String, Double>> top = sketch.top(10, later + HALF_LIFE);
+        
+        assertThat(top.get(0).getKey()).isEqualTo("b");
+        assertThat(top.get(0).getValue()).isCloseTo(1.5, within(1e-6));
+        assertThat(top.get(1).getValue()).isCloseTo(Math.pow(2, -22), within(1e-9));
+    }
+    
+    @Test
+    void admitsANewcomerOnlyOnceItOutweighsTheSmallestCandidate() {
+        TrendingSketch sketch = new TrendingSketch(4, 1024, 2, HALF_LIFE, 0);
+        for (int i = 0; i < 3; i++) {
+            sketch.record("a", 0);
+            sketch.record("b", 0);
+        }
+        sketch.record("b", 0);
+        
+        sketch.record("c", 0);
+        sketch.record("c", 0);
+        sketch.record("c", 0);
+        assertThat(sketch.top(10, 0)).extracting(Map.Entry::getKey).containsExactly("b", "a");
+        
+        sketch.record("c", 0);
+        assertThat(sketch.top(10, 0)).containsExactly(Map.entry("b", 4.0), Map.entry("c", 4.0));
+    }
+    
+    @Test
+    void letsARisingActivityDisplaceOneThatHasDecayed() {
+        TrendingSketch sketch = new TrendingSketch(4, 1024, 1, HALF_LIFE, 0);
+        // Twelve events three half-lives ago now count for one and a half
+        for (int i = 0; i < 12; i++) {
+            sketch.record("old", 0);
+        }
+        sketch.record("new", 3 * HALF_LIFE);
+        
+        assertThat(sketch.top(10, 3 * HALF_LIFE)).extracting(Map.Entry::getKey).containsExactly("old");
+        
+        sketch.record("new", 3 * HALF_LIFE);
+        assertThat(sketch.top(10, 3 * HALF_LIFE)).extracting(Map.Entry::getKey).containsExactly("new");
+    }
+    
+    @Test
+    void returnsAtMostTheLimit() {
+        TrendingSketch sketch = new TrendingSketch(4, 1024, 8, HALF_LIFE, 0);
+        sketch.record("a", 0);
+        sketch.record("b", 0);
+        sketch.record("b", 0);
+        
+        assertThat(sketch.top(1, 0)).extracting(Map.Entry::getKey).containsExactly("b");
+        assertThat(sketch.top(0, 0)).isEmpty();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,151 @@
+package com.aspot.activity.service.external;
+
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.synthetic.PlacesStubController;
+import com.aspot.activity.synthetic.SyntheticActivityGenerator;
+import com.aspot.activity.synthetic.SyntheticDestination;
+import com.aspot.activity.synthetic.SyntheticPlace;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GooglePlacesServiceTest {
+    
+    private static final long SEED = 42;
+    private static final int PLACES = 500;
+    
+    private final SyntheticDestination lisbon = new SyntheticActivityGenerator(SEED, PLACES).destination("Lisbon");
+    private PlacesStubServer server;
+    private PlacesQuotaGovernor quotaGovernor;
+    
+    @AfterEach
+    void stopServer() {
+        if (server != null) {
+            server.close();
+        }
+    }
+    
+    @Test
+    void followsNextPagesUntilEnoughPlacesAreKept() throws IOException {
+        GooglePlacesService service = service(0, 3);
+        
+        List<Activity> activities = service.refreshActivities("Lisbon", "popular", 45);
+        
+        assertThat(activities).extracting(Activity::getId).containsExactlyElementsOf(expectedIds("point_of_interest", 60, 45));
+        assertThat(activities).allSatisfy(activity -> {
+            assertThat(activity.getId()).startsWith("gp_");
+            assertThat(activity.getRating()).isGreaterThanOrEqualTo(4.0);
+            assertThat(activity.getDestination()).isEqualTo("Lisbon");
+        });
+        assertThat(server.requestCount("/nearbysearch/json?pagetoken=")).isEqualTo(2);
+    }
+    
+    @Test
+    void readsOnlyTheFirstPageWhenItHasEnoughPlaces() throws IOException {
+        GooglePlacesService service = service(0, 3);
+        
+        List<Activity> activities = service.refreshActivities("Lisbon", "culture", 5);
+        
+        assertThat(activities).extracting(Activity::getId).containsExactlyElementsOf(expectedIds("museum", 20, 5));
+        assertThat(server.requestCount("/nearbysearch/json")).isEqualTo(1);
+    }
+    
+    @Test
+    void stopsAtThePageLimit() throws IOException {
+        GooglePlacesService service = service(0, 1);
+        
+        List<Activity> activities = service.refreshActivities("Lisbon", "popular", 45);
+        
+        assertThat(activities).extracting(Activity::getId).containsExactlyElementsOf(expectedIds("point_of_interest", 20, 45));
+        assertThat(server.requestCount("/nearbysearch/json")).isEqualTo(1);
+    }
+    
+    @Test
+    void retriesAPageTokenThatIsNotActiveYet() throws IOException {
+        GooglePlacesService service = service(1000, 3);
+        ReflectionTestUtils.setField(service, "pageTokenDelayMs", 0L);
+        ReflectionTestUtils.setField(service, "pageTokenRetryMs", 1200L);
+        ReflectionTestUtils.setField(service, "paginationMaxElapsedMs", 6000L);
+        
+        List<Activity> activities = service.refreshActivities("Lisbon", "popular", 45);
+        
+        assertThat(activities).extracting(Activity::getId).containsExactlyElementsOf(expectedIds("point_of_interest", 60, 45));
+        // Each token is asked for once too early, then once more after the retry delay
+        assertThat(server.requestCount("/nearbysearch/json?pagetoken=")).isEqualTo(4);
+    }
+    
+    @Test
+    void takesQuotaForEveryCall() throws IOException {
+        GooglePlacesService service = service(0, 3);
+        long before = quotaGovernor.getDayRemaining();
+        
+        service.refreshActivities("Lisbon", "popular", 45);
+        
+        assertThat(before - quotaGovernor.getDayRemaining()).isEqualTo(server.requests().size());
+    }
+    
+    @Test
+    void surfacesAnExhaustedQuotaInsteadOfMockActivities() throws IOException {
+        GooglePlacesService service = service(0, 3);
+        ReflectionTestUtils.setField(service, "quotaGovernor", quotaGovernor(1));
+        
+        assertThatThrownBy(() -> service.refreshActivities("Lisbon", "popular", 45))
+                .isInstanceOf(PlacesQuotaExceededException.class);
+        assertThat(server.requests()).hasSize(1);
+    }
+    
+    @Test
+    void readsTheDestinationAddressAndPlaceDetails() throws IOException {
+        GooglePlacesService service = service(0, 3);
+        SyntheticPlace place = lisbon.places().get(0);
+        
+        assertThat(service.findDestinationAddress("Lisbon")).isEqualTo(lisbon.formattedAddress());
+        assertThat(service.fetchPlaceDetails(place.placeId()))
+                .isEqualTo(new PlaceDetails(place.website(), place.phoneNumber(), place.photoReference(), "OK"));
+    }
+    
+    private GooglePlacesService service(long stubPageTokenDelayMs, int maxPages) throws IOException {
+        server = new PlacesStubServer(new PlacesStubController(SEED, PLACES, 0, stubPageTokenDelayMs,
+                "https://example.com/synthetic-photos", 16));
+        quotaGovernor = quotaGovernor(5000);
+        
+        GooglePlacesService service = new GooglePlacesService(new RestTemplate(),
+                new PlacesResponseParser(new ObjectMapper()), quotaGovernor);
+        ReflectionTestUtils.setField(service, "apiKey", "test-key");
+        ReflectionTestUtils.setField(service, "placesApiUrl", server.baseUrl());
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "maxPages", maxPages);
+        ReflectionTestUtils.setField(service, "pageTokenDelayMs", 0L);
+        ReflectionTestUtils.setField(service, "pageTokenRetryMs", 0L);
+        ReflectionTestUtils.setField(service, "paginationMaxElapsedMs", 4000L);
+        return service;
+    }
+    
+    private static PlacesQuotaGovernor quotaGovernor(long perDay) {
+        return new PlacesQuotaGovernor(new SimpleMeterRegistry(), 1000, perDay, 0.0, 500, "UTC");
+    }
+    
+    /**
+     * The places the stub ranks first for a type, cut to the pages read, then rated 4.0 or higher up to maxResults
+     */
+    private List<String> expectedIds(String type, int placesRead, int maxResults) {
+        return lisbon.places().stream()
+                .filter(place -> place.types().contains(type))
+                .sorted(Comparator.comparingInt(SyntheticPlace::reviewCount).reversed())
+                .limit(placesRead)
+                .filter(place -> place.rating() >= 4.0)
+                .limit(maxResults)
+                .map(place -> "gp_" + place.placeId())
+                .toList();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,61 @@
+package com.aspot.activity.service.external;
+
+import com.aspot.activity.model.Activity;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading one 20-result nearbysearch page: buffered into a String and walked as a JsonNode tree,
+ * against the streaming parser reading the response bytes. Run with {@code -prof gc} and compare
+ * gc.alloc.rate.norm, the bytes allocated per parsed page; otherwise run like
+ * {@link com.aspot.activity.service.ActivityDeduplicatorBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PlacesResponseParserBenchmark {
+    
+    @Param({"5", "20"})
+    int maxResults;
+    
+    ObjectMapper objectMapper;
+    PlacesResponseParser parser;
+    byte[] body;
+    
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper();
+        parser = new PlacesResponseParser(objectMapper);
+        body = StubResponses.nearbySearch(objectMapper, "Lisbon", null).getBytes(StandardCharsets.UTF_8);
+    }
+    
+    @Benchmark
+    public List<Activity> tree() throws IOException {
+        // RestTemplate decoded the whole body into a String before it was parsed
+        return TreePlacesParsing.parseNearbySearch(objectMapper, new String(body, StandardCharsets.UTF_8), "Lisbon", maxResults);
+    }
+    
+    @Benchmark
+    public List<Activity> streaming() throws IOException {
+        return parser.parseNearbySearch(new ByteArrayInputStream(body), "Lisbon", maxResults).activities();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,109 @@
+package com.aspot.activity.service.external;
+
+import com.aspot.activity.model.Activity;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PlacesResponseParserTest {
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PlacesResponseParser parser = new PlacesResponseParser(objectMapper);
+    
+    @Test
+    void parsesStubResponsesLikeTheTreePath() throws IOException {
+        for (String destination : List.of("Lisbon", "Kyoto", "Cape Town", "Reykjavik")) {
+            for (String type : Arrays.asList(null, "museum", "restaurant", "park")) {
+                String body = StubResponses.nearbySearch(objectMapper, destination, type);
+                assertThat(body).contains("\"place_id\"");
+                for (int maxResults : new int[] {0, 1, 5, 20, 60}) {
+                    assertThat(parser.parseNearbySearch(stream(body), destination, maxResults).activities())
+                            .as("%s of type %s, at most %d", destination, type, maxResults)
+                            .isEqualTo(TreePlacesParsing.parseNearbySearch(objectMapper, body, destination, maxResults));
+                }
+            }
+        }
+    }
+    
+    @Test
+    void readsMissingAndMistypedFieldsLikeTheTreePath() throws IOException {
+        String body = """
+                {"html_attributions": [], "results": [
+                  {"name": "No place id", "rating": 4.2, "geometry": {"location": {"lat": 38.7, "lng": -9.1}}},
+                  {"place_id": "p2", "name": null, "rating": "4.6", "user_ratings_total": "250", "price_level": "3",
+                   "types": "museum", "vicinity": 12},
+                  {"place_id": "p3", "name": {"text": "Nested"}, "rating": 4.0, "types": ["park", {"x": 1}, null, 7],
+                   "geometry": {"viewport": {"lat": 1}, "location": {"lng": 2.5, "extra": [1, 2]}}},
+                  {"place_id": "p4", "name": "No rating"},
+                  "not a place",
+                  {"place_id": "p5", "name": "Luxury bar", "rating": 4.9, "user_ratings_total": 99, "price_level": 4,
+                   "types": ["bar", "restaurant"], "photos": [{"photo_reference": "r"}]}
+                ], "status": "OK"}
+                """;
+        
+        List<Activity> parsed = parser.parseNearbySearch(stream(body), "Lisbon", 20).activities();
+        
+        assertThat(parsed).hasSize(4);
+        assertThat(parsed).isEqualTo(TreePlacesParsing.parseNearbySearch(objectMapper, body, "Lisbon", 20));
+    }
+    
+    @Test
+    void keepsOnlyPlacesRatedFourOrHigher() throws IOException {
+        String body = """
+                {"results": [
+                  {"place_id": "low", "rating": 3.99},
+                  {"place_id": "four", "rating": 4.0},
+                  {"place_id": "unrated"},
+                  {"place_id": "high", "rating": 4.8}
+                ], "status": "OK"}
+                """;
+        
+        assertThat(parser.parseNearbySearch(stream(body), "Lisbon", 20).activities())
+                .extracting(Activity::getId)
+                .containsExactly("gp_four", "gp_high");
+    }
+    
+    @Test
+    void stopsReadingOnceEnoughPlacesAreKept() throws IOException {
+        // Everything after the second kept place is malformed, so reading it would fail
+        String body = """
+                {"status": "OK", "results": [
+                  {"place_id": "a", "rating": 4.1},
+                  {"place_id": "skipped", "rating": 2.0},
+                  {"place_id": "b", "rating": 4.5},
+                  {"place_id": "c", "rating": 4.9}, ][ not json
+                """;
+        
+        PlacesSearchPage page = parser.parseNearbySearch(stream(body), "Lisbon", 2);
+        
+        assertThat(page.activities()).extracting(Activity::getId).containsExactly("gp_a", "gp_b");
+        assertThat(page.status()).isEqualTo("OK");
+        assertThat(page.hasNextPage()).isFalse();
+    }
+    
+    @Test
+    void readsTheNextPageTokenAndStatus() throws IOException {
+        String body = """
+                {"next_page_token": "token-1", "results": [{"place_id": "a", "rating": 4.1}], "status": "OK"}
+                """;
+        
+        PlacesSearchPage page = parser.parseNearbySearch(stream(body), "Lisbon", 20);
+        
+        assertThat(page.nextPageToken()).isEqualTo("token-1");
+        assertThat(page.status()).isEqualTo("OK");
+        assertThat(parser.parseNearbySearch(stream("{\"results\": [], \"status\": \"INVALID_REQUEST\"}"), "Lisbon", 20)
+                .isPageTokenPending()).isTrue();
+    }
+    
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.aspot.activity.service.external;
+
+import com.aspot.activity.synthetic.PlacesStubController;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The synthetic Places stub served over HTTP on a local port, so GooglePlacesService can be
+ * tested through its RestTemplate without Spring or the real API. Every request URI is kept.
+ */
+final class PlacesStubServer implements AutoCloseable {
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PlacesStubController stub;
+    private final HttpServer server;
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    
+    PlacesStubServer(PlacesStubController stub) throws IOException {
+        this.stub = stub;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+    
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+    
+    List<String> requests() {
+        return requests;
+    }
+    
+    long requestCount(String path) {
+        return requests.stream().filter(uri -> uri.startsWith(path)).count();
+    }
+    
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.add(exchange.getRequestURI().toString());
+        Map<String, String> params = query(exchange.getRequestURI().getRawQuery());
+        Object body = switch (exchange.getRequestURI().getPath()) {
+            case "/findplacefromtext/json" -> stub.findPlaceFromText(params.get("input"));
+            case "/nearbysearch/json" -> stub.nearbySearch(params.get("location"), params.get("type"), params.get("pagetoken"));
+            case "/details/json" -> stub.details(params.get("place_id"));
+            default -> null;
+        };
+        
+        if (body == null) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        byte[] json = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, json.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(json);
+        }
+    }
+    
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.aspot.activity.service.external;
+
+import com.aspot.activity.synthetic.PlacesStubController;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Nearbysearch response bodies as the synthetic Places stub serves them, for parser tests and benchmarks
+ */
+final class StubResponses {
+    
+    private StubResponses() {
+    }
+    
+    /**
+     * The first page of nearbysearch results around the given destination, optionally of one place type
+     */
+    @SuppressWarnings("unchecked")
+    static String nearbySearch(ObjectMapper objectMapper, String destination, String type) throws JsonProcessingException {
+        PlacesStubController stub = new PlacesStubController(42, 120, 0, 0, "https://example.com/synthetic-photos", 16);
+        Map<String, Object> candidate = ((List<Map<String, Object>>) stub.findPlaceFromText(destination).get("candidates")).get(0);
+        Map<String, Double> location = ((Map<String, Map<String, Double>>) candidate.get("geometry")).get("location");
+        String center = String.format(Locale.ROOT, "%s,%s", location.get("lat"), location.get("lng"));
+        return objectMapper.writeValueAsString(stub.nearbySearch(center, type, null));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,73 @@
+package com.aspot.activity.service.external;
+
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.model.ActivityIds;
+import com.aspot.activity.model.Location;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * How GooglePlacesService read nearbysearch responses before PlacesResponseParser: the whole
+ * body as a String, turned into a JsonNode tree and then walked. Kept as the reference the
+ * streaming parser is checked against and the baseline it is benchmarked against.
+ */
+final class TreePlacesParsing {
+    
+    private TreePlacesParsing() {
+    }
+    
+    static List<Activity> parseNearbySearch(ObjectMapper objectMapper, String body, String destination, int maxResults) throws IOException {
+        JsonNode searchJson = objectMapper.readTree(body);
+        
+        List<Activity> activities = new ArrayList<>();
+        JsonNode results = searchJson.path("results");
+        
+        int count = 0;
+        for (JsonNode result : results) {
+            if (count >= maxResults) break;
+            
+            Activity activity = parseGooglePlaceToActivity(result, destination);
+            if (activity != null && activity.getRating() != null && activity.getRating() >= 4.0) {
+                activities.add(activity);
+                count++;
+            }
+        }
+        return activities;
+    }
+    
+    private static Activity parseGooglePlaceToActivity(JsonNode place, String destination) {
+        Activity activity = new Activity();
+        activity.setName(place.path("name").asText());
+        activity.setDestination(destination);
+        activity.setRating(place.path("rating").asDouble());
+        activity.setReviewCount(place.path("user_ratings_total").asInt());
+        activity.setPriceRange(PlacesResponseParser.mapPriceLevel(place.path("price_level").asInt()));
+        
+        JsonNode location = place.path("geometry").path("location");
+        Location activityLocation = new Location();
+        activityLocation.setLatitude(location.path("lat").asDouble());
+        activityLocation.setLongitude(location.path("lng").asDouble());
+        activityLocation.setAddress(place.path("vicinity").asText());
+        activity.setLocation(activityLocation);
+        
+        String placeId = place.path("place_id").asText();
+        activity.setId(placeId.isEmpty()
+                ? ActivityIds.stableHash(destination, activity.getName(), activityLocation.getLatitude(), activityLocation.getLongitude())
+                : ActivityIds.fromGooglePlace(placeId));
+        
+        List<String> tags = new ArrayList<>();
+        for (JsonNode type : place.path("types")) {
+            tags.add(type.asText());
+        }
+        activity.setCategory(PlacesResponseParser.mapGoogleTypesToCategory(tags));
+        activity.setTags(tags);
+        
+        activity.setIsPopular(activity.getRating() >= 4.5 && activity.getReviewCount() >= 100);
+        
+        return activity;
+    }
+}
\ No newline at end of file
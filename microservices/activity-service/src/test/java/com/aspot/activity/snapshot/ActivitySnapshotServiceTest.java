@@ -0,0 +1,119 @@
+package com.aspot.activity.snapshot;
+
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.model.ActivityCategory;
+import com.aspot.activity.service.SuggestionService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHitsIterator;
+import org.springframework.data.elasticsearch.core.query.Query;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ActivitySnapshotServiceTest {
+    
+    @TempDir
+    Path directory;
+    
+    private final ElasticsearchOperations elasticsearchOperations = mock(ElasticsearchOperations.class);
+    
+    @Test
+    void writesEachSnapshotToANewFileAndDeletesTheOlderOnes() throws Exception {
+        ActivitySnapshotService service = service();
+        
+        indexed(activity("a", "Lisbon"));
+        service.takeSnapshot();
+        List<Path> first = snapshotFiles();
+        Thread.sleep(2);
+        indexed(activity("a", "Lisbon"), activity("b", "Lisbon"));
+        service.takeSnapshot();
+        List<Path> second = snapshotFiles();
+        
+        assertThat(first).hasSize(1);
+        assertThat(second).hasSize(1).doesNotContainAnyElementsOf(first);
+        assertThat(second.get(0).getFileName().toString()).matches("activity-snapshot-\\d+\\.bin");
+        assertThat(service.findActivities("Lisbon", null, 10)).extracting(Activity::getId).containsExactlyInAnyOrder("a", "b");
+    }
+    
+    @Test
+    void keepsTheCurrentSnapshotWhenTheIndexIsEmpty() throws Exception {
+        ActivitySnapshotService service = service();
+        indexed(activity("a", "Lisbon"));
+        service.takeSnapshot();
+        
+        indexed();
+        service.takeSnapshot();
+        
+        assertThat(snapshotFiles()).hasSize(1);
+        assertThat(service.findActivities("Lisbon", "food", 10)).extracting(Activity::getId).containsExactly("a");
+    }
+    
+    @Test
+    void startsFromTheNewestSnapshotAndFallsBackToTheUnversionedFile() throws Exception {
+        writeSnapshot(directory.resolve("activity-snapshot.bin"), activity("legacy", "Lisbon"));
+        ActivitySnapshotService legacy = service();
+        legacy.warmStart();
+        assertThat(legacy.findActivities("Lisbon", null, 10)).extracting(Activity::getId).containsExactly("legacy");
+        
+        writeSnapshot(directory.resolve("activity-snapshot-100.bin"), activity("older", "Lisbon"));
+        writeSnapshot(directory.resolve("activity-snapshot-200.bin"), activity("newer", "Lisbon"));
+        Files.writeString(directory.resolve("activity-snapshot-300.bin.tmp"), "partial");
+        ActivitySnapshotService restarted = service();
+        restarted.warmStart();
+        
+        assertThat(restarted.findActivities("Lisbon", null, 10)).extracting(Activity::getId).containsExactly("newer");
+    }
+    
+    private ActivitySnapshotService service() {
+        return new ActivitySnapshotService(elasticsearchOperations, mock(SuggestionService.class), true,
+                directory.resolve("activity-snapshot.bin").toString(), 1000);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void indexed(Activity... activities) {
+        Iterator<Activity> iterator = List.of(activities).iterator();
+        SearchHitsIterator<Activity> hits = mock(SearchHitsIterator.class);
+        when(hits.hasNext()).then(invocation -> iterator.hasNext());
+        when(hits.next()).then(invocation -> {
+            SearchHit<Activity> hit = mock(SearchHit.class);
+            when(hit.getContent()).thenReturn(iterator.next());
+            return hit;
+        });
+        when(elasticsearchOperations.searchForStream(any(Query.class), eq(Activity.class))).thenReturn(hits);
+    }
+    
+    private List<Path> snapshotFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.toList();
+        }
+    }
+    
+    private void writeSnapshot(Path file, Activity activity) throws IOException {
+        try (ActivitySnapshotWriter writer = new ActivitySnapshotWriter(directory)) {
+            writer.add(activity);
+            writer.writeTo(file, 0L);
+        }
+    }
+    
+    private static Activity activity(String id, String destination) {
+        Activity activity = new Activity();
+        activity.setId(id);
+        activity.setName(id);
+        activity.setDestination(destination);
+        activity.setCategory(ActivityCategory.FOOD);
+        return activity;
+    }
+}
\ No newline at end of file
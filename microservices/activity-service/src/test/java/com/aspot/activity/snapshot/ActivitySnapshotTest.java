@@ -0,0 +1,146 @@
+package com.aspot.activity.snapshot;
+
+import com.aspot.activity.model.Activity;
+import com.aspot.activity.model.ActivityCategory;
+import com.aspot.activity.model.Location;
+import com.aspot.activity.synthetic.SyntheticActivityGenerator;
+import com.aspot.activity.synthetic.SyntheticDestination;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ActivitySnapshotTest {
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void readsBackEveryActivityItWrote() throws IOException {
+        List<Activity> activities = new ArrayList<>();
+        SyntheticActivityGenerator generator = new SyntheticActivityGenerator(42, 400);
+        for (String name : List.of("Lisbon", "Kyoto", "Cape Town")) {
+            SyntheticDestination destination = generator.destination(name);
+            destination.places().forEach(place -> activities.add(SyntheticActivityGenerator.toActivity(place, name)));
+        }
+        activities.add(sparse());
+        activities.add(detailed());
+        
+        ActivitySnapshot snapshot = write(activities, 1234L);
+        
+        assertThat(snapshot.getCreatedAt()).isEqualTo(1234L);
+        assertThat(snapshot.getActivityCount()).isEqualTo(activities.size());
+        assertThat(snapshot.getDestinationCount()).isEqualTo(4);
+        List<Activity> read = new ArrayList<>();
+        snapshot.iterator().forEachRemaining(read::add);
+        assertThat(read).containsExactlyInAnyOrderElementsOf(activities);
+    }
+    
+    @Test
+    void findsADestinationByAnySpellingAndCategory() throws IOException {
+        List<Activity> activities = List.of(
+                activity("a", "Lisbon", ActivityCategory.FOOD, false),
+                activity("b", "Kyoto", ActivityCategory.FOOD, true),
+                activity("c", "Lisbon", ActivityCategory.SIGHTS, true),
+                activity("d", "lisbon ", ActivityCategory.FOOD, true),
+                activity("e", "Lisbon", null, false));
+        
+        ActivitySnapshot snapshot = write(activities, 0L);
+        
+        assertThat(snapshot.find("LISBON", null, 10)).extracting(Activity::getId).containsExactlyInAnyOrder("a", "c", "d", "e");
+        assertThat(snapshot.find("Lisbon", ActivityCategory.FOOD, 10)).extracting(Activity::getId).containsExactlyInAnyOrder("a", "d");
+        assertThat(snapshot.find("Lisbon", ActivityCategory.OUTDOOR, 10)).isEmpty();
+        assertThat(snapshot.find("Lisbon", null, 2)).hasSize(2);
+        assertThat(snapshot.findPopular("Lisbon", 10)).extracting(Activity::getId).containsExactlyInAnyOrder("c", "d");
+        assertThat(snapshot.find("Porto", null, 10)).isEmpty();
+    }
+    
+    @Test
+    void spillsStringsLargerThanItsBuffers() throws IOException {
+        Activity activity = activity("long", "Lisbon", ActivityCategory.CULTURE, false);
+        activity.setDescription("x".repeat(200_000));
+        
+        ActivitySnapshot snapshot = write(List.of(activity, activity("short", "Lisbon", ActivityCategory.CULTURE, false)), 0L);
+        
+        assertThat(snapshot.find("Lisbon", ActivityCategory.CULTURE, 10)).extracting(Activity::getDescription)
+                .containsExactlyInAnyOrder("x".repeat(200_000), null);
+    }
+    
+    @Test
+    void leavesOnlyTheSnapshotFileBehind() throws IOException {
+        write(List.of(activity("a", "Lisbon", ActivityCategory.FOOD, false)), 0L);
+        
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.map(file -> file.getFileName().toString())).containsExactly("snapshot.bin");
+        }
+    }
+    
+    @Test
+    void skipsActivitiesWithoutAnIdOrDestination() throws IOException {
+        Activity withoutId = activity(null, "Lisbon", ActivityCategory.FOOD, false);
+        Activity withoutDestination = activity("b", null, ActivityCategory.FOOD, false);
+        
+        ActivitySnapshot snapshot = write(List.of(withoutId, withoutDestination, activity("c", "Lisbon", null, false)), 0L);
+        
+        Iterator<Activity> read = snapshot.iterator();
+        assertThat(read.next().getId()).isEqualTo("c");
+        assertThat(read.hasNext()).isFalse();
+    }
+    
+    private ActivitySnapshot write(List<Activity> activities, long createdAt) throws IOException {
+        Path file = directory.resolve("snapshot.bin");
+        try (ActivitySnapshotWriter writer = new ActivitySnapshotWriter(directory)) {
+            for (Activity activity : activities) {
+                writer.add(activity);
+            }
+            writer.writeTo(file, createdAt);
+        }
+        return ActivitySnapshot.open(file);
+    }
+    
+    private static Activity activity(String id, String destination, ActivityCategory category, boolean popular) {
+        Activity activity = new Activity();
+        activity.setId(id);
+        activity.setName("Activity " + id);
+        activity.setDestination(destination);
+        activity.setCategory(category);
+        activity.setIsPopular(popular);
+        return activity;
+    }
+    
+    /**
+     * Every optional field left null
+     */
+    private static Activity sparse() {
+        Activity activity = new Activity();
+        activity.setId("sparse");
+        activity.setDestination("Porto");
+        return activity;
+    }
+    
+    /**
+     * Every field set, including empty tags and a location without coordinates
+     */
+    private static Activity detailed() {
+        Activity activity = activity("detailed", "Porto", ActivityCategory.WELLNESS, true);
+        activity.setDescription("Thermal baths — termas");
+        activity.setPriceRange("$$$");
+        activity.setRating(4.7);
+        activity.setReviewCount(1234);
+        activity.setTags(new ArrayList<>());
+        activity.setImageUrl("https://example.com/image.jpg");
+        activity.setWebsiteUrl("https://example.com");
+        activity.setPhoneNumber("+351 22 000 0000");
+        activity.setLocation(new Location(null, null, "Rua 1", "Porto", "Portugal"));
+        return activity;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.aspot.itinerary.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityScheduledEventDto {
+    private String destination;
+    private List<String> activityIds; // Activity Service ids, one entry per scheduled occurrence
+}
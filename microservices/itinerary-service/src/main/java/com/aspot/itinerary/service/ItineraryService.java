@@ -1,7 +1,9 @@
 package com.aspot.itinerary.service;
 
 import com.aspot.itinerary.model.Itinerary;
+import com.aspot.itinerary.model.ScheduledActivity;
 import com.aspot.itinerary.repository.ItineraryRepository;
+import com.aspot.itinerary.service.external.ActivityServiceClient;
 import com.aspot.itinerary.service.external.UserServiceClient;
 import com.aspot.itinerary.controller.ItineraryController;
 import lombok.RequiredArgsConstructor;
@@ -12,6 +14,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -23,6 +26,7 @@ public class ItineraryService {
     
     private final ItineraryRepository itineraryRepository;
     private final UserServiceClient userServiceClient;
+    private final ActivityServiceClient activityServiceClient;
     
     /**
      * Get itinerary by ID
@@ -81,7 +85,19 @@ public class ItineraryService {
         
         log.info("Skipping user validation for development - user: {}", itinerary.getOwnerId());
         
-        return itineraryRepository.save(itinerary);
+        Itinerary savedItinerary = itineraryRepository.save(itinerary);
+        
+        // Report scheduled activities that came from Activity Service for trending
+        if (savedItinerary.getDayPlans() != null) {
+            List<String> activityIds = savedItinerary.getDayPlans().stream()
+                    .flatMap(dayPlan -> dayPlan.getActivities().stream())
+                    .map(ScheduledActivity::getActivityId)
+                    .filter(Objects::nonNull)
+                    .toList();
+            activityServiceClient.recordScheduledActivities(savedItinerary.getDestination(), activityIds);
+        }
+        
+        return savedItinerary;
     }
     
     /**
@@ -203,6 +219,7 @@ public class ItineraryService {
         // Convert ActivityDto to ScheduledActivity
         var scheduledActivity = new com.aspot.itinerary.model.ScheduledActivity();
         scheduledActivity.setId(UUID.randomUUID());
+        scheduledActivity.setActivityId(request.activity.id);
         scheduledActivity.setName(request.activity.name);
         scheduledActivity.setDescription(request.activity.description);
         
@@ -243,6 +260,10 @@ public class ItineraryService {
         log.info("Added activity '{}' to day plan {} for itinerary {}", 
                 scheduledActivity.getName(), dayPlanId, itineraryId);
         
+        if (request.activity.id != null) {
+            activityServiceClient.recordScheduledActivities(itinerary.getDestination(), List.of(request.activity.id));
+        }
+        
         return savedItinerary;
     }
     
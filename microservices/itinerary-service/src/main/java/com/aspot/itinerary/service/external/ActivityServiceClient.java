@@ -1,6 +1,7 @@
 package com.aspot.itinerary.service.external;
 
 import com.aspot.itinerary.dto.ActivityDto;
+import com.aspot.itinerary.dto.ActivityScheduledEventDto;
 import com.aspot.itinerary.dto.UserPreferencesDto;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -9,9 +10,11 @@ import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -20,6 +23,9 @@ import java.util.List;
 @Slf4j
 public class ActivityServiceClient {
     
+    // Matches activity.batch.max-ids in Activity Service
+    private static final int BATCH_SIZE = 200;
+    
     private final RestTemplate restTemplate;
     
     @Value("${external.services.activity-service}")
@@ -39,6 +45,52 @@ public class ActivityServiceClient {
         }
     }
     
+    /**
+     * Get several activities by ID from Activity Service, one request per batch of ids.
+     * Activities that could not be found or fetched are left out; the rest keep the given order.
+     */
+    public List<ActivityDto> getActivities(List<String> activityIds) {
+        List<ActivityDto> activities = new ArrayList<>(activityIds.size());
+        String url = activityServiceUrl + "/api/activities/batch";
+        
+        for (int from = 0; from < activityIds.size(); from += BATCH_SIZE) {
+            List<String> batch = activityIds.subList(from, Math.min(from + BATCH_SIZE, activityIds.size()));
+            try {
+                ResponseEntity<List<ActivityDto>> response = restTemplate.exchange(
+                        url,
+                        HttpMethod.POST,
+                        new HttpEntity<>(batch),
+                        new ParameterizedTypeReference<List<ActivityDto>>() {}
+                );
+                
+                if (response.getBody() != null) {
+                    activities.addAll(response.getBody());
+                }
+            } catch (Exception e) {
+                log.error("Error fetching {} activities from Activity Service: {}", batch.size(), e.getMessage());
+            }
+        }
+        
+        return activities;
+    }
+    
+    /**
+     * Tell Activity Service which activities were scheduled, so it can track what is trending.
+     * Sent in the background; a failure only loses the event.
+     */
+    @Async
+    public void recordScheduledActivities(String destination, List<String> activityIds) {
+        if (destination == null || activityIds.isEmpty()) {
+            return;
+        }
+        try {
+            String url = activityServiceUrl + "/api/activities/events/scheduled";
+            restTemplate.postForEntity(url, new ActivityScheduledEventDto(destination, activityIds), Void.class);
+        } catch (Exception e) {
+            log.warn("Error recording {} scheduled activities with Activity Service: {}", activityIds.size(), e.getMessage());
+        }
+    }
+    
     /**
      * Search activities by destination and category
      */